@@ -0,0 +1,45 @@
+package ma.digitalia.generationfichepaie.benchmarks;
+
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.helpers.FichePaiePdfGenerateur;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu PDF d'une fiche de paie selon son nombre d'éléments.
+ * {@code java -jar target/benchmarks.jar FichePaiePdfBenchmark -prof gc} pour les octets alloués par fiche.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FichePaiePdfBenchmark {
+
+    @Param({"5", "20", "50"})
+    private int nombreElements;
+
+    private FichePaie fiche;
+
+    @Setup
+    public void preparer() {
+        fiche = FichesPaieExemple.fiche(nombreElements);
+    }
+
+    @Benchmark
+    public byte[] genererPdf() {
+        return FichePaiePdfGenerateur.genererPdf(fiche);
+    }
+}
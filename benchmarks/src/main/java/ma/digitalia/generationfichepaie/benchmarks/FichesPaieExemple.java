@@ -0,0 +1,159 @@
+package ma.digitalia.generationfichepaie.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.digitalia.generationfichepaie.Enum.ModeCalcul;
+import ma.digitalia.generationfichepaie.Enum.StatutPaie;
+import ma.digitalia.generationfichepaie.Enum.TypeElement;
+import ma.digitalia.generationfichepaie.entities.ElementPaie;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
+import ma.digitalia.generationfichepaie.services.BaremePaieServiceImpl;
+import ma.digitalia.generationfichepaie.services.GenerationFichePaieServiceImpl;
+import ma.digitalia.gestionutilisateur.entities.Employe;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fiches de paie représentatives utilisées par les benchmarks : un salaire de base suivi de primes,
+ * indemnités, heures supplémentaires et retenues, sans les éléments calculés automatiquement.
+ */
+public final class FichesPaieExemple {
+
+    public static final YearMonth PERIODE = YearMonth.of(2025, 1);
+
+    // Types des éléments qui suivent le salaire de base, repris en boucle
+    private static final TypeElement[] TYPES = {
+            TypeElement.PRIME_FIXE, TypeElement.PRIME_VARIABLE, TypeElement.INDEMNITE,
+            TypeElement.HEURES_SUPPLEMENTAIRES, TypeElement.DEDUCTION_ABSENCE, TypeElement.PRIME_FIXE,
+            TypeElement.INDEMNITE, TypeElement.DEDUCTION_RETARD, TypeElement.DEDUCTION_AUTRE, TypeElement.AUTRE
+    };
+
+    private FichesPaieExemple() {
+    }
+
+    public static Employe employe() {
+        Employe employe = new Employe();
+        employe.setId(1L);
+        employe.setNom("Alaoui");
+        employe.setPreNom("Sara");
+        employe.setNumeroEmploye("EMP-0001");
+        employe.setCin("AB123456");
+        employe.setPoste("Ingénieur");
+        employe.setAdresse("12 rue des Orangers");
+        employe.setDateEmbauche(LocalDate.of(2021, 3, 1));
+        return employe;
+    }
+
+    public static List<ElementPaie> elements(Employe employe, int nombre) {
+        List<ElementPaie> elements = new ArrayList<>(nombre);
+        elements.add(element(employe, TypeElement.SALAIRE_BASE, "Base", "Salaire de base", new BigDecimal("12000.00"), true));
+        for (int i = 1; i < nombre; i++) {
+            TypeElement type = TYPES[(i - 1) % TYPES.length];
+            // les indemnités (transport, repas) sont exonérées
+            boolean soumis = type != TypeElement.INDEMNITE;
+            BigDecimal montant = BigDecimal.valueOf(50 + (i * 37L) % 450).setScale(2);
+            ElementPaie element = element(employe, type, type.name() + "-" + i, libelle(type, i), montant, soumis);
+            if (type == TypeElement.PRIME_VARIABLE) {
+                // prime de rendement à 10 % d'un objectif
+                element.setModeCalcul(ModeCalcul.TAUX);
+                element.setTaux(BigDecimal.TEN);
+                element.setBase(montant.multiply(BigDecimal.TEN));
+            }
+            elements.add(element);
+        }
+        return elements;
+    }
+
+    /**
+     * Fiche complète pour le rendu PDF : les montants sont cohérents entre eux sans passer par le calcul.
+     */
+    public static FichePaie fiche(int nombreElements) {
+        Employe employe = employe();
+        List<ElementPaie> elements = elements(employe, nombreElements);
+        BigDecimal brut = BigDecimal.ZERO;
+        for (ElementPaie element : elements) {
+            brut = switch (element.getType()) {
+                case DEDUCTION_ABSENCE, DEDUCTION_AUTRE, DEDUCTION_RETARD -> brut.subtract(element.getMontant());
+                case AUTRE -> brut;
+                default -> brut.add(element.getMontant());
+            };
+        }
+        BigDecimal cotisations = brut.min(new BigDecimal("6000")).multiply(new BigDecimal("0.0674")).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal impot = brut.multiply(new BigDecimal("0.12")).setScale(2, RoundingMode.HALF_UP);
+
+        FichePaie fiche = new FichePaie();
+        fiche.setId(1L);
+        fiche.setEmploye(employe);
+        fiche.setPeriode(PERIODE);
+        fiche.setStatut(StatutPaie.BROUILLON);
+        fiche.setDateGeneration(LocalDateTime.of(2025, 1, 31, 18, 0));
+        fiche.setSalaireBrut(brut);
+        fiche.setSalaireBrutImposable(brut);
+        fiche.setCotisationsSalariales(cotisations);
+        fiche.setCotisationsPatronales(cotisations.multiply(BigDecimal.valueOf(2)));
+        fiche.setSalaireNetImposable(brut.subtract(cotisations));
+        fiche.setImpotSurLeRevenu(impot);
+        fiche.setSalaireNet(brut.subtract(cotisations).subtract(impot));
+        fiche.setJoursTravailles(22);
+        fiche.setHeuresSupplementaires(8);
+        fiche.setElements(elements);
+        return fiche;
+    }
+
+    /**
+     * Instantané de simulation de la fiche : le calcul garde les éléments calculés en mémoire, sans dépôt.
+     */
+    public static PayrollInputSnapshot donnees(FichePaie fiche) {
+        Long employeId = fiche.getEmploye().getId();
+        return new PayrollInputSnapshot(fiche.getPeriode(), Map.of(employeId, fiche.getEmploye()), Map.of(), Map.of(), Set.of())
+                .simulation(Map.of(employeId, fiche.getElements()), null);
+    }
+
+    /**
+     * Service de génération réduit au calcul, avec le barème du module.
+     */
+    public static GenerationFichePaieServiceImpl serviceCalcul(boolean noyauCentimes) {
+        return GenerationFichePaieServiceImpl.pourCalcul(baremePaieService(), noyauCentimes);
+    }
+
+    public static BaremePaieServiceImpl baremePaieService() {
+        BaremePaieServiceImpl service = new BaremePaieServiceImpl(new ObjectMapper().findAndRegisterModules(),
+                new ClassPathResource("baremes-paie.json"));
+        try {
+            service.charger();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return service;
+    }
+
+    private static String libelle(TypeElement type, int rang) {
+        return switch (type) {
+            case PRIME_FIXE -> "Prime fixe " + rang;
+            case PRIME_VARIABLE -> "Prime de rendement " + rang;
+            case INDEMNITE -> "Indemnité de transport " + rang;
+            case HEURES_SUPPLEMENTAIRES -> "Heures supplémentaires " + rang;
+            case DEDUCTION_ABSENCE -> "Absence non justifiée " + rang;
+            case DEDUCTION_RETARD -> "Retenue pour retard " + rang;
+            case DEDUCTION_AUTRE -> "Retenue diverse " + rang;
+            default -> "Élément " + rang;
+        };
+    }
+
+    private static ElementPaie element(Employe employe, TypeElement type, String sousType, String libelle,
+                                       BigDecimal montant, boolean soumis) {
+        return new ElementPaie(null, type, sousType, libelle, ModeCalcul.MONTANT, montant, null, null,
+                null, soumis, soumis, employe, null, null);
+    }
+}
@@ -0,0 +1,76 @@
+package ma.digitalia.generationfichepaie.benchmarks;
+
+import ma.digitalia.generationfichepaie.entities.ElementPaie;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
+import ma.digitalia.generationfichepaie.services.GenerationFichePaieServiceImpl;
+import ma.digitalia.gestionutilisateur.entities.Employe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul d'un lot de fiches (salaires de base variés, de 5 à 29 éléments) en {@code BigDecimal}
+ * et avec le noyau en centimes ({@code paie.calcul.noyau-centimes}). Les allocations par lot
+ * se lisent avec le profileur GC : {@code java -jar target/benchmarks.jar LotPaieNoyauBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LotPaieNoyauBenchmark {
+
+    private static final int TAILLE_LOT = 1_000;
+
+    @Param({"false", "true"})
+    private boolean noyauCentimes;
+
+    private GenerationFichePaieServiceImpl service;
+    private PayrollInputSnapshot donnees;
+    private Map<Long, List<ElementPaie>> elements;
+
+    @Setup
+    public void preparer() {
+        service = FichesPaieExemple.serviceCalcul(noyauCentimes);
+        Map<Long, Employe> employes = new HashMap<>();
+        elements = new HashMap<>();
+        for (long id = 1; id <= TAILLE_LOT; id++) {
+            Employe employe = FichesPaieExemple.employe();
+            employe.setId(id);
+            List<ElementPaie> liste = FichesPaieExemple.elements(employe, 5 + (int) (id % 25));
+            // salaires de base de 4 000 à 24 000 DH : sous et au-dessus du plafond CNSS, toutes les tranches IR
+            liste.get(0).setMontant(BigDecimal.valueOf(400_000 + (id * 7_919) % 2_000_000, 2));
+            employes.put(id, employe);
+            elements.put(id, liste);
+        }
+        donnees = new PayrollInputSnapshot(FichesPaieExemple.PERIODE, employes, Map.of(), Map.of(), Set.of());
+    }
+
+    @Benchmark
+    public void lot(Blackhole trou) {
+        // instantané neuf : les cotisations et l'impôt sont créés pour chaque fiche
+        PayrollInputSnapshot lot = donnees.simulation(elements, null);
+        for (long id = 1; id <= TAILLE_LOT; id++) {
+            FichePaie fiche = service.simulerFichePaie(id, lot);
+            trou.consume(fiche.getSalaireNet());
+        }
+    }
+}
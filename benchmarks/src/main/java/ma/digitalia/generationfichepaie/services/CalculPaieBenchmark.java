@@ -0,0 +1,74 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.benchmarks.FichesPaieExemple;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Méthodes de calcul de {@link GenerationFichePaieServiceImpl}, selon le nombre d'éléments de la fiche.
+ * Dans le paquetage du service pour accéder aux méthodes de calcul, qui n'en sont pas publiques.
+ * Chaque appel reçoit un instantané neuf : les cotisations et l'impôt sont créés comme à la première génération.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CalculPaieBenchmark {
+
+    @Param({"5", "20", "50"})
+    private int nombreElements;
+
+    private GenerationFichePaieServiceImpl service;
+    private FichePaie fiche;
+    private PayrollInputSnapshot donnees;
+
+    @Setup
+    public void preparer() {
+        // seul le barème sert au calcul ; un instantané de simulation n'enregistre rien
+        service = FichesPaieExemple.serviceCalcul(false);
+        fiche = FichesPaieExemple.fiche(nombreElements);
+        donnees = FichesPaieExemple.donnees(fiche);
+        fiche.setSalaireBrutImposable(service.calculerSalaireBrutImposable(fiche));
+    }
+
+    @Benchmark
+    public BigDecimal salaireBrut() {
+        return service.calculerSalaireBrut(fiche);
+    }
+
+    @Benchmark
+    public BigDecimal cotisationSalariale() {
+        return service.calculerCotisationSalariale(fiche, instantane());
+    }
+
+    @Benchmark
+    public BigDecimal cotisationPatronale() {
+        return service.calculerCotisationPatronale(fiche, instantane());
+    }
+
+    @Benchmark
+    public BigDecimal impotSurLeRevenu() {
+        return service.calculerImpotSurLeRevenu(fiche, 2, instantane());
+    }
+
+    private PayrollInputSnapshot instantane() {
+        return donnees.simulation(Map.of(fiche.getEmploye().getId(), fiche.getElements()), null);
+    }
+}
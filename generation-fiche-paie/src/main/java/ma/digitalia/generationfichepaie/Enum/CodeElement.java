@@ -0,0 +1,26 @@
+package ma.digitalia.generationfichepaie.Enum;
+
+/**
+ * Code stable des éléments de paie calculés automatiquement (null pour les éléments saisis).
+ * Un élément système au plus par employé et par code.
+ */
+public enum CodeElement {
+    CNSS_SALARIALE("Cotisation CNSS"),
+    AMO_SALARIALE("Cotisation AMO"),
+    CNSS_PATRONALE("CNSS Patronale"),
+    AMO_PATRONALE("AMO Patronale"),
+    FORMATION_PRO("Formation Pro"),
+    ALLOCATIONS_FAMILIALES("Allocations Familiales"),
+    IMPOT_REVENU("Impôt sur le revenu");
+
+    // Libellé par lequel l'élément était reconnu avant l'ajout du code
+    private final String libelle;
+
+    CodeElement(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+}
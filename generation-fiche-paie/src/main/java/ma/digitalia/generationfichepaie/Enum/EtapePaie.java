@@ -0,0 +1,17 @@
+package ma.digitalia.generationfichepaie.Enum;
+
+/**
+ * Étapes de la génération d'une fiche de paie, mesurées par le timer {@code paie.fiche.etape}.
+ */
+public enum EtapePaie {
+    RAPPORT_TEMPS,  // Chargement (ou génération) des rapports de temps
+    ELEMENTS,       // Chargement des éléments de paie
+    COTISATIONS,    // Cotisations salariales et patronales
+    IMPOT,          // Impôt sur le revenu
+    RENDU_PDF,      // Rendu et stockage du PDF
+    PERSISTANCE;    // Enregistrement de la fiche
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
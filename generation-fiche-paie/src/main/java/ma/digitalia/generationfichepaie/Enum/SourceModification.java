@@ -0,0 +1,7 @@
+package ma.digitalia.generationfichepaie.Enum;
+
+public enum SourceModification {
+    ELEMENT_PAIE,   // Élément de paie ajouté, modifié ou supprimé
+    RAPPORT_TEMPS,  // Nouveau rapport de temps mensuel
+    SALAIRE_BASE    // Salaire de base de l'employé modifié
+}
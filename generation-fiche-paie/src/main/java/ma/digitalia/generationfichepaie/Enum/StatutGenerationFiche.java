@@ -0,0 +1,29 @@
+package ma.digitalia.generationfichepaie.Enum;
+
+/**
+ * Avancement d'une demande de génération asynchrone d'une fiche de paie.
+ */
+public enum StatutGenerationFiche {
+    EN_ATTENTE(0),
+    CALCUL(10),
+    RENDU_PDF(60),
+    TERMINE(100),
+    ECHEC(100);
+
+    private final int progression;
+
+    StatutGenerationFiche(int progression) {
+        this.progression = progression;
+    }
+
+    /**
+     * @return la progression de la demande, en pourcentage
+     */
+    public int getProgression() {
+        return progression;
+    }
+
+    public boolean isTermine() {
+        return this == TERMINE || this == ECHEC;
+    }
+}
@@ -4,5 +4,6 @@ public enum StatutPaie {
     BROUILLON,
     VALIDEE,
     ENVOYEE,
-    ARCHIVEE
+    ARCHIVEE,
+    CLOTUREE        // Période clôturée : fiche figée, plus de régénération possible
 }
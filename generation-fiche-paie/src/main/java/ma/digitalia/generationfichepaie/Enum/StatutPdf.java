@@ -0,0 +1,7 @@
+package ma.digitalia.generationfichepaie.Enum;
+
+public enum StatutPdf {
+    EN_ATTENTE,     // Fiche calculée, rendu du PDF en file
+    GENERE,         // PDF rendu et enregistré
+    ECHEC           // Dernier rendu en erreur, repris tant que le nombre max de tentatives n'est pas atteint
+}
@@ -0,0 +1,9 @@
+package ma.digitalia.generationfichepaie.Enum;
+
+public enum StatutRun {
+    EN_COURS,
+    TERMINE,
+    TERMINE_AVEC_ERREURS,
+    // lancement interrompu (erreur inattendue, arrêt de l'application) : à relancer
+    ECHEC
+}
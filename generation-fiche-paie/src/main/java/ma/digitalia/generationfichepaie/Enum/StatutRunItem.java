@@ -0,0 +1,7 @@
+package ma.digitalia.generationfichepaie.Enum;
+
+public enum StatutRunItem {
+    EN_ATTENTE,     // Pas encore traité (ou interrompu avant validation)
+    TERMINE,        // Fiche de paie générée et validée en base
+    ECHEC           // Dernière tentative en erreur, à reprendre
+}
@@ -0,0 +1,6 @@
+package ma.digitalia.generationfichepaie.Enum;
+
+public enum StrategiePartition {
+    PAR_DEPARTEMENT,    // Un lot par département (découpé si trop volumineux)
+    PAR_PLAGE_ID        // Lots consécutifs d'identifiants d'employés
+}
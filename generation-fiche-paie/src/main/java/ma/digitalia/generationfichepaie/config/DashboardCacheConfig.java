@@ -0,0 +1,50 @@
+package ma.digitalia.generationfichepaie.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Caches du tableau de bord de la paie : bornés, avec une durée de vie propre à chaque cache et des
+ * statistiques (succès/échecs) exposées par Micrometer. Les entrées d'une période sont invalidées
+ * dès qu'une de ses fiches est générée ou modifiée.
+ */
+@Configuration
+@EnableCaching
+public class DashboardCacheConfig {
+
+    public static final String CACHE_MASSE_SALARIALE = "masseSalariale";
+    public static final String CACHE_TAUX_ERREUR = "tauxErreur";
+    public static final String CACHE_SALARY_EVOLUTION = "salaryEvolution";
+    public static final String CACHE_TOTAUX_PERIODE = "totauxPeriode";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${paie.cache.taille-max:500}") long tailleMax,
+                                     @Value("${paie.cache.masse-salariale.ttl-secondes:600}") long ttlMasseSalariale,
+                                     @Value("${paie.cache.taux-erreur.ttl-secondes:600}") long ttlTauxErreur,
+                                     @Value("${paie.cache.salary-evolution.ttl-secondes:1800}") long ttlSalaryEvolution,
+                                     @Value("${paie.cache.totaux-periode.ttl-secondes:600}") long ttlTotauxPeriode) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        // caches déclarés dès le démarrage pour que leurs métriques soient enregistrées
+        cacheManager.registerCustomCache(CACHE_MASSE_SALARIALE, cache(tailleMax, ttlMasseSalariale));
+        cacheManager.registerCustomCache(CACHE_TAUX_ERREUR, cache(tailleMax, ttlTauxErreur));
+        cacheManager.registerCustomCache(CACHE_SALARY_EVOLUTION, cache(tailleMax, ttlSalaryEvolution));
+        cacheManager.registerCustomCache(CACHE_TOTAUX_PERIODE, cache(tailleMax, ttlTotauxPeriode));
+        return cacheManager;
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> cache(long tailleMax, long ttlSecondes) {
+        return Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfterWrite(Duration.ofSeconds(ttlSecondes))
+                .recordStats()
+                .build();
+    }
+}
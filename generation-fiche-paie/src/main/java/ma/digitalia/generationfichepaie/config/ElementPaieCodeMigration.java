@@ -0,0 +1,63 @@
+package ma.digitalia.generationfichepaie.config;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.CodeElement;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Renseigne au démarrage le code des éléments système créés avant la colonne {@code element_paie.code},
+ * reconnus jusque-là par leur libellé. Un seul élément par employé et par code est repris (le plus ancien),
+ * comme le voulait l'ancienne recherche par libellé.
+ */
+@Slf4j
+@Component
+public class ElementPaieCodeMigration implements CommandLineRunner {
+
+    private static final String TYPES_SYSTEME = "('COTISATION_SOCIALE', 'IMPOT')";
+
+    private static final String A_MIGRER =
+            "SELECT EXISTS (SELECT 1 FROM element_paie WHERE code IS NULL AND type IN " + TYPES_SYSTEME + ")";
+
+    private static final String MIGRER_CODE = """
+            UPDATE element_paie SET code = ?
+            WHERE id IN (
+                SELECT MIN(x.id) FROM element_paie x
+                WHERE x.code IS NULL AND x.type IN %s AND x.libelle LIKE ?
+                  AND NOT EXISTS (SELECT 1 FROM element_paie y WHERE y.employe_id = x.employe_id AND y.code = ?)
+                GROUP BY x.employe_id)
+            """.formatted(TYPES_SYSTEME);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ElementPaieCodeMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(A_MIGRER, Boolean.class))) {
+                return;
+            }
+            Integer total = transactionTemplate.execute(status -> {
+                int migres = 0;
+                for (CodeElement code : CodeElement.values()) {
+                    migres += jdbcTemplate.update(MIGRER_CODE, code.name(), "%" + code.getLibelle() + "%", code.name());
+                }
+                return migres;
+            });
+            if (total != null && total > 0) {
+                log.info("{} éléments de paie système identifiés par leur code", total);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Impossible de renseigner le code des éléments de paie système : {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ma.digitalia.generationfichepaie.config;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import ma.digitalia.generationfichepaie.repositories.PayrollPeriodSummaryRepository;
+import ma.digitalia.generationfichepaie.services.PayrollPeriodSummaryService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remplit au démarrage la table {@code payroll_period_summary} à partir des fiches existantes
+ * lorsqu'elle est encore vide (première mise en service des agrégats).
+ */
+@Slf4j
+@Component
+public class PayrollPeriodSummaryInitialisation implements CommandLineRunner {
+
+    private final PayrollPeriodSummaryRepository summaryRepository;
+    private final FichePaieRepository fichePaieRepository;
+    private final PayrollPeriodSummaryService summaryService;
+
+    public PayrollPeriodSummaryInitialisation(PayrollPeriodSummaryRepository summaryRepository,
+                                              FichePaieRepository fichePaieRepository,
+                                              PayrollPeriodSummaryService summaryService) {
+        this.summaryRepository = summaryRepository;
+        this.fichePaieRepository = fichePaieRepository;
+        this.summaryService = summaryService;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (summaryRepository.count() == 0 && fichePaieRepository.count() > 0) {
+            log.info("Initialisation des agrégats de paie par période à partir des fiches existantes");
+            summaryService.reconstruire();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ma.digitalia.generationfichepaie.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class PayrollRunConfig {
+
+    /**
+     * Pool borné utilisé pour traiter les partitions d'un lancement de paie.
+     * Par défaut un thread par coeur ; quand la file est pleine, le thread appelant traite lui-même la partition.
+     */
+    @Bean(name = "payrollRunExecutor")
+    public ThreadPoolTaskExecutor payrollRunExecutor(@Value("${paie.run.threads:0}") int threads,
+                                                     @Value("${paie.run.queue-capacity:100}") int queueCapacity) {
+        int taille = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(taille);
+        executor.setMaxPoolSize(taille);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("paie-run-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Pool qui pilote les lancements de paie démarrés par l'API, hors du thread HTTP.
+     * Chaque lancement répartit ensuite ses partitions sur {@code payrollRunExecutor}.
+     */
+    @Bean(name = "payrollRunLauncher")
+    public ThreadPoolTaskExecutor payrollRunLauncher(@Value("${paie.run.lancements-simultanes:2}") int lancements,
+                                                     @Value("${paie.run.lancements-en-attente:10}") int enAttente) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, lancements));
+        executor.setMaxPoolSize(Math.max(1, lancements));
+        executor.setQueueCapacity(enAttente);
+        executor.setThreadNamePrefix("paie-lancement-");
+        return executor;
+    }
+
+    /**
+     * Pool borné qui applique les règles de validation aux lots de fiches d'une période.
+     * Les règles ne font que du calcul en mémoire : un thread par coeur par défaut.
+     */
+    @Bean(name = "payrollValidationExecutor")
+    public ThreadPoolTaskExecutor payrollValidationExecutor(@Value("${paie.validation.threads:0}") int threads) {
+        int taille = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(taille);
+        executor.setMaxPoolSize(taille);
+        // les lots en cours sont déjà bornés par le service de validation
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("paie-validation-");
+        return executor;
+    }
+
+    /**
+     * Pool borné qui calcule les lots d'une simulation de paie, en mémoire et sans écriture.
+     */
+    @Bean(name = "payrollSimulationExecutor")
+    public ThreadPoolTaskExecutor payrollSimulationExecutor(@Value("${paie.simulation.threads:0}") int threads) {
+        int taille = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(taille);
+        executor.setMaxPoolSize(taille);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("paie-simulation-");
+        return executor;
+    }
+
+    /**
+     * Pool borné qui génère les fiches demandées une à une par l'API (calcul et rendu du PDF).
+     * Quand la file est pleine la demande est refusée : le thread HTTP ne la traite jamais lui-même.
+     */
+    @Bean(name = "payrollGenerationExecutor")
+    public ThreadPoolTaskExecutor payrollGenerationExecutor(@Value("${paie.generation.threads:2}") int threads,
+                                                            @Value("${paie.generation.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("paie-generation-");
+        return executor;
+    }
+
+    /**
+     * Pool borné qui calcule en parallèle les sections du tableau de bord.
+     * Quand la file est pleine, les sections refusées prennent leurs données par défaut.
+     */
+    @Bean(name = "dashboardExecutor")
+    public ThreadPoolTaskExecutor dashboardExecutor(@Value("${paie.dashboard.threads:7}") int threads,
+                                                    @Value("${paie.dashboard.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("paie-dashboard-");
+        return executor;
+    }
+}
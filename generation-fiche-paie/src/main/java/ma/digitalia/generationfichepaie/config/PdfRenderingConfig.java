@@ -0,0 +1,32 @@
+package ma.digitalia.generationfichepaie.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class PdfRenderingConfig {
+
+    /**
+     * Pool borné dédié au rendu des PDF des fiches de paie, dimensionné indépendamment du calcul.
+     * Quand la file est pleine la demande est refusée : la fiche reste EN_ATTENTE et sera reprise par le balayage.
+     */
+    @Bean(name = "pdfRenderExecutor")
+    public ThreadPoolTaskExecutor pdfRenderExecutor(@Value("${paie.pdf.threads:0}") int threads,
+                                                    @Value("${paie.pdf.queue-capacity:500}") int queueCapacity) {
+        int taille = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(taille);
+        executor.setMaxPoolSize(taille);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("paie-pdf-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
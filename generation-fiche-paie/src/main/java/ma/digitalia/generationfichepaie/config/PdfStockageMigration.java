@@ -0,0 +1,130 @@
+package ma.digitalia.generationfichepaie.config;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.services.PdfStorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Blob;
+import java.util.List;
+
+/**
+ * Migration ponctuelle, activée par {@code paie.pdf.migration-colonne.active=true} : copie vers le stockage
+ * sur disque, par lots, les PDF encore stockés dans l'ancienne colonne {@code fiche_paie.pdf_file}.
+ * La colonne est conservée. Elle n'est supprimée, avec ses grands objets, que si
+ * {@code paie.pdf.migration-colonne.supprimer-colonne=true} et que chaque PDF qu'elle contient est présent
+ * dans le stockage.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "paie.pdf.migration-colonne.active", havingValue = "true")
+public class PdfStockageMigration implements CommandLineRunner {
+
+    private static final int TAILLE_LOT = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PdfStorageService pdfStorageService;
+    private final boolean supprimerColonne;
+
+    public PdfStockageMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                PdfStorageService pdfStorageService,
+                                @Value("${paie.pdf.migration-colonne.supprimer-colonne:false}") boolean supprimerColonne) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pdfStorageService = pdfStorageService;
+        this.supprimerColonne = supprimerColonne;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!colonneExiste()) {
+            log.info("Colonne fiche_paie.pdf_file absente : aucun PDF à migrer");
+            return;
+        }
+        int total = 0;
+        try {
+            long dernierId = 0;
+            List<Long> lot;
+            do {
+                // la lecture des LOB doit se faire dans une transaction (PostgreSQL)
+                long apresId = dernierId;
+                lot = transactionTemplate.execute(status -> migrerLot(apresId));
+                if (lot == null || lot.isEmpty()) {
+                    break;
+                }
+                dernierId = lot.get(lot.size() - 1);
+                total += lot.size();
+            } while (lot.size() == TAILLE_LOT);
+        } catch (DataAccessException e) {
+            log.error("Échec de la migration des PDF depuis fiche_paie.pdf_file après {} fiches", total, e);
+            return;
+        }
+        log.info("{} PDF de fiches de paie copiés vers le stockage sur disque, colonne fiche_paie.pdf_file conservée", total);
+
+        if (supprimerColonne) {
+            supprimerColonne();
+        }
+    }
+
+    private boolean colonneExiste() {
+        Integer colonnes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = 'fiche_paie' AND column_name = 'pdf_file'",
+                Integer.class);
+        return colonnes != null && colonnes > 0;
+    }
+
+    /**
+     * Copie les PDF d'un lot de fiches qui n'ont pas encore de référence dans le stockage.
+     * @return les identifiants des fiches copiées, dans l'ordre
+     */
+    private List<Long> migrerLot(long apresId) {
+        List<Object[]> lignes = jdbcTemplate.query(
+                "SELECT id, pdf_file FROM fiche_paie WHERE pdf_file IS NOT NULL AND pdf_ref IS NULL AND id > ? ORDER BY id LIMIT " + TAILLE_LOT,
+                (rs, i) -> {
+                    Blob blob = rs.getBlob(2);
+                    return new Object[]{rs.getLong(1), blob.getBytes(1, (int) blob.length())};
+                }, apresId);
+        for (Object[] ligne : lignes) {
+            byte[] pdf = (byte[]) ligne[1];
+            String reference = pdfStorageService.enregistrer(pdf);
+            jdbcTemplate.update("UPDATE fiche_paie SET pdf_ref = ?, pdf_taille = ?, pdf_status = 'GENERE' WHERE id = ?",
+                    reference, (long) pdf.length, ligne[0]);
+        }
+        return lignes.stream().map(ligne -> (Long) ligne[0]).toList();
+    }
+
+    /**
+     * Supprime les grands objets et la colonne, si chaque fiche qui a un PDF en base a aussi son fichier
+     * dans le stockage. Sinon la colonne est conservée pour une prochaine exécution.
+     */
+    private void supprimerColonne() {
+        List<Object[]> references = jdbcTemplate.query("SELECT id, pdf_ref FROM fiche_paie WHERE pdf_file IS NOT NULL",
+                (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2)});
+        List<Long> manquants = references.stream()
+                .filter(ligne -> ligne[1] == null || !pdfStorageService.existe((String) ligne[1]))
+                .map(ligne -> (Long) ligne[0])
+                .toList();
+        if (!manquants.isEmpty()) {
+            log.error("{} PDF de fiche_paie.pdf_file absents du stockage (fiches {}...) : colonne conservée",
+                    manquants.size(), manquants.stream().limit(10).toList());
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // la colonne ne porte que l'OID : les grands objets doivent être supprimés explicitement
+                jdbcTemplate.queryForList("SELECT lo_unlink(pdf_file) FROM fiche_paie WHERE pdf_file IS NOT NULL", Integer.class);
+                jdbcTemplate.execute("ALTER TABLE fiche_paie DROP COLUMN pdf_file");
+            });
+            log.info("Colonne fiche_paie.pdf_file et ses {} grands objets supprimés", references.size());
+        } catch (DataAccessException e) {
+            log.error("Impossible de supprimer la colonne fiche_paie.pdf_file", e);
+        }
+    }
+}
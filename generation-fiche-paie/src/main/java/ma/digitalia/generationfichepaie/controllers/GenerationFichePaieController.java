@@ -2,25 +2,51 @@ package ma.digitalia.generationfichepaie.controllers;
 
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.StrategiePartition;
 import ma.digitalia.generationfichepaie.dto.AjoutElementPaieDTO;
 import ma.digitalia.generationfichepaie.dto.dashboard.DashboardResponseDto;
+import ma.digitalia.generationfichepaie.dto.generation.GenerationFicheJobDto;
+import ma.digitalia.generationfichepaie.dto.run.PayrollRunSummaryDto;
+import ma.digitalia.generationfichepaie.dto.run.RecalculPaieDto;
+import ma.digitalia.generationfichepaie.dto.simulation.SimulationResultDto;
+import ma.digitalia.generationfichepaie.dto.simulation.SimulationScenarioDto;
+import ma.digitalia.generationfichepaie.dto.validation.ValidationResult;
 import ma.digitalia.generationfichepaie.entities.ElementPaie;
 import ma.digitalia.generationfichepaie.entities.FichePaie;
-import ma.digitalia.generationfichepaie.services.DashboardService;
+import ma.digitalia.generationfichepaie.entities.PayrollRun;
+import ma.digitalia.generationfichepaie.entities.PeriodePaieCloturee;
+import ma.digitalia.generationfichepaie.helpers.TelechargementFichier;
+import ma.digitalia.generationfichepaie.services.CloturePaieService;
+import ma.digitalia.generationfichepaie.services.DashboardSnapshotService;
+import ma.digitalia.generationfichepaie.services.ExportFichePaieService;
+import ma.digitalia.generationfichepaie.services.GenerationFicheJobService;
 import ma.digitalia.generationfichepaie.services.GenerationFichePaieService;
 import ma.digitalia.generationfichepaie.services.GenerationFichePaieServiceImpl;
+import ma.digitalia.generationfichepaie.services.PayrollRunService;
+import ma.digitalia.generationfichepaie.services.PayrollValidationService;
+import ma.digitalia.generationfichepaie.services.PdfRenderingService;
+import ma.digitalia.generationfichepaie.services.PdfStorageService;
+import ma.digitalia.generationfichepaie.services.SimulationPaieService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @RestController
@@ -28,12 +54,39 @@ import java.util.Map;
 public class GenerationFichePaieController {
 
     private final GenerationFichePaieService generationFichePaieService;
-    private final DashboardService dashboardService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final PayrollRunService payrollRunService;
+    private final PdfRenderingService pdfRenderingService;
+    private final PdfStorageService pdfStorageService;
+    private final ExportFichePaieService exportFichePaieService;
+    private final CloturePaieService cloturePaieService;
+    private final PayrollValidationService payrollValidationService;
+    private final SimulationPaieService simulationPaieService;
+    private final GenerationFicheJobService generationFicheJobService;
+    private final long timeoutArchiveMs;
 
     public GenerationFichePaieController(GenerationFichePaieService generationFichePaieService,
-                                        DashboardService dashboardService) {
+                                        DashboardSnapshotService dashboardSnapshotService,
+                                        PayrollRunService payrollRunService,
+                                        PdfRenderingService pdfRenderingService,
+                                        PdfStorageService pdfStorageService,
+                                        ExportFichePaieService exportFichePaieService,
+                                        CloturePaieService cloturePaieService,
+                                        PayrollValidationService payrollValidationService,
+                                        SimulationPaieService simulationPaieService,
+                                        GenerationFicheJobService generationFicheJobService,
+                                        @Value("${paie.archive.timeout-ms:600000}") long timeoutArchiveMs) {
         this.generationFichePaieService = generationFichePaieService;
-        this.dashboardService = dashboardService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.payrollRunService = payrollRunService;
+        this.pdfRenderingService = pdfRenderingService;
+        this.pdfStorageService = pdfStorageService;
+        this.exportFichePaieService = exportFichePaieService;
+        this.cloturePaieService = cloturePaieService;
+        this.payrollValidationService = payrollValidationService;
+        this.simulationPaieService = simulationPaieService;
+        this.generationFicheJobService = generationFicheJobService;
+        this.timeoutArchiveMs = timeoutArchiveMs;
     }
 
     @PostMapping("/ajouter-element-paie")
@@ -136,16 +189,102 @@ public class GenerationFichePaieController {
         }
     }
 
+    /**
+     * Endpoint pour télécharger le PDF de la fiche de paie du mois en cours d'un employé.
+     * Si la fiche ou son PDF n'existe pas encore, sa génération est demandée en arrière-plan
+     * @param id l'identifiant de l'employé
+     * @return le PDF, ou 202 avec en-tête Location vers le suivi de la demande de génération
+     */
     @GetMapping("/{id}/pdf")
-    @Transactional
-    public ResponseEntity<byte[]> getPdf(@PathVariable Long id) {
+    public ResponseEntity<StreamingResponseBody> getPdf(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range
+    ) {
         log.info("Récupération du PDF de la fiche de paie pour l'employé ID: {}", id);
-        byte[] pdf = generationFichePaieService.recupererFichePaiePdf(id, YearMonth.now());
+        Optional<FichePaie> fichePaie = generationFichePaieService.trouverFichePaieAvecPdf(id, YearMonth.now());
+        if (fichePaie.isEmpty()) {
+            ResponseEntity<?> demande = demanderGeneration(id, YearMonth.now());
+            return ResponseEntity.status(demande.getStatusCode()).headers(demande.getHeaders()).build();
+        }
         log.info("PDF récupéré avec succès pour l'employé ID: {}", id);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=fiche_paie_" + id + ".pdf")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+        String pdfRef = fichePaie.get().getPdfRef();
+        return TelechargementFichier.reponse(pdfStorageService.chemin(pdfRef), pdfRef,
+                MediaType.APPLICATION_PDF, "fiche_paie_" + id + ".pdf", ifNoneMatch, range);
+    }
+
+    /**
+     * Endpoint pour demander la génération de la fiche de paie d'un employé et le rendu de son PDF.
+     * Une demande déjà en cours pour le même employé et la même période est renvoyée
+     * @param employeId l'identifiant de l'employé
+     * @param periode la période au format yyyy-MM
+     * @return 202 avec la demande (en-tête Location vers son suivi), ou 503 si la file de génération est pleine
+     */
+    @PostMapping("/employes/{employeId}/periodes/{periode}/generation")
+    public ResponseEntity<?> genererFichePaie(@PathVariable Long employeId, @PathVariable YearMonth periode) {
+        return demanderGeneration(employeId, periode);
+    }
+
+    /**
+     * Endpoint pour suivre une demande de génération de fiche de paie
+     * @param jobId l'identifiant de la demande
+     * @return l'état et la progression de la demande, l'identifiant de la fiche une fois terminée, ou 404
+     */
+    @GetMapping("/generations/{jobId}")
+    public ResponseEntity<?> getGeneration(@PathVariable String jobId) {
+        return generationFicheJobService.getJob(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Demande de génération inconnue ou expirée : " + jobId));
+    }
+
+    private ResponseEntity<?> demanderGeneration(Long employeId, YearMonth periode) {
+        try {
+            GenerationFicheJobDto job = generationFicheJobService.soumettre(employeId, periode);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/fiche-paie/generations/" + job.getJobId()))
+                    .body(job);
+        } catch (IllegalStateException e) {
+            log.warn("Génération de la fiche de paie de l'employé {} pour {} refusée : {}", employeId, periode, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint pour télécharger en une archive ZIP les PDF de toutes les fiches de paie d'une période
+     * @param periode la période au format yyyy-MM
+     * @return l'archive, transmise au fil de sa construction (délai propre à cet export,
+     * {@code paie.archive.timeout-ms}), ou 404 si la période n'a aucune fiche
+     */
+    @GetMapping("/periode/{periode}/archive")
+    public WebAsyncTask<Void> getArchivePeriode(@PathVariable YearMonth periode, HttpServletResponse response) {
+        log.info("Export de l'archive des fiches de paie de la période {}", periode);
+        if (exportFichePaieService.compterFiches(periode) == 0) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return null;
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=fiches_paie_" + periode + ".zip");
+        response.setContentType("application/zip");
+        return new WebAsyncTask<>(timeoutArchiveMs, () -> {
+            exportFichePaieService.ecrireArchive(periode, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    /**
+     * Endpoint pour relancer le rendu du PDF d'une fiche de paie (après un échec par exemple)
+     * @param ficheId l'identifiant de la fiche de paie
+     * @return 202 si le rendu est remis en file
+     */
+    @PostMapping("/fiches/{ficheId}/pdf/relancer")
+    public ResponseEntity<?> relancerRenduPdf(@PathVariable Long ficheId) {
+        try {
+            pdfRenderingService.relancer(ficheId);
+            return ResponseEntity.accepted().build();
+        } catch (EntityNotFoundException e) {
+            log.error("Fiche de paie non trouvée ID: {} - {}", ficheId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
     }
 
     @DeleteMapping("/supprimer-element-paie/{elementPaieId}")
@@ -173,21 +312,169 @@ public class GenerationFichePaieController {
 
     /**
      * Endpoint pour récupérer les données du tableau de bord des fiches de paie
-     * @return les données du tableau de bord
+     * @param ifNoneMatch l'ETag du tableau de bord déjà détenu par le client
+     * @return les données du tableau de bord, ou 304 sans corps si elles n'ont pas changé depuis cet ETag
      */
     @GetMapping("/dashboard")
-    public ResponseEntity<DashboardResponseDto> getDashboard() {
-        log.info("Récupération des données du tableau de bord des fiches de paie");
+    public ResponseEntity<DashboardResponseDto> getDashboard(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        log.debug("Récupération des données du tableau de bord des fiches de paie");
         try {
-            DashboardResponseDto dashboardData = dashboardService.getDashboardData();
-            log.info("Données du tableau de bord récupérées avec succès");
-            return ResponseEntity.ok(dashboardData);
+            DashboardSnapshotService.Snapshot snapshot = dashboardSnapshotService.getSnapshot();
+            if (snapshot.etag() == null) {
+                return ResponseEntity.ok(snapshot.donnees());
+            }
+            if (snapshot.correspond(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(snapshot.etag())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(snapshot.donnees());
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des données du tableau de bord: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
+    /**
+     * Endpoint pour lancer la paie de tous les employés actifs sur une période
+     * @param periode la période au format yyyy-MM
+     * @param strategie le découpage des employés en partitions
+     * @return 202 avec le registre du lancement (en-tête Location vers son suivi), ou 409 si un lancement
+     * est déjà en cours pour cette période, si elle est clôturée ou si trop de lancements sont en attente
+     */
+    @PostMapping("/runs")
+    public ResponseEntity<?> lancerPaie(
+            @RequestParam YearMonth periode,
+            @RequestParam(defaultValue = "PAR_DEPARTEMENT") StrategiePartition strategie
+    ) {
+        log.info("Lancement de la paie pour la période {} ({})", periode, strategie);
+        try {
+            PayrollRun run = payrollRunService.demarrerPaie(periode, strategie);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/fiche-paie/runs/" + periode))
+                    .body(run);
+        } catch (IllegalStateException e) {
+            log.warn("Lancement de la paie refusé pour la période {} : {}", periode, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint pour recalculer les fiches d'une période dont les données ont changé depuis leur génération
+     * @param periode la période au format yyyy-MM
+     * @return 202 avec le recalcul (en-tête Location vers son suivi), ou 409 si un lancement est en cours,
+     * si la période est clôturée ou si trop de lancements sont en attente
+     */
+    @PostMapping("/runs/{periode}/recalcul")
+    public ResponseEntity<?> recalculerModifiees(@PathVariable YearMonth periode) {
+        log.info("Recalcul des fiches de paie modifiées pour la période {}", periode);
+        try {
+            RecalculPaieDto recalcul = payrollRunService.demarrerRecalcul(periode);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/fiche-paie/runs/" + periode + "/recalcul"))
+                    .body(recalcul);
+        } catch (IllegalStateException e) {
+            log.warn("Recalcul de la paie refusé pour la période {} : {}", periode, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint pour suivre le dernier recalcul des fiches modifiées d'une période
+     * @param periode la période au format yyyy-MM
+     * @return le recalcul (statut, puis bilan une fois terminé), ou 404 si aucun recalcul n'a été demandé
+     */
+    @GetMapping("/runs/{periode}/recalcul")
+    public ResponseEntity<?> getRecalcul(@PathVariable YearMonth periode) {
+        return payrollRunService.getRecalcul(periode)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("Aucun recalcul demandé pour la période : " + periode));
+    }
+
+    /**
+     * Endpoint pour consulter le registre de lancement d'une période
+     * @param periode la période au format yyyy-MM
+     * @return le registre du lancement
+     */
+    @GetMapping("/runs/{periode}")
+    public ResponseEntity<?> getRun(@PathVariable YearMonth periode) {
+        try {
+            PayrollRun run = payrollRunService.getRun(periode);
+            return ResponseEntity.ok(run);
+        } catch (EntityNotFoundException e) {
+            log.error("Registre de paie non trouvé pour la période {} - {}", periode, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint pour clôturer une période de paie : ses fiches sont figées et ses agrégats conservés définitivement
+     * @param periode la période au format yyyy-MM
+     * @return les agrégats figés, 404 si la période n'a aucune fiche, 409 si elle est déjà clôturée ou en cours de lancement
+     */
+    @PostMapping("/periodes/{periode}/cloture")
+    public ResponseEntity<?> cloturerPeriode(@PathVariable YearMonth periode) {
+        log.info("Clôture de la période de paie {}", periode);
+        try {
+            PeriodePaieCloturee cloture = cloturePaieService.cloturer(periode);
+            return ResponseEntity.ok(cloture);
+        } catch (EntityNotFoundException e) {
+            log.warn("Clôture impossible pour la période {} : {}", periode, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            log.warn("Clôture refusée pour la période {} : {}", periode, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint pour consulter les agrégats figés d'une période clôturée
+     * @param periode la période au format yyyy-MM
+     * @return les agrégats figés, ou 404 si la période n'est pas clôturée
+     */
+    @GetMapping("/periodes/{periode}/cloture")
+    public ResponseEntity<?> getCloturePeriode(@PathVariable YearMonth periode) {
+        return cloturePaieService.getCloture(periode)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("La période " + periode + " n'est pas clôturée"));
+    }
+
+    /**
+     * Endpoint pour valider les fiches de paie d'une période
+     * @param periode la période au format yyyy-MM
+     * @return erreurs, avertissements, métriques et rapport (durée, violations) de chaque règle
+     */
+    @GetMapping("/periodes/{periode}/validation")
+    public ResponseEntity<ValidationResult> validerPeriode(@PathVariable YearMonth periode) {
+        log.info("Validation des fiches de paie de la période {}", periode);
+        return ResponseEntity.ok(payrollValidationService.validatePayrollData(periode));
+    }
+
+    /**
+     * Endpoint pour simuler l'effet d'un scénario (augmentation, nouvelle prime, taux) sur la paie de tous les employés actifs.
+     * Rien n'est enregistré.
+     * @param periode la période au format yyyy-MM
+     * @param scenario les modifications à simuler
+     * @return totaux actuels et simulés et écarts par employé
+     */
+    @PostMapping("/periodes/{periode}/simulation")
+    public ResponseEntity<SimulationResultDto> simulerPaie(@PathVariable YearMonth periode,
+                                                           @Valid @RequestBody SimulationScenarioDto scenario) {
+        log.info("Simulation de la paie de la période {}", periode);
+        return ResponseEntity.ok(simulationPaieService.simuler(periode, scenario));
+    }
+
+    /**
+     * Endpoint historique renvoyant les fiches complètes (éléments de paie compris) ;
+     * les listes doivent utiliser {@code /employe/{empId}/fiches}
+     */
     @GetMapping("/employe/{empId}")
     public ResponseEntity<?> getFichePaieByEmployeId(@PathVariable Long empId) {
         try {
@@ -215,4 +502,43 @@ public class GenerationFichePaieController {
                     .body("Une erreur s'est produite lors de la récupération des fiches de paie");
         }
     }
+
+    /**
+     * Endpoint pour parcourir l'historique des fiches de paie d'un employé (ou de l'équipe d'un manager),
+     * des périodes les plus récentes aux plus anciennes, sans éléments de paie ni PDF
+     * @param empId l'identifiant de l'utilisateur
+     * @param curseur le curseur renvoyé par la page précédente, absent pour la première page
+     * @param taille le nombre maximal de fiches de la page
+     * @return la page de fiches et le curseur de la page suivante
+     */
+    @GetMapping("/employe/{empId}/fiches")
+    public ResponseEntity<?> listerFichesPaie(@PathVariable Long empId,
+                                              @RequestParam(required = false) String curseur,
+                                              @RequestParam(defaultValue = "20") int taille) {
+        try {
+            return ResponseEntity.ok(generationFichePaieService.listerFichesPaie(empId, curseur, taille));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint pour parcourir les fiches de paie d'une période, sans éléments de paie ni PDF
+     * @param periode la période au format yyyy-MM
+     * @param curseur le curseur renvoyé par la page précédente, absent pour la première page
+     * @param taille le nombre maximal de fiches de la page
+     * @return la page de fiches et le curseur de la page suivante
+     */
+    @GetMapping("/periodes/{periode}/fiches")
+    public ResponseEntity<?> listerFichesPaieParPeriode(@PathVariable YearMonth periode,
+                                                        @RequestParam(required = false) String curseur,
+                                                        @RequestParam(defaultValue = "50") int taille) {
+        try {
+            return ResponseEntity.ok(generationFichePaieService.listerFichesPaieParPeriode(periode, curseur, taille));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
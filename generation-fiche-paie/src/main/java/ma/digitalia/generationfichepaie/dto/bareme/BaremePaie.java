@@ -0,0 +1,81 @@
+package ma.digitalia.generationfichepaie.dto.bareme;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Taux, plafonds et barème IR en vigueur à partir de {@code dateEffet}. Immuable, chargé une fois au démarrage.
+ */
+public record BaremePaie(
+        LocalDate dateEffet,
+        BigDecimal plafondCNSS,
+        BigDecimal tauxCNSSSalarial,
+        BigDecimal tauxAMOSalarial,
+        BigDecimal tauxCNSSPatronal,
+        BigDecimal tauxAMOPatronal,
+        BigDecimal tauxFormationPro,
+        BigDecimal tauxAllocationsFamiliales,
+        BigDecimal tauxFraisProfessionnels,
+        BigDecimal plafondFraisProfessionnels,
+        BigDecimal deductionParPersonneACharge,
+        int maxPersonnesACharge,
+        List<TrancheIR> tranchesIR
+) {
+    public BaremePaie {
+        if (dateEffet == null || tranchesIR == null || tranchesIR.isEmpty()) {
+            throw new IllegalArgumentException("Un barème doit avoir une date d'effet et au moins une tranche IR");
+        }
+        for (int i = 1; i < tranchesIR.size(); i++) {
+            if (tranchesIR.get(i).borneInferieure().compareTo(tranchesIR.get(i - 1).borneInferieure()) <= 0) {
+                throw new IllegalArgumentException("Les tranches IR du barème " + dateEffet + " doivent être triées par borne croissante");
+            }
+        }
+        tranchesIR = cumulerImpots(dateEffet, tranchesIR);
+    }
+
+    /**
+     * Calcule l'impôt cumulé de chaque tranche à partir des bornes et des taux des tranches précédentes.
+     * Une valeur saisie dans le fichier n'est acceptée que si elle est égale à la valeur calculée.
+     */
+    private static List<TrancheIR> cumulerImpots(LocalDate dateEffet, List<TrancheIR> tranches) {
+        List<TrancheIR> resultat = new ArrayList<>(tranches.size());
+        BigDecimal cumul = BigDecimal.ZERO;
+        for (int i = 0; i < tranches.size(); i++) {
+            TrancheIR tranche = tranches.get(i);
+            if (i > 0) {
+                TrancheIR precedente = tranches.get(i - 1);
+                cumul = cumul.add(tranche.borneInferieure().subtract(precedente.borneInferieure()).multiply(precedente.taux()));
+            }
+            if (tranche.impotCumule() != null && tranche.impotCumule().compareTo(cumul) != 0) {
+                throw new IllegalArgumentException("Impôt cumulé incohérent pour la tranche " + tranche.borneInferieure()
+                        + " du barème " + dateEffet + " : " + tranche.impotCumule() + " saisi, " + cumul + " calculé");
+            }
+            resultat.add(new TrancheIR(tranche.borneInferieure(), tranche.taux(), cumul));
+        }
+        return List.copyOf(resultat);
+    }
+
+    /**
+     * Recherche dichotomique de la dernière tranche dont la borne inférieure est strictement dépassée
+     * (la première tranche pour une base nulle ou négative).
+     */
+    public TrancheIR trancheIR(BigDecimal baseAnnuelle) {
+        int bas = 0;
+        int haut = tranchesIR.size() - 1;
+        while (bas < haut) {
+            int milieu = (bas + haut + 1) >>> 1;
+            if (baseAnnuelle.compareTo(tranchesIR.get(milieu).borneInferieure()) > 0) {
+                bas = milieu;
+            } else {
+                haut = milieu - 1;
+            }
+        }
+        return tranchesIR.get(bas);
+    }
+
+    public BigDecimal impotAnnuelBrut(BigDecimal baseAnnuelle) {
+        return trancheIR(baseAnnuelle).impot(baseAnnuelle).max(BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,17 @@
+package ma.digitalia.generationfichepaie.dto.bareme;
+
+import java.math.BigDecimal;
+
+/**
+ * Tranche du barème IR annuel : s'applique au-delà de {@code borneInferieure},
+ * {@code impotCumule} étant l'impôt dû sur les tranches précédentes (calculé par {@link BaremePaie}).
+ */
+public record TrancheIR(
+        BigDecimal borneInferieure,
+        BigDecimal taux,
+        BigDecimal impotCumule
+) {
+    public BigDecimal impot(BigDecimal baseAnnuelle) {
+        return impotCumule.add(baseAnnuelle.subtract(borneInferieure).multiply(taux));
+    }
+}
@@ -22,4 +22,7 @@ public class DashboardResponseDto {
     private List<ComplianceActionDto> complianceActions;
     private LocalDateTime lastUpdate;
     private String status;
+    // sections remplacées par leurs données par défaut (délai dépassé, erreur ou pool saturé)
+    @Builder.Default
+    private List<String> sectionsDegradees = List.of();
 }
\ No newline at end of file
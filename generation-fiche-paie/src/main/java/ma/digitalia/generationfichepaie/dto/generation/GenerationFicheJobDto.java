@@ -0,0 +1,27 @@
+package ma.digitalia.generationfichepaie.dto.generation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.Enum.StatutGenerationFiche;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationFicheJobDto {
+    private String jobId;
+    private Long employeId;
+    private YearMonth periode;
+    private StatutGenerationFiche statut;
+    private int progression;
+    private Long fichePaieId;
+    private String erreur;
+    private LocalDateTime dateCreation;
+    private LocalDateTime dateDebut;
+    private LocalDateTime dateFin;
+}
@@ -0,0 +1,24 @@
+package ma.digitalia.generationfichepaie.dto.historique;
+
+import ma.digitalia.generationfichepaie.Enum.StatutPaie;
+import ma.digitalia.generationfichepaie.Enum.StatutPdf;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Ligne d'une liste de fiches de paie, lue sans charger l'entité : ni les éléments de paie ni le PDF.
+ * Le PDF se télécharge à part, par {@code GET /api/fiche-paie/{id}/pdf}.
+ */
+public record FichePaieResumeDto(Long id,
+                                 Long employeId,
+                                 YearMonth periode,
+                                 BigDecimal salaireBrut,
+                                 BigDecimal salaireNet,
+                                 BigDecimal cotisationsSalariales,
+                                 BigDecimal impotSurLeRevenu,
+                                 StatutPaie statut,
+                                 StatutPdf pdfStatus,
+                                 LocalDateTime dateGeneration) {
+}
@@ -0,0 +1,10 @@
+package ma.digitalia.generationfichepaie.dto.historique;
+
+import java.util.List;
+
+/**
+ * Page d'une liste de fiches de paie parcourue par curseur.
+ * @param curseurSuivant le curseur à passer pour obtenir la page suivante, null sur la dernière page
+ */
+public record PageFichesPaieDto(List<FichePaieResumeDto> fiches, String curseurSuivant) {
+}
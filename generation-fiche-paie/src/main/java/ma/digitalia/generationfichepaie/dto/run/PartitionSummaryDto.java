@@ -0,0 +1,22 @@
+package ma.digitalia.generationfichepaie.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionSummaryDto {
+    private String cle;
+    private int nombreEmployes;
+    private int succes;
+    private int echecs;
+    private boolean rejouee;
+    private long dureeMs;
+    private Map<Long, String> erreurs;
+}
@@ -0,0 +1,32 @@
+package ma.digitalia.generationfichepaie.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.Enum.StrategiePartition;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollRunSummaryDto {
+    private Long runId;
+    private YearMonth periode;
+    private StrategiePartition strategie;
+    private boolean reprise;
+    private int totalEmployes;
+    private int dejaTraites;
+    private int fichesGenerees;
+    private int echecs;
+    private Map<Long, String> erreurs;
+    private List<PartitionSummaryDto> partitions;
+    private LocalDateTime dateDebut;
+    private LocalDateTime dateFin;
+    private long dureeMs;
+}
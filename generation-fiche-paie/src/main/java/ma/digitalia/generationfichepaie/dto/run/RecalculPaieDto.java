@@ -0,0 +1,26 @@
+package ma.digitalia.generationfichepaie.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.Enum.StatutRun;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Dernier recalcul des fiches modifiées d'une période : son statut, puis son bilan une fois terminé.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecalculPaieDto {
+    private YearMonth periode;
+    private StatutRun statut;
+    private PayrollRunSummaryDto bilan;
+    private String erreur;
+    private LocalDateTime dateDebut;
+    private LocalDateTime dateFin;
+}
@@ -0,0 +1,23 @@
+package ma.digitalia.generationfichepaie.dto.simulation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationEcartEmployeDto {
+    private Long employeId;
+    private String nomComplet;
+    private BigDecimal salaireBrutActuel;
+    private BigDecimal salaireBrutSimule;
+    private BigDecimal salaireNetActuel;
+    private BigDecimal salaireNetSimule;
+    private BigDecimal ecartSalaireNet;
+    private BigDecimal ecartCoutEmployeur;
+}
@@ -0,0 +1,29 @@
+package ma.digitalia.generationfichepaie.dto.simulation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résultat d'une simulation : totaux actuels et simulés, calculés tous deux en mémoire avec le même moteur,
+ * et écarts par employé (triés par écart de coût employeur décroissant en valeur absolue).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationResultDto {
+    private YearMonth periode;
+    private int nombreEmployes;
+    private SimulationTotauxDto totauxActuels;
+    private SimulationTotauxDto totauxSimules;
+    private SimulationTotauxDto ecarts;
+    private List<SimulationEcartEmployeDto> employes;
+    private Map<Long, String> erreurs;
+    private long dureeMs;
+}
@@ -0,0 +1,48 @@
+package ma.digitalia.generationfichepaie.dto.simulation;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.dto.AjoutElementPaieDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modifications simulées sur toute la population active. Les champs null ne changent rien.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationScenarioDto {
+
+    // Augmentation en pourcentage des éléments SALAIRE_BASE (3.5 pour +3,5 %)
+    @DecimalMin(value = "-100.0")
+    private BigDecimal augmentationSalaireBase;
+
+    // Éléments ajoutés à chaque employé (prime, indemnité...) : montant fixe ou taux appliqué à la base
+    @Valid
+    @Builder.Default
+    private List<AjoutElementPaieDTO> nouveauxElements = new ArrayList<>();
+
+    // Remplacent ceux du barème en vigueur (taux en fraction, 0.0448 pour 4,48 %)
+    @DecimalMin(value = "0.0")
+    private BigDecimal plafondCNSS;
+    @DecimalMin(value = "0.0")
+    private BigDecimal tauxCNSSSalarial;
+    @DecimalMin(value = "0.0")
+    private BigDecimal tauxAMOSalarial;
+    @DecimalMin(value = "0.0")
+    private BigDecimal tauxCNSSPatronal;
+    @DecimalMin(value = "0.0")
+    private BigDecimal tauxAMOPatronal;
+    @DecimalMin(value = "0.0")
+    private BigDecimal tauxFormationPro;
+    @DecimalMin(value = "0.0")
+    private BigDecimal tauxAllocationsFamiliales;
+}
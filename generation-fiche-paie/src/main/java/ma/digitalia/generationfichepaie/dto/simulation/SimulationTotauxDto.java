@@ -0,0 +1,64 @@
+package ma.digitalia.generationfichepaie.dto.simulation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+
+import java.math.BigDecimal;
+
+/**
+ * Totaux d'une population de fiches simulées. La masse salariale est la somme des salaires bruts,
+ * comme sur le tableau de bord ; le coût employeur y ajoute les cotisations patronales.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationTotauxDto {
+    @Builder.Default
+    private BigDecimal masseSalariale = BigDecimal.ZERO;
+    @Builder.Default
+    private BigDecimal cotisationsSalariales = BigDecimal.ZERO;
+    @Builder.Default
+    private BigDecimal cotisationsPatronales = BigDecimal.ZERO;
+    @Builder.Default
+    private BigDecimal impotSurLeRevenu = BigDecimal.ZERO;
+    @Builder.Default
+    private BigDecimal salaireNet = BigDecimal.ZERO;
+    @Builder.Default
+    private BigDecimal coutEmployeur = BigDecimal.ZERO;
+
+    public void ajouter(FichePaie fiche) {
+        masseSalariale = masseSalariale.add(fiche.getSalaireBrut());
+        cotisationsSalariales = cotisationsSalariales.add(fiche.getCotisationsSalariales());
+        cotisationsPatronales = cotisationsPatronales.add(fiche.getCotisationsPatronales());
+        impotSurLeRevenu = impotSurLeRevenu.add(fiche.getImpotSurLeRevenu());
+        salaireNet = salaireNet.add(fiche.getSalaireNet());
+        coutEmployeur = coutEmployeur.add(fiche.getSalaireBrut()).add(fiche.getCotisationsPatronales());
+    }
+
+    public void ajouter(SimulationTotauxDto autres) {
+        masseSalariale = masseSalariale.add(autres.masseSalariale);
+        cotisationsSalariales = cotisationsSalariales.add(autres.cotisationsSalariales);
+        cotisationsPatronales = cotisationsPatronales.add(autres.cotisationsPatronales);
+        impotSurLeRevenu = impotSurLeRevenu.add(autres.impotSurLeRevenu);
+        salaireNet = salaireNet.add(autres.salaireNet);
+        coutEmployeur = coutEmployeur.add(autres.coutEmployeur);
+    }
+
+    /**
+     * @return l'écart {@code this - reference}, poste par poste
+     */
+    public SimulationTotauxDto moins(SimulationTotauxDto reference) {
+        return SimulationTotauxDto.builder()
+                .masseSalariale(masseSalariale.subtract(reference.masseSalariale))
+                .cotisationsSalariales(cotisationsSalariales.subtract(reference.cotisationsSalariales))
+                .cotisationsPatronales(cotisationsPatronales.subtract(reference.cotisationsPatronales))
+                .impotSurLeRevenu(impotSurLeRevenu.subtract(reference.impotSurLeRevenu))
+                .salaireNet(salaireNet.subtract(reference.salaireNet))
+                .coutEmployeur(coutEmployeur.subtract(reference.coutEmployeur))
+                .build();
+    }
+}
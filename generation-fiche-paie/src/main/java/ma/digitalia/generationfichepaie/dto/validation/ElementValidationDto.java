@@ -0,0 +1,16 @@
+package ma.digitalia.generationfichepaie.dto.validation;
+
+import ma.digitalia.generationfichepaie.Enum.TypeElement;
+
+import java.math.BigDecimal;
+
+/**
+ * Colonnes d'une ligne figée sur une fiche ({@code fiche_paie_ligne}), nécessaires à la validation.
+ * La ligne est repérée par son rang dans la fiche.
+ */
+public record ElementValidationDto(Long ficheId,
+                                   Integer rang,
+                                   BigDecimal montant,
+                                   String libelle,
+                                   TypeElement type) {
+}
@@ -0,0 +1,17 @@
+package ma.digitalia.generationfichepaie.dto.validation;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Colonnes d'une fiche de paie nécessaires à la validation, lues sans charger l'entité.
+ */
+public record FicheValidationDto(Long id,
+                                 YearMonth periode,
+                                 BigDecimal salaireBrut,
+                                 BigDecimal salaireNet,
+                                 BigDecimal cotisationsSalariales,
+                                 BigDecimal cotisationsPatronales,
+                                 LocalDateTime dateGeneration) {
+}
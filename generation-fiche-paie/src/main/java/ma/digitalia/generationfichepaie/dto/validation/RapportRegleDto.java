@@ -0,0 +1,21 @@
+package ma.digitalia.generationfichepaie.dto.validation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RapportRegleDto {
+    private String regle;
+    private long fichesVerifiees;
+    private long erreurs;
+    private long avertissements;
+    // temps cumulé de la règle sur tous les lots (les lots s'exécutent en parallèle)
+    private long dureeMs;
+    // true si tous les messages n'ont pas été conservés
+    private boolean messagesTronques;
+}
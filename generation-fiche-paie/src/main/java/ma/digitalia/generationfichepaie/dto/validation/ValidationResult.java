@@ -0,0 +1,26 @@
+package ma.digitalia.generationfichepaie.dto.validation;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résultat de la validation des fiches de paie d'une période
+ */
+@Data
+@NoArgsConstructor
+public class ValidationResult {
+    private boolean valid;
+    private List<String> errors = new ArrayList<>();
+    private List<String> warnings = new ArrayList<>();
+    private Map<String, Object> metrics = new HashMap<>();
+    private Map<String, RapportRegleDto> regles = new LinkedHashMap<>();
+    private long dureeMs;
+    /** Validation arrêtée avant d'avoir parcouru toutes les fiches */
+    private boolean interrompue;
+}
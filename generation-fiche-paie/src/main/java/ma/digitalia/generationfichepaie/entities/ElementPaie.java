@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.Enum.CodeElement;
 import ma.digitalia.generationfichepaie.Enum.ModeCalcul;
 import ma.digitalia.generationfichepaie.Enum.TypeElement;
 import ma.digitalia.generationfichepaie.dto.AjoutElementPaieDTO;
@@ -17,7 +18,8 @@ import java.util.Objects;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "element_paie")
+@Table(name = "element_paie",
+        uniqueConstraints = @UniqueConstraint(name = "uk_element_paie_employe_code", columnNames = {"employe_id", "code"}))
 public class ElementPaie {
 
     @Id
@@ -51,6 +53,11 @@ public class ElementPaie {
     @JoinColumn(name = "fiche_paie_id")
     private FichePaie fichePaie;
 
+    // Renseigné pour les éléments calculés automatiquement ; l'index (employe_id, code) sert aux contrôles d'existence
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private CodeElement code;
+
     public ElementPaie(AjoutElementPaieDTO dto, Employe employe) {
         this.type = dto.getType();
         this.sousType = dto.getSousType();
@@ -1,11 +1,15 @@
 package ma.digitalia.generationfichepaie.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jdk.jfr.Timestamp;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import ma.digitalia.generationfichepaie.Enum.StatutPaie;
+import ma.digitalia.generationfichepaie.Enum.StatutPdf;
+import ma.digitalia.generationfichepaie.helpers.ContributionFichePaie;
 import ma.digitalia.gestionutilisateur.entities.Employe;
 
 import java.math.BigDecimal;
@@ -18,7 +22,9 @@ import java.util.List;
 @Entity
 @Data
 @NoArgsConstructor @AllArgsConstructor
-@Table(name = "fiche_paie")
+@Table(name = "fiche_paie", uniqueConstraints =
+        @UniqueConstraint(name = "uk_fiche_paie_employe_periode", columnNames = {"employe_id", "periode"}))
+@EntityListeners(FichePaieSummaryListener.class)
 public class FichePaie {
 
     @Id
@@ -49,13 +55,41 @@ public class FichePaie {
     @JoinColumn(name = "employe_id", nullable = false)
     private Employe employe;
 
-    @Lob
-    @Column(name = "pdf_file")
-    private byte[] pdfFile;
+    // PDF stocké sur disque, référencé par l'empreinte SHA-256 de son contenu
+    @Column(name = "pdf_ref", length = 64)
+    private String pdfRef;
 
-    @OneToMany(mappedBy = "fichePaie", cascade = CascadeType.ALL, orphanRemoval = true)
+    private Long pdfTaille;
+
+    // Rendu du PDF, découplé du calcul de la fiche (null pour les fiches antérieures)
+    @Enumerated(EnumType.STRING)
+    private StatutPdf pdfStatus;
+
+    private Integer pdfTentatives;
+
+    @Column(length = 1000)
+    private String pdfErreur;
+
+    // Éléments de l'employé utilisés pendant le calcul ; la fiche enregistrée en garde la copie dans lignes
+    @Transient
     private List<ElementPaie> elements;
 
+    @ElementCollection
+    @CollectionTable(name = "fiche_paie_ligne", joinColumns = @JoinColumn(name = "fiche_paie_id"))
+    @OrderColumn(name = "rang")
+    @JsonIgnore
+    private List<LigneFichePaie> lignes;
+
+    // Département de la ligne de payroll_period_summary où la fiche est comptée (null pour les fiches antérieures)
+    @JsonIgnore
+    private String departementAgrege;
+
+    // Part de la fiche dans payroll_period_summary telle qu'en base, pour ne reporter que les écarts
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private transient ContributionFichePaie contributionEnregistree;
+
     public String toString() {
         return "FichePaie{" +
                 "id=" + id +
@@ -68,6 +102,7 @@ public class FichePaie {
                 ", impotSurLeRevenu=" + impotSurLeRevenu +
                 ", dateGeneration=" + dateGeneration +
                 ", statut=" + statut +
+                ", pdfStatus=" + pdfStatus +
                 ", employe=" + employe.getId() +
                 '}';
     }
@@ -0,0 +1,71 @@
+package ma.digitalia.generationfichepaie.entities;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import ma.digitalia.generationfichepaie.helpers.ContributionFichePaie;
+import ma.digitalia.generationfichepaie.services.PayrollPeriodSummaryService;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Tient {@code payroll_period_summary} à jour à chaque écriture d'une fiche de paie :
+ * la part de la fiche lue en base est retenue au chargement, et seule la différence est reportée.
+ * Le département où la fiche est comptée est enregistré avec elle : si celui de l'employé a changé,
+ * la part précédente est retirée de l'ancien département et la nouvelle ajoutée en entier au nouveau.
+ * Instancié par Spring à travers le conteneur de beans d'Hibernate, pendant la création de l'EntityManagerFactory :
+ * le service (qui en dépend) n'est résolu qu'au premier événement.
+ */
+public class FichePaieSummaryListener {
+
+    private final ObjectProvider<PayrollPeriodSummaryService> summaryService;
+
+    public FichePaieSummaryListener(ObjectProvider<PayrollPeriodSummaryService> summaryService) {
+        this.summaryService = summaryService;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void avantEnregistrement(FichePaie fiche) {
+        fiche.setDepartementAgrege(summaryService.getObject().departement(fiche));
+    }
+
+    @PostLoad
+    public void apresChargement(FichePaie fiche) {
+        fiche.setContributionEnregistree(ContributionFichePaie.de(fiche));
+    }
+
+    @PostPersist
+    public void apresCreation(FichePaie fiche) {
+        ContributionFichePaie contribution = ContributionFichePaie.de(fiche);
+        summaryService.getObject().appliquer(fiche, contribution);
+        fiche.setContributionEnregistree(contribution);
+    }
+
+    @PostUpdate
+    public void apresModification(FichePaie fiche) {
+        ContributionFichePaie contribution = ContributionFichePaie.de(fiche);
+        ContributionFichePaie precedente = fiche.getContributionEnregistree();
+        PayrollPeriodSummaryService service = summaryService.getObject();
+        if (precedente == null) {
+            // la mise à jour d'une fiche fusionnée sans chargement préalable est traitée comme une création
+            service.appliquer(fiche, contribution);
+        } else if (precedente.departement() == null || precedente.departement().equals(contribution.departement())) {
+            service.appliquer(fiche, contribution.moins(precedente));
+        } else {
+            // l'employé a changé de département : la fiche passe d'une ligne à l'autre
+            service.appliquer(fiche, precedente.oppose());
+            service.appliquer(fiche, contribution);
+        }
+        fiche.setContributionEnregistree(contribution);
+    }
+
+    @PostRemove
+    public void apresSuppression(FichePaie fiche) {
+        ContributionFichePaie precedente = fiche.getContributionEnregistree();
+        summaryService.getObject().appliquer(fiche, (precedente != null ? precedente : ContributionFichePaie.de(fiche)).oppose());
+        fiche.setContributionEnregistree(null);
+    }
+}
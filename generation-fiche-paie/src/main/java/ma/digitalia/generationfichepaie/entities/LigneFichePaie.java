@@ -0,0 +1,66 @@
+package ma.digitalia.generationfichepaie.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.Enum.CodeElement;
+import ma.digitalia.generationfichepaie.Enum.ModeCalcul;
+import ma.digitalia.generationfichepaie.Enum.TypeElement;
+
+import java.math.BigDecimal;
+
+/**
+ * Élément de paie tel qu'il figurait sur une fiche au moment du calcul. Les éléments de paie sont
+ * rattachés à l'employé et servent d'un mois à l'autre : la fiche en garde sa propre copie.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LigneFichePaie {
+
+    @Enumerated(EnumType.STRING)
+    private TypeElement type;
+    private String sousType;
+
+    private String libelle;
+
+    @Enumerated(EnumType.STRING)
+    private ModeCalcul modeCalcul;
+
+    private BigDecimal montant;
+    private BigDecimal taux;
+    private BigDecimal base;
+
+    private boolean soumisIR;
+    private boolean soumisCNSS;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private CodeElement code;
+
+    public LigneFichePaie(ElementPaie element) {
+        this(element.getType(), element.getSousType(), element.getLibelle(), element.getModeCalcul(),
+                element.getMontant(), element.getTaux(), element.getBase(),
+                element.isSoumisIR(), element.isSoumisCNSS(), element.getCode());
+    }
+
+    /**
+     * @return un élément détaché portant les valeurs de la ligne, pour le rendu du PDF
+     */
+    public ElementPaie versElement() {
+        ElementPaie element = new ElementPaie();
+        element.setType(type);
+        element.setSousType(sousType);
+        element.setLibelle(libelle);
+        element.setModeCalcul(modeCalcul);
+        element.setMontant(montant);
+        element.setTaux(taux);
+        element.setBase(base);
+        element.setSoumisIR(soumisIR);
+        element.setSoumisCNSS(soumisCNSS);
+        element.setCode(code);
+        return element;
+    }
+}
@@ -0,0 +1,43 @@
+package ma.digitalia.generationfichepaie.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.Enum.SourceModification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dernière modification des données d'entrée de la paie d'un employé. Une fiche de paie générée
+ * avant cette date est à recalculer. Les éléments de paie et le salaire de base valent pour toutes
+ * les périodes ({@link #TOUTES_PERIODES}), un rapport de temps pour sa seule période.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "modification_paie",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"employe_id", "periode"}))
+public class ModificationPaie {
+
+    public static final String TOUTES_PERIODES = "*";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "employe_id", nullable = false)
+    private Long employeId;
+
+    // Format AAAA-MM, comme payroll_period_summary, ou TOUTES_PERIODES
+    @Column(nullable = false, length = 7)
+    private String periode;
+
+    @Column(nullable = false)
+    private LocalDateTime dateModification;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SourceModification source;
+}
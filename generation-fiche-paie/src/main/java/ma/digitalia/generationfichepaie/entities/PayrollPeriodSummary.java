@@ -0,0 +1,49 @@
+package ma.digitalia.generationfichepaie.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Agrégats des fiches de paie d'une période pour un département, tenus à jour à chaque création,
+ * modification ou suppression de fiche. Le tableau de bord lit ces lignes au lieu de parcourir les fiches.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "payroll_period_summary",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"periode", "departement"}))
+public class PayrollPeriodSummary {
+
+    // Département des employés sans manager, comme dans les requêtes de distribution
+    public static final String DEPARTEMENT_NON_DEFINI = "Non défini";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Format AAAA-MM : la clé doit être comparable et utilisable dans un upsert SQL
+    @Column(nullable = false, length = 7)
+    private String periode;
+
+    @Column(nullable = false)
+    private String departement;
+
+    private long nombreFiches;
+    private long nombreFichesErronees;
+
+    private BigDecimal salaireBrut;
+    private BigDecimal salaireBrutImposable;
+    private BigDecimal cotisationsSalariales;
+    private BigDecimal cotisationsPatronales;
+    private BigDecimal salaireNetImposable;
+    private BigDecimal salaireNet;
+    private BigDecimal impotSurLeRevenu;
+
+    private LocalDateTime dateMaj;
+}
@@ -0,0 +1,45 @@
+package ma.digitalia.generationfichepaie.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.Enum.StatutRun;
+import ma.digitalia.generationfichepaie.Enum.StrategiePartition;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Registre d'un lancement de paie. Il n'en existe qu'un par période : un nouveau lancement
+ * sur la même période reprend le registre existant au lieu de tout recalculer.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "payroll_run")
+public class PayrollRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private YearMonth periode;
+
+    @Enumerated(EnumType.STRING)
+    private StrategiePartition strategie;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatutRun statut;
+
+    private LocalDateTime dateDebut;
+    private LocalDateTime dateFin;
+
+    private int nombreLancements;
+    private int totalEmployes;
+    private int fichesGenerees;
+    private int echecs;
+}
@@ -0,0 +1,52 @@
+package ma.digitalia.generationfichepaie.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ma.digitalia.generationfichepaie.Enum.StatutRunItem;
+
+import java.time.LocalDateTime;
+
+/**
+ * État de la paie d'un employé dans un lancement. Passé à TERMINE dans la même transaction
+ * que l'enregistrement de sa fiche de paie.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "payroll_run_item",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"run_id", "employe_id"}),
+        indexes = @Index(name = "idx_payroll_run_item_statut", columnList = "run_id, statut"))
+public class PayrollRunItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "run_id", nullable = false)
+    private PayrollRun run;
+
+    @Column(name = "employe_id", nullable = false)
+    private Long employeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatutRunItem statut;
+
+    private int tentatives;
+
+    @Column(length = 1000)
+    private String derniereErreur;
+
+    private LocalDateTime dateMaj;
+
+    public PayrollRunItem(PayrollRun run, Long employeId) {
+        this.run = run;
+        this.employeId = employeId;
+        this.statut = StatutRunItem.EN_ATTENTE;
+        this.dateMaj = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,46 @@
+package ma.digitalia.generationfichepaie.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Agrégats figés d'une période de paie clôturée. Écrits une seule fois à la clôture, puis servis
+ * depuis la mémoire : les fiches d'une période clôturée ne peuvent plus être régénérées.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "periode_paie_cloturee")
+public class PeriodePaieCloturee {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Format AAAA-MM, comme payroll_period_summary
+    @Column(nullable = false, unique = true, length = 7)
+    private String periode;
+
+    @Column(nullable = false)
+    private LocalDateTime dateCloture;
+
+    private long nombreFiches;
+    private long nombreFichesErronees;
+    private long nombreElementsErrones;
+
+    private BigDecimal salaireBrut;
+    private BigDecimal salaireBrutImposable;
+    private BigDecimal cotisationsSalariales;
+    private BigDecimal cotisationsPatronales;
+    private BigDecimal salaireNetImposable;
+    private BigDecimal salaireNet;
+    private BigDecimal impotSurLeRevenu;
+
+    private BigDecimal tauxErreur;
+}
@@ -0,0 +1,9 @@
+package ma.digitalia.generationfichepaie.events;
+
+import java.time.YearMonth;
+
+/**
+ * Publié lorsqu'une fiche de paie de la période est créée, modifiée ou supprimée.
+ */
+public record PeriodePaieModifieeEvent(YearMonth periode) {
+}
@@ -0,0 +1,16 @@
+package ma.digitalia.generationfichepaie.exception;
+
+import java.time.YearMonth;
+
+/**
+ * Exception lancée quand la fiche d'un employé pour une période existe déjà : une génération concurrente
+ * l'a enregistrée en premier (contrainte d'unicité {@code (employe_id, periode)}).
+ */
+public class FichePaieDejaGenereeException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public FichePaieDejaGenereeException(Long employeId, YearMonth periode, Throwable cause) {
+        super("Fiche de paie déjà générée pour l'employé " + employeId + " et la période " + periode, cause);
+    }
+}
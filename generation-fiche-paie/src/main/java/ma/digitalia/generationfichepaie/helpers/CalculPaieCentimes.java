@@ -0,0 +1,250 @@
+package ma.digitalia.generationfichepaie.helpers;
+
+import ma.digitalia.generationfichepaie.Enum.TypeElement;
+import ma.digitalia.generationfichepaie.dto.bareme.BaremePaie;
+import ma.digitalia.generationfichepaie.dto.bareme.TrancheIR;
+import ma.digitalia.generationfichepaie.entities.ElementPaie;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Noyau de calcul des totaux d'une fiche de paie en entiers {@code long} à échelle fixe, en un seul parcours
+ * des éléments. Il applique les mêmes règles que le calcul en {@code BigDecimal} de
+ * {@code GenerationFichePaieServiceImpl}, y compris ses particularités (AMO salariale plafonnée, retards retenus
+ * sur la seule base salariale).
+ * <p>
+ * Échelles : montants en centimes (2 décimales), taux en dix-millièmes (4 décimales), cotisations à 6 décimales,
+ * impôt annuel à 10 décimales. Tous les produits sont exacts ; le seul arrondi est celui de l'impôt mensuel
+ * (division par 12, au centime le plus proche, demi vers le haut), identique au calcul en {@code BigDecimal}.
+ * <p>
+ * Si une donnée n'est pas représentable exactement (montant au-delà du centime, taux au-delà du dix-millième)
+ * ou qu'un calcul dépasserait la capacité d'un {@code long}, le noyau renvoie {@code null} :
+ * l'appelant se rabat alors sur le calcul en {@code BigDecimal}.
+ */
+public final class CalculPaieCentimes {
+
+    private static final int ECHELLE_TAUX = 4;
+    private static final int ECHELLE_BASE_IR = 6;
+    private static final int ECHELLE_IMPOT = 10;
+    /** Diviseur de l'impôt annuel (échelle 10) vers l'impôt mensuel en centimes */
+    private static final long DIVISEUR_IMPOT_MENSUEL = 12 * 100_000_000L;
+    /**
+     * Somme maximale des montants (en valeur absolue, en centimes) : en deçà, ni les cotisations
+     * ni leurs sommes ne peuvent dépasser la capacité d'un {@code long}
+     */
+    private static final long VOLUME_MAX = 10_000_000_000_000L;
+    private static final Set<TypeElement> GAINS = EnumSet.of(TypeElement.SALAIRE_BASE, TypeElement.PRIME_FIXE,
+            TypeElement.PRIME_VARIABLE, TypeElement.HEURES_SUPPLEMENTAIRES, TypeElement.INDEMNITE);
+
+    /** Dernier barème converti : le barème en vigueur change rarement */
+    private static volatile BaremeCentimes dernierBareme;
+
+    private CalculPaieCentimes() {
+    }
+
+    /**
+     * @param elements les éléments saisis de la fiche (sans les cotisations et l'impôt calculés)
+     * @param bareme le barème de la période
+     * @param personnesACharge le nombre de personnes à charge de l'employé
+     * @return les totaux de la fiche, ou null si le calcul exact en {@code long} n'est pas possible
+     */
+    public static TotauxPaieCentimes calculer(List<ElementPaie> elements, BaremePaie bareme, int personnesACharge) {
+        BaremeCentimes b = convertir(bareme);
+        if (b == null) {
+            return null;
+        }
+        try {
+            long brut = 0;
+            long imposable = 0;
+            long soumisCNSS = 0;
+            long retenuePatronale = 0;
+            long retards = 0;
+            long volume = 0;
+            for (ElementPaie element : elements) {
+                TypeElement type = element.getType();
+                if (type == null) {
+                    return null;
+                }
+                boolean gain = GAINS.contains(type);
+                boolean retenue = type == TypeElement.DEDUCTION_ABSENCE || type == TypeElement.DEDUCTION_AUTRE;
+                boolean retard = type == TypeElement.DEDUCTION_RETARD;
+                if (!gain && !retenue && !retard && !element.isSoumisIR() && !element.isSoumisCNSS()) {
+                    continue;
+                }
+                long montant = centimes(element.getMontant());
+                volume = Math.addExact(volume, Math.abs(montant));
+                if (gain) {
+                    brut += montant;
+                } else if (retenue) {
+                    brut -= montant;
+                    retenuePatronale += montant;
+                } else if (retard) {
+                    retards += montant;
+                }
+                if (element.isSoumisIR()) {
+                    imposable += montant;
+                }
+                if (element.isSoumisCNSS()) {
+                    soumisCNSS += montant;
+                }
+            }
+            if (volume > VOLUME_MAX) {
+                return null;
+            }
+
+            long baseSalariale = Math.subtractExact(soumisCNSS, Math.addExact(retenuePatronale, retards));
+            long basePatronale = Math.subtractExact(soumisCNSS, retenuePatronale);
+            long plafonneeSalariale = Math.min(baseSalariale, b.plafondCNSS);
+            long plafonneePatronale = Math.min(basePatronale, b.plafondCNSS);
+
+            return new TotauxPaieCentimes(
+                    brut,
+                    imposable,
+                    baseSalariale,
+                    basePatronale,
+                    Math.multiplyExact(plafonneeSalariale, b.tauxCNSSSalarial),
+                    Math.multiplyExact(plafonneeSalariale, b.tauxAMOSalarial),
+                    Math.multiplyExact(plafonneePatronale, b.tauxCNSSPatronal),
+                    Math.multiplyExact(basePatronale, b.tauxAMOPatronal),
+                    Math.multiplyExact(basePatronale, b.tauxFormationPro),
+                    Math.multiplyExact(plafonneePatronale, b.tauxAllocationsFamiliales),
+                    impotMensuel(imposable, b, personnesACharge));
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Même suite d'opérations que {@code calculerImpotSurLeRevenu} : frais professionnels plafonnés,
+     * barème progressif, abattement pour charges de famille, puis division par 12.
+     */
+    private static long impotMensuel(long imposable, BaremeCentimes b, int personnesACharge) {
+        long annuel = Math.multiplyExact(imposable, 12L);
+        // échelle 2 x 4 = 6
+        long frais = Math.min(Math.multiplyExact(annuel, b.tauxFraisProfessionnels), b.plafondFraisProfessionnels);
+        long base = Math.subtractExact(Math.multiplyExact(annuel, 10_000L), frais);
+
+        int tranche = b.tranche(base);
+        // échelle 6 x 4 = 10
+        long impot = Math.addExact(b.impotCumule[tranche],
+                Math.multiplyExact(Math.subtractExact(base, b.bornes[tranche]), b.taux[tranche]));
+        impot = Math.max(impot, 0);
+
+        int personnes = Math.min(personnesACharge, b.maxPersonnesACharge);
+        long abattement = Math.multiplyExact(b.deductionParPersonne, personnes);
+        impot = Math.max(impot - abattement, 0);
+
+        return arrondir(impot, DIVISEUR_IMPOT_MENSUEL);
+    }
+
+    /**
+     * Division entière arrondie au plus proche, demi vers le haut (en valeur absolue), comme {@code RoundingMode.HALF_UP}.
+     */
+    static long arrondir(long valeur, long diviseur) {
+        long quotient = valeur / diviseur;
+        long reste = valeur % diviseur;
+        if (Math.abs(reste) * 2 >= diviseur) {
+            quotient += Long.signum(valeur);
+        }
+        return quotient;
+    }
+
+    /**
+     * Montant en centimes. Un montant absent fait échouer le calcul en {@code BigDecimal} : le noyau lui laisse le cas.
+     */
+    private static long centimes(BigDecimal montant) {
+        if (montant == null) {
+            throw new ArithmeticException("montant absent");
+        }
+        return montant.movePointRight(2).longValueExact();
+    }
+
+    private static BaremeCentimes convertir(BaremePaie bareme) {
+        BaremeCentimes converti = dernierBareme;
+        if (converti == null || converti.source != bareme) {
+            converti = BaremeCentimes.de(bareme);
+            if (converti == null) {
+                return null;
+            }
+            dernierBareme = converti;
+        }
+        return converti;
+    }
+
+    /**
+     * Barème converti à échelle fixe, ou null s'il n'est pas représentable exactement.
+     */
+    private static final class BaremeCentimes {
+        private final BaremePaie source;
+        private final long plafondCNSS;
+        private final long tauxCNSSSalarial;
+        private final long tauxAMOSalarial;
+        private final long tauxCNSSPatronal;
+        private final long tauxAMOPatronal;
+        private final long tauxFormationPro;
+        private final long tauxAllocationsFamiliales;
+        private final long tauxFraisProfessionnels;
+        private final long plafondFraisProfessionnels;
+        private final long deductionParPersonne;
+        private final int maxPersonnesACharge;
+        private final long[] bornes;
+        private final long[] taux;
+        private final long[] impotCumule;
+
+        private BaremeCentimes(BaremePaie bareme) {
+            source = bareme;
+            plafondCNSS = echelle(bareme.plafondCNSS(), 2);
+            tauxCNSSSalarial = echelle(bareme.tauxCNSSSalarial(), ECHELLE_TAUX);
+            tauxAMOSalarial = echelle(bareme.tauxAMOSalarial(), ECHELLE_TAUX);
+            tauxCNSSPatronal = echelle(bareme.tauxCNSSPatronal(), ECHELLE_TAUX);
+            tauxAMOPatronal = echelle(bareme.tauxAMOPatronal(), ECHELLE_TAUX);
+            tauxFormationPro = echelle(bareme.tauxFormationPro(), ECHELLE_TAUX);
+            tauxAllocationsFamiliales = echelle(bareme.tauxAllocationsFamiliales(), ECHELLE_TAUX);
+            tauxFraisProfessionnels = echelle(bareme.tauxFraisProfessionnels(), ECHELLE_TAUX);
+            // la comparaison avec les frais se fait à l'échelle 6 (centimes x taux)
+            plafondFraisProfessionnels = echelle(bareme.plafondFraisProfessionnels(), ECHELLE_BASE_IR);
+            deductionParPersonne = echelle(bareme.deductionParPersonneACharge(), ECHELLE_IMPOT);
+            maxPersonnesACharge = bareme.maxPersonnesACharge();
+
+            List<TrancheIR> tranches = bareme.tranchesIR();
+            bornes = new long[tranches.size()];
+            taux = new long[tranches.size()];
+            impotCumule = new long[tranches.size()];
+            for (int i = 0; i < tranches.size(); i++) {
+                bornes[i] = echelle(tranches.get(i).borneInferieure(), ECHELLE_BASE_IR);
+                taux[i] = echelle(tranches.get(i).taux(), ECHELLE_TAUX);
+                impotCumule[i] = echelle(tranches.get(i).impotCumule(), ECHELLE_IMPOT);
+            }
+        }
+
+        static BaremeCentimes de(BaremePaie bareme) {
+            try {
+                return new BaremeCentimes(bareme);
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+
+        /** Même recherche que {@link BaremePaie#trancheIR} */
+        int tranche(long base) {
+            int bas = 0;
+            int haut = bornes.length - 1;
+            while (bas < haut) {
+                int milieu = (bas + haut + 1) >>> 1;
+                if (base > bornes[milieu]) {
+                    bas = milieu;
+                } else {
+                    haut = milieu - 1;
+                }
+            }
+            return bas;
+        }
+
+        private static long echelle(BigDecimal valeur, int echelle) {
+            return valeur.movePointRight(echelle).longValueExact();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ma.digitalia.generationfichepaie.helpers;
+
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+
+import java.math.BigDecimal;
+
+/**
+ * Part d'une fiche de paie dans les agrégats de sa période, ou variation de cette part
+ * entre deux états de la fiche, avec la ligne (département) de {@code payroll_period_summary} concernée.
+ * Le département est nul pour une fiche enregistrée avant qu'il ne soit retenu sur la fiche.
+ */
+public record ContributionFichePaie(String departement,
+                                    long nombreFiches,
+                                    long nombreFichesErronees,
+                                    BigDecimal salaireBrut,
+                                    BigDecimal salaireBrutImposable,
+                                    BigDecimal cotisationsSalariales,
+                                    BigDecimal cotisationsPatronales,
+                                    BigDecimal salaireNetImposable,
+                                    BigDecimal salaireNet,
+                                    BigDecimal impotSurLeRevenu) {
+
+    public static ContributionFichePaie de(FichePaie fiche) {
+        return new ContributionFichePaie(fiche.getDepartementAgrege(), 1, estErronee(fiche) ? 1 : 0,
+                valeur(fiche.getSalaireBrut()),
+                valeur(fiche.getSalaireBrutImposable()),
+                valeur(fiche.getCotisationsSalariales()),
+                valeur(fiche.getCotisationsPatronales()),
+                valeur(fiche.getSalaireNetImposable()),
+                valeur(fiche.getSalaireNet()),
+                valeur(fiche.getImpotSurLeRevenu()));
+    }
+
+    /**
+     * Même critère que {@code FichePaieRepository.countFichesErroneesByPeriode}.
+     */
+    public static boolean estErronee(FichePaie fiche) {
+        BigDecimal net = fiche.getSalaireNet();
+        BigDecimal brut = fiche.getSalaireBrut();
+        return net == null || net.signum() <= 0 || brut == null || brut.signum() <= 0 || net.compareTo(brut) > 0;
+    }
+
+    /**
+     * Variation depuis {@code autre}, comptée dans le département de cette contribution.
+     */
+    public ContributionFichePaie moins(ContributionFichePaie autre) {
+        return new ContributionFichePaie(departement,
+                nombreFiches - autre.nombreFiches,
+                nombreFichesErronees - autre.nombreFichesErronees,
+                salaireBrut.subtract(autre.salaireBrut),
+                salaireBrutImposable.subtract(autre.salaireBrutImposable),
+                cotisationsSalariales.subtract(autre.cotisationsSalariales),
+                cotisationsPatronales.subtract(autre.cotisationsPatronales),
+                salaireNetImposable.subtract(autre.salaireNetImposable),
+                salaireNet.subtract(autre.salaireNet),
+                impotSurLeRevenu.subtract(autre.impotSurLeRevenu));
+    }
+
+    public ContributionFichePaie oppose() {
+        return new ContributionFichePaie(departement, -nombreFiches, -nombreFichesErronees,
+                salaireBrut.negate(), salaireBrutImposable.negate(),
+                cotisationsSalariales.negate(), cotisationsPatronales.negate(),
+                salaireNetImposable.negate(), salaireNet.negate(), impotSurLeRevenu.negate());
+    }
+
+    public boolean estNulle() {
+        return nombreFiches == 0 && nombreFichesErronees == 0
+                && salaireBrut.signum() == 0 && salaireBrutImposable.signum() == 0
+                && cotisationsSalariales.signum() == 0 && cotisationsPatronales.signum() == 0
+                && salaireNetImposable.signum() == 0 && salaireNet.signum() == 0
+                && impotSurLeRevenu.signum() == 0;
+    }
+
+    private static BigDecimal valeur(BigDecimal montant) {
+        return montant != null ? montant : BigDecimal.ZERO;
+    }
+}
@@ -11,13 +11,32 @@ import ma.digitalia.generationfichepaie.Enum.TypeElement;
 import java.awt.Color;
 import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+/**
+ * Rendu du bulletin de paie. La mise en page statique (tableaux d'en-tête, largeurs de colonnes, titre, libellés fixes)
+ * est préparée une seule fois par thread dans un {@link ContexteRendu} ; chaque rendu copie ces modèles
+ * et ne construit que les cellules variables.
+ */
 public class FichePaiePdfGenerateur {
 
+    // --- Mise en page du document ---
+    private static final Rectangle FORMAT_PAGE = PageSize.A4;
+    private static final float MARGE = 25;
+    private static final float[] LARGEURS_EN_TETE = {1f, 1f};
+    private static final float[] LARGEURS_ELEMENTS = {0.5f, 3.5f, 1f, 1.5f, 1f, 1.5f, 1.5f, 1f, 1.5f};
+    private static final float[] LARGEURS_RECAPITULATIF = {1.8f, 1.5f, 1.5f, 1.5f, 1.5f, 1.2f, 1.5f, 1.8f};
+    private static final int TAILLE_TAMPON = 16 * 1024;
+    private static final int TAILLE_TAMPON_MAX = 1024 * 1024;
+
     // --- Définition des polices ---
     private static final Font FONT_TITRE = new Font(Font.HELVETICA, 16, Font.BOLD);
     private static final Font FONT_HEADER_TABLE = new Font(Font.HELVETICA, 8, Font.BOLD);
@@ -42,21 +61,49 @@ public class FichePaiePdfGenerateur {
     private static final Comparator<ElementPaie> ELEMENT_COMPARATOR =
             Comparator.comparing(element -> ELEMENT_TYPE_ORDER.getOrDefault(element.getType(), 999));
 
+    private static final ThreadLocal<ContexteRendu> CONTEXTE = ThreadLocal.withInitial(ContexteRendu::new);
+
+    /**
+     * Modèles et tampons propres à un thread de rendu. Les modèles ne sont jamais ajoutés tels quels au document :
+     * OpenPDF copie les cellules à l'ajout, et les tableaux modèles sont copiés avant d'être complétés.
+     */
+    private static final class ContexteRendu {
+        private ByteArrayOutputStream tampon = new ByteArrayOutputStream(TAILLE_TAMPON);
+        private final PdfPTable modeleTitre = creerTableTitre();
+        private final PdfPTable modeleElements = creerModeleTableauElements();
+        private final PdfPTable modeleRecapitulatif = creerModeleTableauRecapitulatif();
+        private final Chunk lignesSociete = new Chunk("STE : ........................\n"
+                + "Tél : ........................\n\n"
+                + "CNSS N° : ........................\n\n", FONT_NORMAL);
+        private final DecimalFormat formatMontant = creerFormatMontant();
+
+        private ByteArrayOutputStream tampon() {
+            // un rendu exceptionnellement volumineux ne doit pas retenir un grand tampon pour toute la vie du thread
+            if (tampon.size() > TAILLE_TAMPON_MAX) {
+                tampon = new ByteArrayOutputStream(TAILLE_TAMPON);
+            }
+            tampon.reset();
+            return tampon;
+        }
+    }
+
     public static byte[] genererPdf(FichePaie fiche) {
         if (fiche == null || fiche.getEmploye() == null || fiche.getElements() == null) {
             throw new IllegalArgumentException("L'objet FichePaie ou ses composants essentiels sont nuls.");
         }
 
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Document document = new Document(PageSize.A4, 25, 25, 25, 25);
+        ContexteRendu contexte = CONTEXTE.get();
+        try {
+            ByteArrayOutputStream out = contexte.tampon();
+            Document document = new Document(FORMAT_PAGE, MARGE, MARGE, MARGE, MARGE);
             PdfWriter.getInstance(document, out);
             document.open();
 
-            document.add(creerTableEnTete(fiche));
+            document.add(creerTableEnTete(fiche, contexte));
             document.add(new Paragraph(" "));
-            document.add(creerTableauElementsPaie(fiche));
+            document.add(creerTableauElementsPaie(fiche, contexte));
             document.add(new Paragraph(" "));
-            document.add(creerTableauRecapitulatif(fiche));
+            document.add(creerTableauRecapitulatif(fiche, contexte));
 
             document.close();
             return out.toByteArray();
@@ -66,14 +113,21 @@ public class FichePaiePdfGenerateur {
         }
     }
 
-    private static PdfPTable creerTableauElementsPaie(FichePaie fiche) throws DocumentException {
+    private static PdfPTable creerModeleTableauElements() {
         PdfPTable table = new PdfPTable(9);
         table.setWidthPercentage(100);
-        table.setWidths(new float[]{0.5f, 3.5f, 1f, 1.5f, 1f, 1.5f, 1.5f, 1f, 1.5f});
+        table.setWidths(LARGEURS_ELEMENTS);
         creerEnTetesTableauPrincipal(table);
+        return table;
+    }
 
-        List<ElementPaie> elementsTries = fiche.getElements();
+    private static PdfPTable creerTableauElementsPaie(FichePaie fiche, ContexteRendu contexte) {
+        PdfPTable table = new PdfPTable(contexte.modeleElements);
+
+        // copie triée : la liste de la fiche (éventuellement une collection Hibernate) n'est pas modifiée
+        List<ElementPaie> elementsTries = new ArrayList<>(fiche.getElements());
         elementsTries.sort(ELEMENT_COMPARATOR);
+        DecimalFormat format = contexte.formatMontant;
 
         boolean aInsereTotauxBruts = false;
         boolean aInsereTotalCotisations = false;
@@ -84,32 +138,32 @@ public class FichePaiePdfGenerateur {
             }
 
             if (!isGainType(element.getType()) && !aInsereTotauxBruts) {
-                ajouterLigneTotale(table, "Total Brut", formatBigDecimal(fiche.getSalaireBrut()), 5);
-                ajouterLigneTotale(table, "Total Brut imposable", formatBigDecimal(fiche.getSalaireBrutImposable()), 5);
+                ajouterLigneTotale(table, "Total Brut", formatBigDecimal(format, fiche.getSalaireBrut()), 5);
+                ajouterLigneTotale(table, "Total Brut imposable", formatBigDecimal(format, fiche.getSalaireBrutImposable()), 5);
                 aInsereTotauxBruts = true;
             }
 
             if (!isGainType(element.getType()) && !isCotisationType(element.getType()) && !aInsereTotalCotisations) {
                 if (fiche.getCotisationsSalariales() != null && fiche.getCotisationsSalariales().compareTo(BigDecimal.ZERO) != 0) {
                     BigDecimal totalPatronal = fiche.getCotisationsPatronales();
-                    ajouterLigneTotaleCotisations(table, "Total Cotisations", formatBigDecimal(fiche.getCotisationsSalariales()), formatBigDecimal(totalPatronal));
+                    ajouterLigneTotaleCotisations(table, "Total Cotisations", formatBigDecimal(format, fiche.getCotisationsSalariales()), formatBigDecimal(format, totalPatronal));
                 }
                 aInsereTotalCotisations = true;
             }
 
             switch (element.getType()) {
                 case SALAIRE_BASE:
-                    ajouterLigneGain(table, element.getLibelle(), formatBigDecimal(element.getBase()), fiche.getJoursTravailles().toString(), formatBigDecimal(element.getMontant()), "");
+                    ajouterLigneGain(table, element.getLibelle(), formatBigDecimal(format, element.getBase()), fiche.getJoursTravailles().toString(), formatBigDecimal(format, element.getMontant()), "");
                     break;
                 case HEURES_SUPPLEMENTAIRES:
-                    ajouterLigneGain(table, element.getLibelle(), formatBigDecimal(element.getBase()), fiche.getHeuresSupplementaires().toString(), formatBigDecimal(element.getMontant()), "");
+                    ajouterLigneGain(table, element.getLibelle(), formatBigDecimal(format, element.getBase()), fiche.getHeuresSupplementaires().toString(), formatBigDecimal(format, element.getMontant()), "");
                     break;
                 case PRIME_VARIABLE:
-                    ajouterLigneGain(table, element.getLibelle(), formatBigDecimal(element.getBase()), "", formatBigDecimal(element.getMontant()), element.getTaux().toString());
+                    ajouterLigneGain(table, element.getLibelle(), formatBigDecimal(format, element.getBase()), "", formatBigDecimal(format, element.getMontant()), element.getTaux().toString());
                     break;
                 case PRIME_FIXE:
                 case INDEMNITE:
-                    ajouterLigneGain(table, element.getLibelle(), formatBigDecimal(element.getBase()), "", formatBigDecimal(element.getMontant()), "");
+                    ajouterLigneGain(table, element.getLibelle(), formatBigDecimal(format, element.getBase()), "", formatBigDecimal(format, element.getMontant()), "");
                     break;
                 case COTISATION_SOCIALE:
                     if(element.getLibelle().contains("Patronale")){ break; }
@@ -122,22 +176,22 @@ public class FichePaiePdfGenerateur {
                         ElementPaie cotisationPatronale = cotisationsCNSS.stream()
                                 .filter(e -> e.getLibelle().contains(motif + " Patronale")).findFirst().orElse(null);
                         if (cotisationSalariale != null && cotisationPatronale != null) {
-                            ajouterLigneCotisationCNSS(table, cotisationSalariale.getLibelle(), formatBigDecimal(cotisationSalariale.getBase()),
-                                    formatTaux(cotisationSalariale.getTaux()), formatBigDecimal(cotisationSalariale.getMontant()),
-                                    formatTaux(cotisationPatronale.getTaux()), formatBigDecimal(cotisationPatronale.getMontant()));
+                            ajouterLigneCotisationCNSS(table, cotisationSalariale.getLibelle(), formatBigDecimal(format, cotisationSalariale.getBase()),
+                                    formatTaux(format, cotisationSalariale.getTaux()), formatBigDecimal(format, cotisationSalariale.getMontant()),
+                                    formatTaux(format, cotisationPatronale.getTaux()), formatBigDecimal(format, cotisationPatronale.getMontant()));
                         }
                         break;
                     }
                     if(element.getLibelle().contains("Familiales") || element.getLibelle().contains("Formation")){
-                        ajouterLigneCotisationPatronales(table, element.getLibelle(), formatBigDecimal(element.getBase()), formatTaux(element.getTaux()), formatBigDecimal(element.getMontant()));
+                        ajouterLigneCotisationPatronales(table, element.getLibelle(), formatBigDecimal(format, element.getBase()), formatTaux(format, element.getTaux()), formatBigDecimal(format, element.getMontant()));
                         break;
                     }
-                    ajouterLigneCotisation(table, element.getLibelle(), formatBigDecimal(element.getBase()), formatTaux(element.getTaux()), formatBigDecimal(element.getMontant()));
+                    ajouterLigneCotisation(table, element.getLibelle(), formatBigDecimal(format, element.getBase()), formatTaux(format, element.getTaux()), formatBigDecimal(format, element.getMontant()));
                     break;
                 case DEDUCTION_ABSENCE:
                 case DEDUCTION_AUTRE:
                 case IMPOT:
-                    ajouterLigneRetenue(table, element.getLibelle(), formatBigDecimal(element.getMontant()));
+                    ajouterLigneRetenue(table, element.getLibelle(), formatBigDecimal(format, element.getMontant()));
                     break;
                 default:
                     break;
@@ -145,13 +199,13 @@ public class FichePaiePdfGenerateur {
         }
 
         if (!aInsereTotauxBruts && !elementsTries.isEmpty()) {
-            ajouterLigneTotale(table, "Total Brut", formatBigDecimal(fiche.getSalaireBrut()), 5);
-            ajouterLigneTotale(table, "Total Brut imposable", formatBigDecimal(fiche.getSalaireBrutImposable()), 5);
+            ajouterLigneTotale(table, "Total Brut", formatBigDecimal(format, fiche.getSalaireBrut()), 5);
+            ajouterLigneTotale(table, "Total Brut imposable", formatBigDecimal(format, fiche.getSalaireBrutImposable()), 5);
         }
 
         if (!aInsereTotalCotisations && fiche.getCotisationsSalariales() != null && fiche.getCotisationsSalariales().compareTo(BigDecimal.ZERO) != 0) {
             BigDecimal totalPatronal = fiche.getCotisationsPatronales();
-            ajouterLigneTotaleCotisations(table, "Total Cotisations", formatBigDecimal(fiche.getCotisationsSalariales()), formatBigDecimal(totalPatronal));
+            ajouterLigneTotaleCotisations(table, "Total Cotisations", formatBigDecimal(format, fiche.getCotisationsSalariales()), formatBigDecimal(format, totalPatronal));
         }
 
         // NOUVEAU : À la toute fin, on ajoute une ligne pour fermer le tableau proprement.
@@ -170,18 +224,16 @@ public class FichePaiePdfGenerateur {
     }
 
     // --- Les autres méthodes de création de PDF restent inchangées ---
-    private static PdfPTable creerTableEnTete(FichePaie fiche) throws DocumentException {
+    private static PdfPTable creerTableEnTete(FichePaie fiche, ContexteRendu contexte) throws DocumentException {
         PdfPTable layoutTable = new PdfPTable(2);
         layoutTable.setWidthPercentage(100);
-        layoutTable.setWidths(new float[]{1f, 1f});
+        layoutTable.setWidths(LARGEURS_EN_TETE);
 
         PdfPCell societeInfoCell = new PdfPCell();
         societeInfoCell.setBorder(Rectangle.BOX);
         societeInfoCell.setPadding(10);
         Paragraph pSociete = new Paragraph();
-        pSociete.add(new Chunk("STE : ........................\n", FONT_NORMAL));
-        pSociete.add(new Chunk("Tél : ........................\n\n", FONT_NORMAL));
-        pSociete.add(new Chunk("CNSS N° : ........................\n\n", FONT_NORMAL));
+        pSociete.add(contexte.lignesSociete);
         pSociete.add(new Chunk("N° CIN: "+ fiche.getEmploye().getCin() +"\n\n", FONT_NORMAL));
         pSociete.add(new Chunk("N° CNSS: à ajouter\n\n", FONT_NORMAL));
         pSociete.add(new Chunk("Date Embauche : "+ fiche.getEmploye().getDateEmbauche() +"\n\n", FONT_NORMAL));
@@ -191,7 +243,7 @@ public class FichePaiePdfGenerateur {
 
         PdfPCell droiteCell = new PdfPCell();
         droiteCell.setBorder(Rectangle.NO_BORDER);
-        droiteCell.addElement(creerTableTitre());
+        droiteCell.addElement(new PdfPTable(contexte.modeleTitre));
         droiteCell.addElement(new Paragraph(" "));
         droiteCell.addElement(creerTableInfosEmploye(fiche));
         layoutTable.addCell(droiteCell);
@@ -229,10 +281,10 @@ public class FichePaiePdfGenerateur {
         return table;
     }
 
-    private static PdfPTable creerTableauRecapitulatif(FichePaie fiche) throws DocumentException {
+    private static PdfPTable creerModeleTableauRecapitulatif() {
         PdfPTable table = new PdfPTable(8);
         table.setWidthPercentage(100);
-        table.setWidths(new float[]{1.8f, 1.5f, 1.5f, 1.5f, 1.5f, 1.2f, 1.5f, 1.8f});
+        table.setWidths(LARGEURS_RECAPITULATIF);
 
         table.addCell(creerCelluleHeader("Cumul", FONT_HEADER_TABLE));
         table.addCell(creerCelluleHeader("Salaire Brut", FONT_HEADER_TABLE));
@@ -242,18 +294,24 @@ public class FichePaiePdfGenerateur {
         table.addCell(creerCelluleHeader("jours travaillés", FONT_HEADER_TABLE));
         table.addCell(creerCelluleHeader("Heures supplém.", FONT_HEADER_TABLE));
         table.addCell(creerCelluleHeader("NET A PAYER", FONT_HEADER_TABLE));
+        return table;
+    }
+
+    private static PdfPTable creerTableauRecapitulatif(FichePaie fiche, ContexteRendu contexte) {
+        PdfPTable table = new PdfPTable(contexte.modeleRecapitulatif);
+        DecimalFormat format = contexte.formatMontant;
 
         BigDecimal chargesPatronales = fiche.getCotisationsPatronales();
         int joursTravailles = fiche.getJoursTravailles();
 
         table.addCell(creerCelluleDonneeAvecBordureComplete("Période " + fiche.getPeriode().toString(), Element.ALIGN_LEFT));
-        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(fiche.getSalaireBrut()), Element.ALIGN_RIGHT));
-        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(fiche.getCotisationsSalariales()), Element.ALIGN_RIGHT));
-        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(chargesPatronales), Element.ALIGN_RIGHT));
-        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(fiche.getSalaireNetImposable()), Element.ALIGN_RIGHT));
+        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(format, fiche.getSalaireBrut()), Element.ALIGN_RIGHT));
+        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(format, fiche.getCotisationsSalariales()), Element.ALIGN_RIGHT));
+        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(format, chargesPatronales), Element.ALIGN_RIGHT));
+        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(format, fiche.getSalaireNetImposable()), Element.ALIGN_RIGHT));
         table.addCell(creerCelluleDonneeAvecBordureComplete(String.valueOf(joursTravailles), Element.ALIGN_RIGHT));
         table.addCell(creerCelluleDonneeAvecBordureComplete(fiche.getHeuresSupplementaires().toString(), Element.ALIGN_RIGHT));
-        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(fiche.getSalaireNet()), Element.ALIGN_RIGHT, FONT_BOLD));
+        table.addCell(creerCelluleDonneeAvecBordureComplete(formatBigDecimal(format, fiche.getSalaireNet()), Element.ALIGN_RIGHT, FONT_BOLD));
 
         return table;
     }
@@ -413,13 +471,20 @@ public class FichePaiePdfGenerateur {
         return creerCelluleDonneeAvecBordureComplete(content, horizontalAlignment, FONT_NORMAL);
     }
 
-    private static String formatBigDecimal(BigDecimal value) {
+    // Même rendu que String.format("%,.2f") dans la locale par défaut, sans analyser le motif à chaque appel
+    private static DecimalFormat creerFormatMontant() {
+        DecimalFormat format = new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)));
+        format.setRoundingMode(RoundingMode.HALF_UP);
+        return format;
+    }
+
+    private static String formatBigDecimal(DecimalFormat format, BigDecimal value) {
         if (value == null || value.compareTo(BigDecimal.ZERO) == 0) return "";
-        return String.format("%,.2f", value);
+        return format.format(value);
     }
 
-    private static String formatTaux(BigDecimal taux) {
+    private static String formatTaux(DecimalFormat format, BigDecimal taux) {
         if (taux == null || taux.compareTo(BigDecimal.ZERO) == 0) return "";
-        return formatBigDecimal(taux) + "%";
+        return formatBigDecimal(format, taux) + "%";
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package ma.digitalia.generationfichepaie.helpers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ma.digitalia.generationfichepaie.Enum.EtapePaie;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Métriques Micrometer de la paie, exposées par l'Actuator ({@code /actuator/metrics/paie.*}) :
+ * <ul>
+ *     <li>{@code paie.fiche.etape} (tag {@code etape}) : durée de chaque étape de la génération d'une fiche ;</li>
+ *     <li>{@code paie.fiches} (tag {@code resultat}) : fiches générées ou en échec dans les lancements ;</li>
+ *     <li>{@code paie.run.*} : lancements en cours, employés à traiter, traités et en échec, durée des lancements
+ *     et des partitions.</li>
+ * </ul>
+ * Les jauges des lancements additionnent les lancements en cours et retombent à zéro quand ils se terminent.
+ */
+@Component
+public class PaieMetrics {
+
+    private final Map<EtapePaie, Timer> etapes = new EnumMap<>(EtapePaie.class);
+    private final Counter fichesGenerees;
+    private final Counter fichesEnEchec;
+    private final Timer dureeRun;
+    private final Timer dureePartition;
+
+    private final AtomicInteger runsEnCours = new AtomicInteger();
+    private final AtomicInteger employesATraiter = new AtomicInteger();
+    private final AtomicInteger employesTraites = new AtomicInteger();
+    private final AtomicInteger employesEnEchec = new AtomicInteger();
+
+    public PaieMetrics(MeterRegistry registry) {
+        for (EtapePaie etape : EtapePaie.values()) {
+            etapes.put(etape, Timer.builder("paie.fiche.etape")
+                    .description("Durée d'une étape de la génération d'une fiche de paie")
+                    .tag("etape", etape.tag())
+                    .register(registry));
+        }
+        fichesGenerees = Counter.builder("paie.fiches").description("Fiches de paie traitées par les lancements")
+                .tag("resultat", "succes").register(registry);
+        fichesEnEchec = Counter.builder("paie.fiches").description("Fiches de paie traitées par les lancements")
+                .tag("resultat", "echec").register(registry);
+        dureeRun = Timer.builder("paie.run.duree").description("Durée d'un lancement de paie").register(registry);
+        dureePartition = Timer.builder("paie.run.partition.duree").description("Durée d'une partition de lancement")
+                .register(registry);
+
+        Gauge.builder("paie.run.en_cours", runsEnCours, AtomicInteger::get)
+                .description("Lancements de paie en cours").register(registry);
+        Gauge.builder("paie.run.employes.a_traiter", employesATraiter, AtomicInteger::get)
+                .description("Employés à traiter par les lancements en cours").register(registry);
+        Gauge.builder("paie.run.employes.traites", employesTraites, AtomicInteger::get)
+                .description("Employés déjà traités par les lancements en cours").register(registry);
+        Gauge.builder("paie.run.employes.echecs", employesEnEchec, AtomicInteger::get)
+                .description("Employés en échec dans les lancements en cours").register(registry);
+    }
+
+    public <T> T mesurer(EtapePaie etape, Supplier<T> traitement) {
+        return etapes.get(etape).record(traitement);
+    }
+
+    public void mesurer(EtapePaie etape, Runnable traitement) {
+        etapes.get(etape).record(traitement);
+    }
+
+    /**
+     * Inscrit un lancement dans les jauges jusqu'à l'appel de {@link SuiviRun#terminer()}.
+     * @param employes le nombre d'employés à traiter par le lancement
+     */
+    public SuiviRun debutRun(int employes) {
+        runsEnCours.incrementAndGet();
+        employesATraiter.addAndGet(employes);
+        return new SuiviRun(employes);
+    }
+
+    /**
+     * Avancement d'un lancement : ses partitions peuvent se terminer en parallèle.
+     */
+    public final class SuiviRun {
+
+        private final int employes;
+        private final long debut = System.nanoTime();
+        private final AtomicInteger traites = new AtomicInteger();
+        private final AtomicInteger echecs = new AtomicInteger();
+
+        private SuiviRun(int employes) {
+            this.employes = employes;
+        }
+
+        public void partitionTerminee(int succes, int echecsPartition, long dureeMs) {
+            traites.addAndGet(succes + echecsPartition);
+            echecs.addAndGet(echecsPartition);
+            employesTraites.addAndGet(succes + echecsPartition);
+            employesEnEchec.addAndGet(echecsPartition);
+            fichesGenerees.increment(succes);
+            fichesEnEchec.increment(echecsPartition);
+            dureePartition.record(Duration.ofMillis(dureeMs));
+        }
+
+        public void terminer() {
+            runsEnCours.decrementAndGet();
+            employesATraiter.addAndGet(-employes);
+            employesTraites.addAndGet(-traites.get());
+            employesEnEchec.addAndGet(-echecs.get());
+            dureeRun.record(Duration.ofNanos(System.nanoTime() - debut));
+        }
+    }
+}
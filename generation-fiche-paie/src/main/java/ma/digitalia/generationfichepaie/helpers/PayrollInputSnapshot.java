@@ -0,0 +1,132 @@
+package ma.digitalia.generationfichepaie.helpers;
+
+import jakarta.persistence.EntityNotFoundException;
+import ma.digitalia.generationfichepaie.Enum.CodeElement;
+import ma.digitalia.generationfichepaie.Enum.TypeElement;
+import ma.digitalia.generationfichepaie.dto.bareme.BaremePaie;
+import ma.digitalia.generationfichepaie.entities.ElementPaie;
+import ma.digitalia.gestionutilisateur.entities.Employe;
+import ma.digitalia.suividutemps.entities.RapportTemps;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Données d'entrée de la paie d'un lot d'employés pour une période, chargées en quelques requêtes
+ * ensemblistes. Les contrôles d'existence des éléments se font en mémoire ; les éléments ajoutés
+ * pendant le calcul doivent être enregistrés ici pour rester visibles.
+ * <p>
+ * Un instantané de simulation ne provoque aucune écriture : les éléments calculés restent en mémoire,
+ * aucun rapport de temps n'est généré et le barème peut être remplacé par celui du scénario.
+ */
+public class PayrollInputSnapshot {
+
+    private final YearMonth periode;
+    private final Map<Long, Employe> employes;
+    private final Map<Long, List<ElementPaie>> elements;
+    private final Map<Long, RapportTemps> rapports;
+    private final Set<Long> employesAvecFiche;
+    private final boolean simulation;
+    private final BaremePaie bareme;
+
+    public PayrollInputSnapshot(YearMonth periode, Map<Long, Employe> employes, Map<Long, List<ElementPaie>> elements,
+                                Map<Long, RapportTemps> rapports, Set<Long> employesAvecFiche) {
+        this(periode, employes, elements, rapports, employesAvecFiche, false, null);
+    }
+
+    private PayrollInputSnapshot(YearMonth periode, Map<Long, Employe> employes, Map<Long, List<ElementPaie>> elements,
+                                 Map<Long, RapportTemps> rapports, Set<Long> employesAvecFiche,
+                                 boolean simulation, BaremePaie bareme) {
+        this.periode = periode;
+        this.employes = employes;
+        this.elements = elements;
+        this.rapports = rapports;
+        this.employesAvecFiche = employesAvecFiche;
+        this.simulation = simulation;
+        this.bareme = bareme;
+    }
+
+    /**
+     * Crée un instantané de simulation sur les mêmes employés, avec ses propres éléments de paie.
+     * @param elements les éléments de paie de chaque employé, copiés (les listes de l'instantané ne sont pas partagées)
+     * @param bareme le barème du scénario, ou null pour le barème en vigueur
+     */
+    public PayrollInputSnapshot simulation(Map<Long, List<ElementPaie>> elements, BaremePaie bareme) {
+        Map<Long, List<ElementPaie>> copie = new HashMap<>();
+        elements.forEach((employeId, liste) -> copie.put(employeId, new ArrayList<>(liste)));
+        return new PayrollInputSnapshot(periode, employes, copie, rapports, new HashSet<>(employesAvecFiche), true, bareme);
+    }
+
+    public boolean isSimulation() {
+        return simulation;
+    }
+
+    /**
+     * @return le barème imposé par le scénario de simulation, null pour le barème en vigueur
+     */
+    public BaremePaie getBareme() {
+        return bareme;
+    }
+
+    public Collection<Long> getEmployeIds() {
+        return employes.keySet();
+    }
+
+    public YearMonth getPeriode() {
+        return periode;
+    }
+
+    public Employe getEmploye(Long employeId) {
+        Employe employe = employes.get(employeId);
+        if (employe == null) {
+            throw new EntityNotFoundException("Employé non trouvé avec l'ID : " + employeId);
+        }
+        return employe;
+    }
+
+    public RapportTemps getRapportTemps(Long employeId) {
+        return rapports.get(employeId);
+    }
+
+    /**
+     * @return une copie des éléments de paie actuels de l'employé
+     */
+    public List<ElementPaie> getElements(Long employeId) {
+        return new ArrayList<>(elements.getOrDefault(employeId, List.of()));
+    }
+
+    public boolean aDejaUneFiche(Long employeId) {
+        return employesAvecFiche.contains(employeId);
+    }
+
+    /**
+     * Présence d'un élément système, recherchée en mémoire (en base : index unique {@code (employe_id, code)}).
+     */
+    public boolean contientCode(Long employeId, CodeElement code) {
+        return elements.getOrDefault(employeId, List.of()).stream()
+                .anyMatch(e -> e.getCode() == code);
+    }
+
+    /**
+     * Équivalent en mémoire de {@code existsByEmployeAndTypeAndSousType}.
+     */
+    public boolean contientTypeEtSousType(Long employeId, TypeElement type, String sousType) {
+        return elements.getOrDefault(employeId, List.of()).stream()
+                .anyMatch(e -> e.getType() == type && Objects.equals(e.getSousType(), sousType));
+    }
+
+    public void ajouterElement(Long employeId, ElementPaie elementPaie) {
+        elements.computeIfAbsent(employeId, k -> new ArrayList<>()).add(elementPaie);
+    }
+
+    public void marquerFicheGeneree(Long employeId) {
+        employesAvecFiche.add(employeId);
+    }
+}
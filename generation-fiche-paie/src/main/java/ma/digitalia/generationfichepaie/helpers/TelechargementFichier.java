@@ -0,0 +1,94 @@
+package ma.digitalia.generationfichepaie.helpers;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Réponse HTTP de téléchargement d'un fichier du disque : ETag / 304, une plage d'octets (206 / 416)
+ * et copie par {@link FileChannel#transferTo} sans passer par un tableau en mémoire.
+ */
+public final class TelechargementFichier {
+
+    private static final Pattern PLAGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private TelechargementFichier() {
+    }
+
+    public static ResponseEntity<StreamingResponseBody> reponse(Path fichier, String etag, MediaType type, String nomFichier,
+                                                                String ifNoneMatch, String range) {
+        long taille;
+        try {
+            taille = Files.size(fichier);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fichier introuvable : " + fichier, e);
+        }
+        String etagEntete = "\"" + etag + "\"";
+
+        if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(etagEntete))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etagEntete).build();
+        }
+
+        long debut = 0;
+        long fin = taille - 1;
+        boolean partiel = false;
+        Matcher matcher = range != null ? PLAGE.matcher(range.trim()) : null;
+        // une seule plage est prise en charge ; une demande multi-plages reçoit le fichier entier
+        if (matcher != null && matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            if (matcher.group(1).isEmpty()) {
+                debut = Math.max(0, taille - Long.parseLong(matcher.group(2)));
+            } else {
+                debut = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    fin = Math.min(fin, Long.parseLong(matcher.group(2)));
+                }
+            }
+            if (debut >= taille || debut > fin) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + taille)
+                        .build();
+            }
+            partiel = true;
+        }
+
+        long position = debut;
+        long longueur = fin - debut + 1;
+        StreamingResponseBody corps = sortie -> {
+            try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+                WritableByteChannel destination = Channels.newChannel(sortie);
+                long envoye = 0;
+                while (envoye < longueur) {
+                    long n = canal.transferTo(position + envoye, longueur - envoye, destination);
+                    if (n <= 0) {
+                        break;
+                    }
+                    envoye += n;
+                }
+            }
+        };
+
+        ResponseEntity.BodyBuilder reponse = ResponseEntity.status(partiel ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .eTag(etagEntete)
+                .contentType(type)
+                .contentLength(longueur)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + nomFichier);
+        if (partiel) {
+            reponse.header(HttpHeaders.CONTENT_RANGE, "bytes " + position + "-" + fin + "/" + taille);
+        }
+        return reponse.body(corps);
+    }
+}
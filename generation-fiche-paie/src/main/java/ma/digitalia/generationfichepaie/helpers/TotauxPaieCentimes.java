@@ -0,0 +1,92 @@
+package ma.digitalia.generationfichepaie.helpers;
+
+import java.math.BigDecimal;
+
+/**
+ * Totaux d'une fiche de paie calculés par {@link CalculPaieCentimes}, en entiers à échelle fixe :
+ * montants saisis en centimes ({@value #ECHELLE_MONTANT} décimales), cotisations (montant × taux)
+ * à {@value #ECHELLE_COTISATION} décimales. Les valeurs sont exactes : converties en {@link BigDecimal},
+ * elles sont égales (au sens de {@code compareTo}) à celles du calcul en {@code BigDecimal}.
+ */
+public record TotauxPaieCentimes(
+        long salaireBrut,
+        long salaireBrutImposable,
+        long baseCNSSSalariale,
+        long baseCNSSPatronale,
+        long cotisationCNSS,
+        long cotisationAMO,
+        long cotisationCNSSPatronale,
+        long cotisationAMOPatronale,
+        long cotisationFormationPro,
+        long cotisationAllocationsFamiliales,
+        long impotSurLeRevenu
+) {
+    public static final int ECHELLE_MONTANT = 2;
+    public static final int ECHELLE_COTISATION = 6;
+
+    /** Facteur entre un montant en centimes et une cotisation */
+    private static final long CENTIMES_VERS_COTISATION = 10_000L;
+
+    public BigDecimal getSalaireBrut() {
+        return BigDecimal.valueOf(salaireBrut, ECHELLE_MONTANT);
+    }
+
+    public BigDecimal getSalaireBrutImposable() {
+        return BigDecimal.valueOf(salaireBrutImposable, ECHELLE_MONTANT);
+    }
+
+    public BigDecimal getBaseCNSSSalariale() {
+        return BigDecimal.valueOf(baseCNSSSalariale, ECHELLE_MONTANT);
+    }
+
+    public BigDecimal getBaseCNSSPatronale() {
+        return BigDecimal.valueOf(baseCNSSPatronale, ECHELLE_MONTANT);
+    }
+
+    public BigDecimal getCotisationCNSS() {
+        return BigDecimal.valueOf(cotisationCNSS, ECHELLE_COTISATION);
+    }
+
+    public BigDecimal getCotisationAMO() {
+        return BigDecimal.valueOf(cotisationAMO, ECHELLE_COTISATION);
+    }
+
+    public BigDecimal getCotisationCNSSPatronale() {
+        return BigDecimal.valueOf(cotisationCNSSPatronale, ECHELLE_COTISATION);
+    }
+
+    public BigDecimal getCotisationAMOPatronale() {
+        return BigDecimal.valueOf(cotisationAMOPatronale, ECHELLE_COTISATION);
+    }
+
+    public BigDecimal getCotisationFormationPro() {
+        return BigDecimal.valueOf(cotisationFormationPro, ECHELLE_COTISATION);
+    }
+
+    public BigDecimal getCotisationAllocationsFamiliales() {
+        return BigDecimal.valueOf(cotisationAllocationsFamiliales, ECHELLE_COTISATION);
+    }
+
+    public BigDecimal getCotisationsSalariales() {
+        return BigDecimal.valueOf(cotisationCNSS + cotisationAMO, ECHELLE_COTISATION);
+    }
+
+    public BigDecimal getCotisationsPatronales() {
+        return BigDecimal.valueOf(cotisationCNSSPatronale + cotisationAMOPatronale + cotisationFormationPro
+                + cotisationAllocationsFamiliales, ECHELLE_COTISATION);
+    }
+
+    public BigDecimal getSalaireNetImposable() {
+        return BigDecimal.valueOf(salaireBrutImposable * CENTIMES_VERS_COTISATION - cotisationCNSS - cotisationAMO,
+                ECHELLE_COTISATION);
+    }
+
+    public BigDecimal getImpotSurLeRevenu() {
+        return BigDecimal.valueOf(impotSurLeRevenu, ECHELLE_MONTANT);
+    }
+
+    public BigDecimal getSalaireNet() {
+        return BigDecimal.valueOf((salaireBrutImposable - impotSurLeRevenu) * CENTIMES_VERS_COTISATION
+                - cotisationCNSS - cotisationAMO, ECHELLE_COTISATION);
+    }
+}
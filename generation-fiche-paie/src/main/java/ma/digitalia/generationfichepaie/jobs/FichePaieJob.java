@@ -1,38 +1,34 @@
 package ma.digitalia.suividutemps.jobs;
 
 import lombok.extern.slf4j.Slf4j;
-import ma.digitalia.generationfichepaie.services.GenerationFichePaieService;
-import ma.digitalia.gestionutilisateur.entities.Employe;
-import ma.digitalia.gestionutilisateur.services.EmployeService;
+import ma.digitalia.generationfichepaie.Enum.StrategiePartition;
+import ma.digitalia.generationfichepaie.dto.run.PayrollRunSummaryDto;
+import ma.digitalia.generationfichepaie.services.PayrollRunService;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.springframework.stereotype.Component;
 
 import java.time.YearMonth;
-import java.util.List;
 
 @Slf4j
 @Component
 public class FichePaieJob implements Job {
 
-    private final GenerationFichePaieService generationFichePaieService;
-    private final EmployeService employeService;
+    private final PayrollRunService payrollRunService;
 
-    public FichePaieJob(GenerationFichePaieService generationFichePaieService, EmployeService employeService) {
-        this.generationFichePaieService = generationFichePaieService;
-        this.employeService = employeService;
+    public FichePaieJob(PayrollRunService payrollRunService) {
+        this.payrollRunService = payrollRunService;
     }
 
     @Override
     public void execute(JobExecutionContext context) {
         try {
-            List<Employe> employes = employeService.findAll();
-            YearMonth month = YearMonth.now();
-            for (Employe employe: employes) {
-                generationFichePaieService.genererFichePaie(employe.getId(), month);
+            PayrollRunSummaryDto bilan = payrollRunService.lancerPaie(YearMonth.now(), StrategiePartition.PAR_DEPARTEMENT);
+            if (bilan.getEchecs() > 0) {
+                log.warn("Paie {} : {} employés en échec : {}", bilan.getPeriode(), bilan.getEchecs(), bilan.getErreurs().keySet());
             }
         } catch (Exception e) {
-            log.error("Erreur lors de l'exécution du job RapportMensuelJob", e);
+            log.error("Erreur lors de l'exécution du job FichePaieJob", e);
         }
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 
 public interface ElementPaieRepository extends JpaRepository<ElementPaie, Long> {
@@ -19,8 +20,8 @@ public interface ElementPaieRepository extends JpaRepository<ElementPaie, Long>
 
     List<ElementPaie> findByEmploye(Employe employe);
 
-
-    boolean existsByEmployeAndLibelleContaining(Employe employe,String libelle);
+    @Query("SELECT ep FROM ElementPaie ep JOIN FETCH ep.employe LEFT JOIN FETCH ep.fichePaie WHERE ep.employe.Id IN :employeIds")
+    List<ElementPaie> findByEmployeIdIn(@Param("employeIds") Collection<Long> employeIds);
 
     @Query("SELECT ep.sousType, SUM(ep.montant), COUNT(ep) FROM ElementPaie ep WHERE ep.type = :type AND ep.fichePaie.periode = :periode GROUP BY ep.sousType")
     List<Object[]> getVariableElementsByTypeAndPeriode(@Param("type") TypeElement type, @Param("periode") YearMonth periode);
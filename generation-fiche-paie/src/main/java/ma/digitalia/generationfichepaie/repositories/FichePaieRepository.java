@@ -1,14 +1,22 @@
 package ma.digitalia.generationfichepaie.repositories;
 
+import ma.digitalia.generationfichepaie.Enum.StatutPaie;
+import ma.digitalia.generationfichepaie.dto.historique.FichePaieResumeDto;
+import ma.digitalia.generationfichepaie.dto.validation.ElementValidationDto;
+import ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto;
 import ma.digitalia.generationfichepaie.entities.FichePaie;
 import ma.digitalia.gestionutilisateur.entities.Employe;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 import java.time.YearMonth;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FichePaieRepository extends JpaRepository<FichePaie, Long> {
@@ -16,6 +24,78 @@ public interface FichePaieRepository extends JpaRepository<FichePaie, Long> {
 
     FichePaie findByEmployeAndPeriode(Employe employe, java.time.YearMonth periode);
 
+    @Query("SELECT COUNT(fp) > 0 FROM FichePaie fp WHERE fp.employe.Id = :employeId AND fp.periode = :periode")
+    boolean existsByEmployeIdAndPeriode(@Param("employeId") Long employeId, @Param("periode") YearMonth periode);
+
+    @Query("SELECT fp.id FROM FichePaie fp WHERE fp.employe.Id = :employeId AND fp.periode = :periode")
+    Optional<Long> findIdByEmployeIdAndPeriode(@Param("employeId") Long employeId, @Param("periode") YearMonth periode);
+
+    @Query("SELECT fp FROM FichePaie fp WHERE fp.employe.Id = :employeId AND fp.periode = :periode")
+    Optional<FichePaie> findByEmployeIdAndPeriode(@Param("employeId") Long employeId, @Param("periode") YearMonth periode);
+
+    @Query("SELECT fp.employe.Id FROM FichePaie fp WHERE fp.employe.Id IN :employeIds AND fp.periode = :periode")
+    List<Long> findEmployeIdsAvecFiche(@Param("employeIds") Collection<Long> employeIds, @Param("periode") YearMonth periode);
+
+    @Query("SELECT fp FROM FichePaie fp WHERE fp.employe.Id IN :employeIds AND fp.periode = :periode")
+    List<FichePaie> findByEmployeIdInAndPeriode(@Param("employeIds") Collection<Long> employeIds, @Param("periode") YearMonth periode);
+
+    /**
+     * Employés dont la fiche de la période est antérieure à la dernière modification de leurs données
+     * ({@code periodeCle} : la période au format AAAA-MM de {@code modification_paie}, {@code toutesPeriodes} : la portée globale).
+     */
+    @Query("SELECT DISTINCT fp.employe.Id FROM FichePaie fp, ModificationPaie m WHERE m.employeId = fp.employe.Id " +
+            "AND fp.periode = :periode AND (m.periode = :periodeCle OR m.periode = :toutesPeriodes) " +
+            "AND (fp.dateGeneration IS NULL OR m.dateModification > fp.dateGeneration) ORDER BY fp.employe.Id")
+    List<Long> findEmployeIdsModifiesDepuisGeneration(@Param("periode") YearMonth periode, @Param("periodeCle") String periodeCle,
+                                                     @Param("toutesPeriodes") String toutesPeriodes);
+
+    @Query("SELECT fp.id FROM FichePaie fp WHERE fp.pdfStatus = ma.digitalia.generationfichepaie.Enum.StatutPdf.EN_ATTENTE " +
+            "OR (fp.pdfStatus = ma.digitalia.generationfichepaie.Enum.StatutPdf.ECHEC AND fp.pdfTentatives < :maxTentatives) ORDER BY fp.id")
+    List<Long> findIdsPdfARendre(@Param("maxTentatives") int maxTentatives, Pageable pageable);
+
+    @Query("SELECT fp.id, fp.employe.Id, fp.employe.numeroEmploye, fp.pdfRef, fp.pdfStatus FROM FichePaie fp " +
+            "WHERE fp.periode = :periode AND fp.id > :apresId ORDER BY fp.id")
+    List<Object[]> findPdfsByPeriodeApres(@Param("periode") YearMonth periode, @Param("apresId") Long apresId, Pageable pageable);
+
+    @Query("SELECT new ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto(fp.id, fp.periode, fp.salaireBrut, " +
+            "fp.salaireNet, fp.cotisationsSalariales, fp.cotisationsPatronales, fp.dateGeneration) FROM FichePaie fp " +
+            "WHERE fp.periode = :periode AND fp.id > :apresId ORDER BY fp.id")
+    List<FicheValidationDto> findValidationByPeriodeApres(@Param("periode") YearMonth periode, @Param("apresId") Long apresId, Pageable pageable);
+
+    @Query("SELECT new ma.digitalia.generationfichepaie.dto.validation.ElementValidationDto(fp.id, INDEX(l), l.montant, l.libelle, l.type) " +
+            "FROM FichePaie fp JOIN fp.lignes l WHERE fp.id IN :ficheIds")
+    List<ElementValidationDto> findLignesValidationByFicheIdIn(@Param("ficheIds") Collection<Long> ficheIds);
+
+    @Query("SELECT new ma.digitalia.generationfichepaie.dto.historique.FichePaieResumeDto(fp.id, fp.employe.Id, fp.periode, " +
+            "fp.salaireBrut, fp.salaireNet, fp.cotisationsSalariales, fp.impotSurLeRevenu, fp.statut, fp.pdfStatus, fp.dateGeneration) " +
+            "FROM FichePaie fp WHERE fp.employe.Id IN :employeIds ORDER BY fp.periode DESC, fp.id DESC")
+    List<FichePaieResumeDto> findResumesByEmployeIdIn(@Param("employeIds") Collection<Long> employeIds, Pageable pageable);
+
+    /**
+     * Page suivante de l'historique, après la fiche {@code (periode, id)} dans l'ordre des périodes décroissantes.
+     */
+    @Query("SELECT new ma.digitalia.generationfichepaie.dto.historique.FichePaieResumeDto(fp.id, fp.employe.Id, fp.periode, " +
+            "fp.salaireBrut, fp.salaireNet, fp.cotisationsSalariales, fp.impotSurLeRevenu, fp.statut, fp.pdfStatus, fp.dateGeneration) " +
+            "FROM FichePaie fp WHERE fp.employe.Id IN :employeIds " +
+            "AND (fp.periode < :periode OR (fp.periode = :periode AND fp.id < :id)) ORDER BY fp.periode DESC, fp.id DESC")
+    List<FichePaieResumeDto> findResumesByEmployeIdInAvant(@Param("employeIds") Collection<Long> employeIds, @Param("periode") YearMonth periode,
+                                                          @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT new ma.digitalia.generationfichepaie.dto.historique.FichePaieResumeDto(fp.id, fp.employe.Id, fp.periode, " +
+            "fp.salaireBrut, fp.salaireNet, fp.cotisationsSalariales, fp.impotSurLeRevenu, fp.statut, fp.pdfStatus, fp.dateGeneration) " +
+            "FROM FichePaie fp WHERE fp.periode = :periode AND fp.id > :apresId ORDER BY fp.id")
+    List<FichePaieResumeDto> findResumesByPeriodeApres(@Param("periode") YearMonth periode, @Param("apresId") Long apresId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE FichePaie fp SET fp.statut = :statut WHERE fp.periode = :periode")
+    int updateStatutByPeriode(@Param("periode") YearMonth periode, @Param("statut") StatutPaie statut);
+
+    @Modifying
+    @Query("UPDATE FichePaie fp SET fp.pdfStatus = ma.digitalia.generationfichepaie.Enum.StatutPdf.ECHEC, " +
+            "fp.pdfTentatives = COALESCE(fp.pdfTentatives, 0) + 1, fp.pdfErreur = :erreur WHERE fp.id = :id " +
+            "AND (fp.pdfStatus IS NULL OR fp.pdfStatus <> ma.digitalia.generationfichepaie.Enum.StatutPdf.GENERE)")
+    int marquerEchecPdf(@Param("id") Long id, @Param("erreur") String erreur);
+
     @Query("SELECT SUM(fp.salaireBrut) FROM FichePaie fp WHERE fp.periode = :periode")
     BigDecimal getMasseSalarialeByPeriode(@Param("periode") YearMonth periode);
 
@@ -56,6 +136,22 @@ public interface FichePaieRepository extends JpaRepository<FichePaie, Long> {
     @Query("SELECT SUM(fp.impotSurLeRevenu) FROM FichePaie fp WHERE fp.periode = :periode")
     BigDecimal getTotalImpotsByPeriode(@Param("periode") YearMonth periode);
 
+    @Query("SELECT fp.periode, COALESCE(fp.departementAgrege, m.department), COUNT(fp), " +
+            "SUM(CASE WHEN fp.salaireNet IS NULL OR fp.salaireNet <= 0 OR fp.salaireBrut IS NULL OR fp.salaireBrut <= 0 " +
+            "OR fp.salaireNet > fp.salaireBrut THEN 1 ELSE 0 END), " +
+            "SUM(fp.salaireBrut), SUM(fp.salaireBrutImposable), SUM(fp.cotisationsSalariales), SUM(fp.cotisationsPatronales), " +
+            "SUM(fp.salaireNetImposable), SUM(fp.salaireNet), SUM(fp.impotSurLeRevenu) " +
+            "FROM FichePaie fp JOIN fp.employe e LEFT JOIN e.manager m GROUP BY fp.periode, COALESCE(fp.departementAgrege, m.department)")
+    List<Object[]> getAgregatsParPeriodeEtDepartement();
+
+    @Query("SELECT COUNT(fp), " +
+            "SUM(CASE WHEN fp.salaireNet IS NULL OR fp.salaireNet <= 0 OR fp.salaireBrut IS NULL OR fp.salaireBrut <= 0 " +
+            "OR fp.salaireNet > fp.salaireBrut THEN 1 ELSE 0 END), " +
+            "SUM(fp.salaireBrut), SUM(fp.salaireBrutImposable), SUM(fp.cotisationsSalariales), SUM(fp.cotisationsPatronales), " +
+            "SUM(fp.salaireNetImposable), SUM(fp.salaireNet), SUM(fp.impotSurLeRevenu) " +
+            "FROM FichePaie fp WHERE fp.periode = :periode")
+    List<Object[]> getAgregatsByPeriode(@Param("periode") YearMonth periode);
+
     @Query("SELECT fp.employe.poste, COUNT(fp), AVG(fp.salaireNet), MIN(fp.salaireNet), MAX(fp.salaireNet) FROM FichePaie fp WHERE fp.periode = :periode GROUP BY fp.employe.poste")
     List<Object[]> getSalaryDistributionByPoste(@Param("periode") YearMonth periode);
 
@@ -68,6 +164,19 @@ public interface FichePaieRepository extends JpaRepository<FichePaie, Long> {
     @Query("SELECT COUNT(fp) FROM FichePaie fp WHERE fp.periode = :periode AND fp.employe.poste NOT LIKE '%cadre%' AND fp.employe.poste NOT LIKE '%technicien%'")
     long countEmployesByPeriode(@Param("periode") YearMonth periode);
 
-    @Query("SELECT fp.salaireBrut FROM FichePaie fp WHERE fp.employe.manager.department = :departement AND fp.periode = :periode")
-    List<Object[]> getSalariesByDepartmentAndPeriode(@Param("departement") String departement, @Param("periode") YearMonth periode);
+    /**
+     * Histogramme des salaires bruts de la période en une seule requête : une ligne par département avec
+     * le nombre de fiches dans chacune des cinq tranches délimitées par les bornes (borne basse incluse).
+     * @return Liste d'objets contenant : [departement, tranche1, tranche2, tranche3, tranche4, tranche5]
+     */
+    @Query("SELECT m.department, " +
+            "SUM(CASE WHEN fp.salaireBrut IS NULL OR fp.salaireBrut < :borne1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN fp.salaireBrut >= :borne1 AND fp.salaireBrut < :borne2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN fp.salaireBrut >= :borne2 AND fp.salaireBrut < :borne3 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN fp.salaireBrut >= :borne3 AND fp.salaireBrut < :borne4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN fp.salaireBrut >= :borne4 THEN 1 ELSE 0 END) " +
+            "FROM FichePaie fp JOIN fp.employe e LEFT JOIN e.manager m WHERE fp.periode = :periode GROUP BY m.department")
+    List<Object[]> getSalaryHistogramByDepartment(@Param("periode") YearMonth periode,
+                                                  @Param("borne1") BigDecimal borne1, @Param("borne2") BigDecimal borne2,
+                                                  @Param("borne3") BigDecimal borne3, @Param("borne4") BigDecimal borne4);
 }
@@ -0,0 +1,15 @@
+package ma.digitalia.generationfichepaie.repositories;
+
+import ma.digitalia.generationfichepaie.entities.PayrollPeriodSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PayrollPeriodSummaryRepository extends JpaRepository<PayrollPeriodSummary, Long> {
+
+    List<PayrollPeriodSummary> findByPeriode(String periode);
+
+    List<PayrollPeriodSummary> findByPeriodeBetweenOrderByPeriode(String debut, String fin);
+}
@@ -0,0 +1,36 @@
+package ma.digitalia.generationfichepaie.repositories;
+
+import ma.digitalia.generationfichepaie.Enum.StatutRunItem;
+import ma.digitalia.generationfichepaie.entities.PayrollRunItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PayrollRunItemRepository extends JpaRepository<PayrollRunItem, Long> {
+
+    @Query("SELECT i.employeId FROM PayrollRunItem i WHERE i.run.id = :runId")
+    List<Long> findEmployeIdsByRunId(@Param("runId") Long runId);
+
+    @Query("SELECT i.employeId FROM PayrollRunItem i WHERE i.run.id = :runId AND i.statut <> :statut")
+    List<Long> findEmployeIdsByRunIdAndStatutNot(@Param("runId") Long runId, @Param("statut") StatutRunItem statut);
+
+    long countByRunIdAndStatut(Long runId, StatutRunItem statut);
+
+    @Modifying
+    @Query("UPDATE PayrollRunItem i SET i.statut = :statut, i.tentatives = i.tentatives + 1, i.derniereErreur = :erreur, " +
+            "i.dateMaj = CURRENT_TIMESTAMP WHERE i.run.id = :runId AND i.employeId = :employeId")
+    int updateStatut(@Param("runId") Long runId, @Param("employeId") Long employeId,
+                     @Param("statut") StatutRunItem statut, @Param("erreur") String erreur);
+
+    @Modifying
+    @Query("UPDATE PayrollRunItem i SET i.statut = :statut, i.tentatives = i.tentatives + 1, i.derniereErreur = NULL, " +
+            "i.dateMaj = CURRENT_TIMESTAMP WHERE i.run.id = :runId AND i.employeId IN :employeIds")
+    int updateStatutEnMasse(@Param("runId") Long runId, @Param("employeIds") Collection<Long> employeIds,
+                            @Param("statut") StatutRunItem statut);
+}
@@ -0,0 +1,14 @@
+package ma.digitalia.generationfichepaie.repositories;
+
+import ma.digitalia.generationfichepaie.entities.PayrollRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+@Repository
+public interface PayrollRunRepository extends JpaRepository<PayrollRun, Long> {
+
+    Optional<PayrollRun> findByPeriode(YearMonth periode);
+}
@@ -0,0 +1,11 @@
+package ma.digitalia.generationfichepaie.repositories;
+
+import ma.digitalia.generationfichepaie.entities.PeriodePaieCloturee;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PeriodePaieClotureeRepository extends JpaRepository<PeriodePaieCloturee, Long> {
+
+    boolean existsByPeriode(String periode);
+}
@@ -0,0 +1,23 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.dto.bareme.BaremePaie;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface BaremePaieService {
+
+    /**
+     * Récupérer le barème en vigueur pour une période (le dernier dont la date d'effet précède la fin du mois)
+     * @param periode la période de paie
+     * @return le barème applicable
+     * @throws IllegalStateException si aucun barème n'est en vigueur pour cette période
+     */
+    BaremePaie getBareme(YearMonth periode);
+
+    /**
+     * Récupérer tous les barèmes chargés, par date d'effet croissante
+     * @return la liste des barèmes
+     */
+    List<BaremePaie> getBaremes();
+}
@@ -0,0 +1,64 @@
+package ma.digitalia.generationfichepaie.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.dto.bareme.BaremePaie;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+@Slf4j
+@Service
+public class BaremePaieServiceImpl implements BaremePaieService {
+
+    private final ObjectMapper objectMapper;
+    private final Resource fichierBaremes;
+
+    private volatile NavigableMap<LocalDate, BaremePaie> baremes = new TreeMap<>();
+
+    public BaremePaieServiceImpl(ObjectMapper objectMapper,
+                                 @Value("${paie.baremes.fichier:classpath:baremes-paie.json}") Resource fichierBaremes) {
+        this.objectMapper = objectMapper;
+        this.fichierBaremes = fichierBaremes;
+    }
+
+    @PostConstruct
+    public void charger() throws IOException {
+        try (InputStream in = fichierBaremes.getInputStream()) {
+            List<BaremePaie> liste = objectMapper.readValue(in, new TypeReference<List<BaremePaie>>() {});
+            NavigableMap<LocalDate, BaremePaie> parDate = new TreeMap<>();
+            for (BaremePaie bareme : liste) {
+                if (parDate.put(bareme.dateEffet(), bareme) != null) {
+                    throw new IllegalStateException("Deux barèmes de paie ont la même date d'effet : " + bareme.dateEffet());
+                }
+            }
+            baremes = parDate;
+            log.info("{} barème(s) de paie chargé(s) depuis {} : {}", parDate.size(), fichierBaremes, parDate.keySet());
+        }
+    }
+
+    @Override
+    public BaremePaie getBareme(YearMonth periode) {
+        Map.Entry<LocalDate, BaremePaie> entree = baremes.floorEntry(periode.atEndOfMonth());
+        if (entree == null) {
+            throw new IllegalStateException("Aucun barème de paie en vigueur pour la période " + periode);
+        }
+        return entree.getValue();
+    }
+
+    @Override
+    public List<BaremePaie> getBaremes() {
+        return List.copyOf(baremes.values());
+    }
+}
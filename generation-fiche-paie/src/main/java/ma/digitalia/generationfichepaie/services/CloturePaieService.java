@@ -0,0 +1,39 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.entities.PayrollPeriodSummary;
+import ma.digitalia.generationfichepaie.entities.PeriodePaieCloturee;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+public interface CloturePaieService {
+
+    /**
+     * Clôturer une période : ses fiches passent au statut CLOTUREE et ses agrégats sont figés.
+     * Les fiches d'une période clôturée ne peuvent plus être générées ni recalculées.
+     * @param periode la période à clôturer
+     * @return les agrégats figés de la période
+     * @throws jakarta.persistence.EntityNotFoundException si la période n'a aucune fiche
+     * @throws IllegalStateException si la période est déjà clôturée ou si un lancement de paie est en cours
+     * depuis moins de {@code paie.cloture.run-perime-ms}
+     */
+    PeriodePaieCloturee cloturer(YearMonth periode);
+
+    boolean estCloturee(YearMonth periode);
+
+    /**
+     * Dans une transaction, verrouille aussi la période contre une clôture jusqu'à la fin de la transaction.
+     * @throws IllegalStateException si la période est clôturée
+     */
+    void verifierOuverte(YearMonth periode);
+
+    /**
+     * @return les agrégats figés de la période si elle est clôturée, lus en mémoire
+     */
+    Optional<PeriodePaieCloturee> getCloture(YearMonth periode);
+
+    /**
+     * @return les totaux figés de la période, au format des agrégats par période, si elle est clôturée
+     */
+    Optional<PayrollPeriodSummary> getTotauxFiges(YearMonth periode);
+}
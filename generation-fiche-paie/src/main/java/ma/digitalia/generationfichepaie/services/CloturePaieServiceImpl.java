@@ -0,0 +1,194 @@
+package ma.digitalia.generationfichepaie.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.StatutPaie;
+import ma.digitalia.generationfichepaie.Enum.StatutRun;
+import ma.digitalia.generationfichepaie.entities.PayrollPeriodSummary;
+import ma.digitalia.generationfichepaie.entities.PeriodePaieCloturee;
+import ma.digitalia.generationfichepaie.repositories.ElementPaieRepository;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import ma.digitalia.generationfichepaie.repositories.PayrollRunRepository;
+import ma.digitalia.generationfichepaie.repositories.PeriodePaieClotureeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Clôture des périodes de paie. La clôture et l'écriture des fiches d'une période s'excluent par un verrou
+ * consultatif PostgreSQL pris pour la durée de la transaction : exclusif pour la clôture, partagé pour
+ * la génération et le recalcul, qui peuvent ainsi s'exécuter en parallèle entre eux.
+ */
+@Slf4j
+@Service
+public class CloturePaieServiceImpl implements CloturePaieService {
+
+    // première clé des verrous consultatifs de période ("PAIE"), la seconde étant AAAAMM
+    private static final int VERROU_PERIODE = 0x50414945;
+
+    private final PeriodePaieClotureeRepository clotureRepository;
+    private final FichePaieRepository fichePaieRepository;
+    private final ElementPaieRepository elementPaieRepository;
+    private final PayrollRunRepository payrollRunRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long runPerimeMs;
+
+    /** Agrégats des périodes clôturées : immuables, jamais invalidés */
+    private final Map<YearMonth, PeriodePaieCloturee> clotures = new ConcurrentHashMap<>();
+
+    public CloturePaieServiceImpl(PeriodePaieClotureeRepository clotureRepository, FichePaieRepository fichePaieRepository,
+                                  ElementPaieRepository elementPaieRepository, PayrollRunRepository payrollRunRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  @Value("${paie.cloture.run-perime-ms:21600000}") long runPerimeMs) {
+        this.clotureRepository = clotureRepository;
+        this.fichePaieRepository = fichePaieRepository;
+        this.elementPaieRepository = elementPaieRepository;
+        this.payrollRunRepository = payrollRunRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.runPerimeMs = runPerimeMs;
+    }
+
+    @PostConstruct
+    public void charger() {
+        for (PeriodePaieCloturee cloture : clotureRepository.findAll()) {
+            clotures.put(YearMonth.parse(cloture.getPeriode()), cloture);
+        }
+        log.info("{} période(s) de paie clôturée(s) chargée(s)", clotures.size());
+    }
+
+    @Override
+    @Transactional
+    public PeriodePaieCloturee cloturer(YearMonth periode) {
+        // attend la fin des transactions qui écrivent des fiches de la période et bloque les suivantes
+        verrouiller("pg_advisory_xact_lock", periode);
+        if (estCloturee(periode) || clotureRepository.existsByPeriode(periode.toString())) {
+            throw new IllegalStateException("La période " + periode + " est déjà clôturée");
+        }
+        payrollRunRepository.findByPeriode(periode)
+                .filter(run -> run.getStatut() == StatutRun.EN_COURS)
+                .ifPresent(run -> {
+                    LocalDateTime limite = LocalDateTime.now().minus(Duration.ofMillis(runPerimeMs));
+                    if (run.getDateDebut() != null && run.getDateDebut().isAfter(limite)) {
+                        throw new IllegalStateException("Un lancement de paie est en cours pour la période " + periode);
+                    }
+                    // lancement interrompu (arrêt de l'application) : ses partitions restantes échoueront sur la clôture
+                    log.warn("Lancement de paie {} en cours depuis le {}, considéré interrompu", periode, run.getDateDebut());
+                    run.setStatut(StatutRun.ECHEC);
+                    run.setDateFin(LocalDateTime.now());
+                });
+
+        // totaux relus sur les fiches : ceux des agrégats sont en cache et pourraient précéder les dernières écritures
+        Object[] totaux = fichePaieRepository.getAgregatsByPeriode(periode).get(0);
+        long nombreFiches = ((Number) totaux[0]).longValue();
+        if (nombreFiches == 0) {
+            throw new EntityNotFoundException("Aucune fiche de paie pour la période : " + periode);
+        }
+        long fichesErronees = ((Number) totaux[1]).longValue();
+        long elementsErrones = elementPaieRepository.countElementsErroneesByPeriode(periode);
+
+        PeriodePaieCloturee cloture = new PeriodePaieCloturee();
+        cloture.setPeriode(periode.toString());
+        cloture.setDateCloture(LocalDateTime.now());
+        cloture.setNombreFiches(nombreFiches);
+        cloture.setNombreFichesErronees(fichesErronees);
+        cloture.setNombreElementsErrones(elementsErrones);
+        cloture.setSalaireBrut(montant(totaux[2]));
+        cloture.setSalaireBrutImposable(montant(totaux[3]));
+        cloture.setCotisationsSalariales(montant(totaux[4]));
+        cloture.setCotisationsPatronales(montant(totaux[5]));
+        cloture.setSalaireNetImposable(montant(totaux[6]));
+        cloture.setSalaireNet(montant(totaux[7]));
+        cloture.setImpotSurLeRevenu(montant(totaux[8]));
+        cloture.setTauxErreur(DashboardCalculationService.tauxErreur(nombreFiches, fichesErronees + elementsErrones));
+        clotureRepository.save(cloture);
+
+        int fiches = fichePaieRepository.updateStatutByPeriode(periode, StatutPaie.CLOTUREE);
+
+        // visible en mémoire seulement une fois la clôture validée en base
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clotures.put(periode, cloture);
+            }
+        });
+        log.info("Période de paie {} clôturée : {} fiches figées, masse salariale {}", periode, fiches, cloture.getSalaireBrut());
+        return cloture;
+    }
+
+    @Override
+    public boolean estCloturee(YearMonth periode) {
+        return clotures.containsKey(periode);
+    }
+
+    @Override
+    public void verifierOuverte(YearMonth periode) {
+        if (estCloturee(periode)) {
+            throw new IllegalStateException("La période de paie " + periode + " est clôturée");
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        // verrou partagé pris une fois par transaction : une clôture en cours est attendue, puis relue en base
+        String cle = "paie.periode.verrou." + periode;
+        if (TransactionSynchronizationManager.hasResource(cle)) {
+            return;
+        }
+        verrouiller("pg_advisory_xact_lock_shared", periode);
+        TransactionSynchronizationManager.bindResource(cle, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(cle);
+            }
+        });
+        if (clotureRepository.existsByPeriode(periode.toString())) {
+            throw new IllegalStateException("La période de paie " + periode + " est clôturée");
+        }
+    }
+
+    @Override
+    public Optional<PeriodePaieCloturee> getCloture(YearMonth periode) {
+        return Optional.ofNullable(clotures.get(periode));
+    }
+
+    @Override
+    public Optional<PayrollPeriodSummary> getTotauxFiges(YearMonth periode) {
+        return getCloture(periode).map(cloture -> {
+            PayrollPeriodSummary totaux = new PayrollPeriodSummary();
+            totaux.setPeriode(cloture.getPeriode());
+            totaux.setNombreFiches(cloture.getNombreFiches());
+            totaux.setNombreFichesErronees(cloture.getNombreFichesErronees());
+            totaux.setSalaireBrut(cloture.getSalaireBrut());
+            totaux.setSalaireBrutImposable(cloture.getSalaireBrutImposable());
+            totaux.setCotisationsSalariales(cloture.getCotisationsSalariales());
+            totaux.setCotisationsPatronales(cloture.getCotisationsPatronales());
+            totaux.setSalaireNetImposable(cloture.getSalaireNetImposable());
+            totaux.setSalaireNet(cloture.getSalaireNet());
+            totaux.setImpotSurLeRevenu(cloture.getImpotSurLeRevenu());
+            totaux.setDateMaj(cloture.getDateCloture());
+            return totaux;
+        });
+    }
+
+    private void verrouiller(String fonction, YearMonth periode) {
+        // la fonction ne renvoie rien : seule son exécution compte
+        jdbcTemplate.queryForList("SELECT " + fonction + "(?, ?)::text", String.class,
+                VERROU_PERIODE, periode.getYear() * 100 + periode.getMonthValue());
+    }
+
+    private static BigDecimal montant(Object valeur) {
+        return valeur != null ? (BigDecimal) valeur : BigDecimal.ZERO;
+    }
+}
@@ -2,9 +2,14 @@ package ma.digitalia.generationfichepaie.services;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.config.DashboardCacheConfig;
+import ma.digitalia.generationfichepaie.events.PeriodePaieModifieeEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
@@ -17,33 +22,62 @@ import java.util.List;
 public class DashboardCacheService {
 
     private final DashboardCalculationService calculationService;
+    private final CacheManager cacheManager;
 
-    @Cacheable(value = "masseSalariale", key = "#periode.toString()")
+    @Cacheable(value = DashboardCacheConfig.CACHE_MASSE_SALARIALE, key = "#periode.toString()")
     public BigDecimal getCachedMasseSalariale(YearMonth periode) {
         log.debug("Calcul et mise en cache de la masse salariale pour {}", periode);
         return calculationService.calculateMasseSalariale(periode);
     }
 
-    @Cacheable(value = "tauxErreur", key = "#periode.toString()")
+    @Cacheable(value = DashboardCacheConfig.CACHE_TAUX_ERREUR, key = "#periode.toString()")
     public BigDecimal getCachedTauxErreur(YearMonth periode) {
         log.debug("Calcul et mise en cache du taux d'erreur pour {}", periode);
         return calculationService.calculateTauxErreur(periode);
     }
 
-    @Cacheable(value = "salaryEvolution", key = "#startPeriod.toString() + '_' + #endPeriod.toString()")
+    @Cacheable(value = DashboardCacheConfig.CACHE_SALARY_EVOLUTION, key = "#startPeriod.toString() + '_' + #endPeriod.toString()")
     public List<Object[]> getCachedSalaryEvolution(YearMonth startPeriod, YearMonth endPeriod) {
         log.debug("Calcul et mise en cache de l'évolution salariale de {} à {}", startPeriod, endPeriod);
         return calculationService.getSalaryEvolutionData(startPeriod, endPeriod);
     }
 
-    @CacheEvict(value = {"masseSalariale", "tauxErreur", "salaryEvolution"}, allEntries = true)
-    public void evictAllCaches() {
-        log.info("Nettoyage de tous les caches du dashboard");
+    /**
+     * Invalide, après validation de la transaction, les entrées de la période dont une fiche a changé.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPeriodePaieModifiee(PeriodePaieModifieeEvent event) {
+        evictPeriode(event.periode());
+    }
+
+    /**
+     * Invalide les entrées qui dépendent de la période : valeurs de la période et évolutions qui l'incluent.
+     */
+    public void evictPeriode(YearMonth periode) {
+        String cle = periode.toString();
+        evict(DashboardCacheConfig.CACHE_MASSE_SALARIALE, cle);
+        evict(DashboardCacheConfig.CACHE_TAUX_ERREUR, cle);
+        evict(DashboardCacheConfig.CACHE_TOTAUX_PERIODE, cle);
+        Cache evolution = cacheManager.getCache(DashboardCacheConfig.CACHE_SALARY_EVOLUTION);
+        if (evolution instanceof CaffeineCache caffeineCache) {
+            caffeineCache.getNativeCache().asMap().keySet().removeIf(intervalle -> contient((String) intervalle, periode));
+        } else if (evolution != null) {
+            evolution.clear();
+        }
+        log.debug("Caches du dashboard invalidés pour la période {}", periode);
+    }
+
+    private void evict(String nomCache, String cle) {
+        Cache cache = cacheManager.getCache(nomCache);
+        if (cache != null) {
+            cache.evict(cle);
+        }
     }
 
-    @CacheEvict(value = "masseSalariale", key = "#periode.toString()")
-    public void evictMasseSalarialeCache(YearMonth periode) {
-        log.debug("Nettoyage du cache masse salariale pour {}", periode);
+    // clé "debut_fin" des entrées d'évolution salariale
+    private static boolean contient(String intervalle, YearMonth periode) {
+        String[] bornes = intervalle.split("_");
+        return !periode.isBefore(YearMonth.parse(bornes[0])) && !periode.isAfter(YearMonth.parse(bornes[1]));
     }
 
     /**
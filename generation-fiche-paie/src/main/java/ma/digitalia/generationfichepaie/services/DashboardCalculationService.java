@@ -3,6 +3,8 @@ package ma.digitalia.generationfichepaie.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ma.digitalia.generationfichepaie.Enum.TypeElement;
+import ma.digitalia.generationfichepaie.entities.PayrollPeriodSummary;
+import ma.digitalia.generationfichepaie.entities.PeriodePaieCloturee;
 import ma.digitalia.generationfichepaie.repositories.ElementPaieRepository;
 import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
 import ma.digitalia.gestionutilisateur.repositories.EmployeRepository;
@@ -11,8 +13,12 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -22,11 +28,29 @@ public class DashboardCalculationService {
     private final FichePaieRepository fichePaieRepository;
     private final ElementPaieRepository elementPaieRepository;
     private final EmployeRepository employeRepository;
+    private final PayrollPeriodSummaryService summaryService;
+    private final CloturePaieService cloturePaieService;
+
+    /**
+     * Totaux de la période : figés en mémoire si elle est clôturée, sinon lus dans les agrégats courants.
+     */
+    public PayrollPeriodSummary getTotauxPeriode(YearMonth periode) {
+        return cloturePaieService.getTotauxFiges(periode).orElseGet(() -> summaryService.getTotaux(periode));
+    }
+
+    public static BigDecimal tauxErreur(long totalFiches, long erreurs) {
+        if (totalFiches == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(erreurs)
+                .divide(BigDecimal.valueOf(totalFiches), 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
 
     public BigDecimal calculateMasseSalariale(YearMonth periode) {
         try {
-            BigDecimal masse = fichePaieRepository.getMasseSalarialeByPeriode(periode);
-            return masse != null ? masse : BigDecimal.ZERO;
+            return getTotauxPeriode(periode).getSalaireBrut();
         } catch (Exception e) {
             log.error("Erreur lors du calcul de la masse salariale pour la période {}: {}", periode, e.getMessage());
             return BigDecimal.ZERO;
@@ -54,18 +78,20 @@ public class DashboardCalculationService {
 
     public BigDecimal calculateTauxErreur(YearMonth periode) {
         try {
-            long totalFiches = fichePaieRepository.countTotalFichesByPeriode(periode);
-            long fichesErronees = fichePaieRepository.countFichesErroneesByPeriode(periode);
-            long elementsErronees = elementPaieRepository.countElementsErroneesByPeriode(periode);
+            Optional<PeriodePaieCloturee> cloture = cloturePaieService.getCloture(periode);
+            if (cloture.isPresent()) {
+                return cloture.get().getTauxErreur();
+            }
 
+            PayrollPeriodSummary totaux = summaryService.getTotaux(periode);
+            long totalFiches = totaux.getNombreFiches();
             if (totalFiches == 0) {
                 return BigDecimal.ZERO;
             }
+            long fichesErronees = totaux.getNombreFichesErronees();
+            long elementsErronees = elementPaieRepository.countElementsErroneesByPeriode(periode);
 
-            return BigDecimal.valueOf(fichesErronees + elementsErronees)
-                    .divide(BigDecimal.valueOf(totalFiches), 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100))
-                    .setScale(2, RoundingMode.HALF_UP);
+            return tauxErreur(totalFiches, fichesErronees + elementsErronees);
         } catch (Exception e) {
             log.error("Erreur lors du calcul du taux d'erreur pour la période {}: {}", periode, e.getMessage());
             return BigDecimal.ZERO;
@@ -74,7 +100,7 @@ public class DashboardCalculationService {
 
     public BigDecimal calculateCoutParBulletin(YearMonth periode) {
         try {
-            long totalFiches = fichePaieRepository.countTotalFichesByPeriode(periode);
+            long totalFiches = getTotauxPeriode(periode).getNombreFiches();
             if (totalFiches == 0) {
                 return BigDecimal.ZERO;
             }
@@ -118,7 +144,32 @@ public class DashboardCalculationService {
 
     public List<Object[]> getSalaryEvolutionData(YearMonth startPeriod, YearMonth endPeriod) {
         try {
-            return fichePaieRepository.getMasseSalarialeEvolution(startPeriod, endPeriod);
+            // périodes clôturées lues en mémoire, seules les périodes ouvertes sont interrogées
+            TreeMap<YearMonth, PayrollPeriodSummary> parPeriode = new TreeMap<>();
+            YearMonth premiereOuverte = null;
+            YearMonth derniereOuverte = null;
+            for (YearMonth periode = startPeriod; !periode.isAfter(endPeriod); periode = periode.plusMonths(1)) {
+                Optional<PayrollPeriodSummary> figes = cloturePaieService.getTotauxFiges(periode);
+                if (figes.isPresent()) {
+                    parPeriode.put(periode, figes.get());
+                } else {
+                    if (premiereOuverte == null) {
+                        premiereOuverte = periode;
+                    }
+                    derniereOuverte = periode;
+                }
+            }
+            if (premiereOuverte != null) {
+                for (PayrollPeriodSummary totaux : summaryService.getTotauxEntre(premiereOuverte, derniereOuverte)) {
+                    parPeriode.putIfAbsent(YearMonth.parse(totaux.getPeriode()), totaux);
+                }
+            }
+
+            List<Object[]> evolution = new ArrayList<>();
+            for (PayrollPeriodSummary totaux : parPeriode.values()) {
+                evolution.add(new Object[]{YearMonth.parse(totaux.getPeriode()), totaux.getSalaireBrut(), totaux.getNombreFiches()});
+            }
+            return evolution;
         } catch (Exception e) {
             log.error("Erreur lors de la récupération de l'évolution salariale: {}", e.getMessage());
             return List.of();
@@ -136,18 +187,28 @@ public class DashboardCalculationService {
 
     public List<Object[]> getSalaryDistributionByDepartment(YearMonth periode) {
         try {
-            return employeRepository.getSalaryDistributionByDepartment(periode);
+            // effectifs actifs par département, masse salariale lue dans les agrégats de la période
+            Map<String, BigDecimal> masseParDepartement = summaryService.getResumes(periode).stream()
+                    .collect(Collectors.toMap(PayrollPeriodSummary::getDepartement, PayrollPeriodSummary::getSalaireBrut));
+            List<Object[]> distribution = new ArrayList<>();
+            for (Object[] ligne : employeRepository.countActiveEmployesByDepartment()) {
+                String departement = (String) ligne[0];
+                long nombreEmployes = ((Number) ligne[1]).longValue();
+                distribution.add(new Object[]{departement, nombreEmployes,
+                        masseParDepartement.getOrDefault(departement, BigDecimal.ZERO)});
+            }
+            return distribution;
         } catch (Exception e) {
             log.error("Erreur lors de la récupération de la distribution salariale par département: {}", e.getMessage());
             return List.of();
         }
     }
 
-    public List<Object[]> getSalariesByDepartmentAndPeriode(String departement, YearMonth periode) {
+    public List<Object[]> getSalaryHistogramByDepartment(YearMonth periode, BigDecimal[] bornes) {
         try {
-            return fichePaieRepository.getSalariesByDepartmentAndPeriode(departement, periode);
+            return fichePaieRepository.getSalaryHistogramByDepartment(periode, bornes[0], bornes[1], bornes[2], bornes[3]);
         } catch (Exception e) {
-            log.error("Erreur lors de la récupération des salaires par département {} et période {}: {}", departement, periode, e.getMessage());
+            log.error("Erreur lors du calcul de l'histogramme des salaires pour la période {}: {}", periode, e.getMessage());
             return List.of();
         }
     }
@@ -172,8 +233,11 @@ public class DashboardCalculationService {
 
     public BigDecimal calculateAverageSalary(YearMonth periode) {
         try {
-            BigDecimal avg = fichePaieRepository.getAvgSalaireBrutByPeriode(periode);
-            return avg != null ? avg : BigDecimal.ZERO;
+            PayrollPeriodSummary totaux = getTotauxPeriode(periode);
+            if (totaux.getNombreFiches() == 0) {
+                return BigDecimal.ZERO;
+            }
+            return totaux.getSalaireBrut().divide(BigDecimal.valueOf(totaux.getNombreFiches()), 2, RoundingMode.HALF_UP);
         } catch (Exception e) {
             log.error("Erreur lors du calcul du salaire moyen: {}", e.getMessage());
             return BigDecimal.ZERO;
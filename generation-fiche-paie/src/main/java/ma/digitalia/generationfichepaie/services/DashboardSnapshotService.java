@@ -0,0 +1,171 @@
+package ma.digitalia.generationfichepaie.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.dto.dashboard.DashboardResponseDto;
+import ma.digitalia.generationfichepaie.events.PeriodePaieModifieeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tableau de bord précalculé, versionné par un compteur de modifications des données de paie.
+ * <p>
+ * Chaque modification d'une fiche incrémente la version ; le tableau de bord est recalculé en arrière-plan
+ * et la dernière version calculée est servie telle quelle tant qu'elle est à jour. Les modifications qui
+ * ne publient pas d'événement (éléments de paie, employés, changement de mois) sont rattrapées par le
+ * recalcul périodique, qui n'incrémente la version que si le contenu a changé. Un tableau de bord dont des
+ * sections ont été remplacées par leurs données par défaut est servi sans ETag et recalculé au passage suivant.
+ */
+@Slf4j
+@Service
+public class DashboardSnapshotService {
+
+    private final DashboardService dashboardService;
+    private final long rafraichissementMs;
+
+    // distingue les ETag de deux démarrages de l'application, dont les compteurs repartent de 1
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong(1);
+    private final AtomicReference<CompletableFuture<Snapshot>> calculEnCours = new AtomicReference<>();
+    private volatile Snapshot courant;
+
+    public DashboardSnapshotService(DashboardService dashboardService,
+                                    @Value("${paie.dashboard.rafraichissement-ms:300000}") long rafraichissementMs) {
+        this.dashboardService = dashboardService;
+        this.rafraichissementMs = rafraichissementMs;
+    }
+
+    /**
+     * Tableau de bord calculé à une version donnée.
+     * @param etag l'ETag de la version, null si le calcul a échoué ou est dégradé (la réponse n'est alors pas mise en cache)
+     */
+    public record Snapshot(long version, String etag, DashboardResponseDto donnees, long calculeLe) {
+
+        /**
+         * @param ifNoneMatch la valeur de l'en-tête {@code If-None-Match}, éventuellement une liste ou {@code *}
+         */
+        public boolean correspond(String ifNoneMatch) {
+            if (etag == null || ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidat : ifNoneMatch.split(",")) {
+                String valeur = candidat.trim();
+                if (valeur.startsWith("W/")) {
+                    valeur = valeur.substring(2);
+                }
+                if (valeur.equals("*") || valeur.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return le tableau de bord de la version courante, sans accès à la base s'il est déjà calculé.
+     * Les demandes simultanées d'une version pas encore calculée partagent un seul calcul.
+     */
+    public Snapshot getSnapshot() {
+        Snapshot snapshot = courant;
+        if (snapshot != null && snapshot.version() == version.get()) {
+            return snapshot;
+        }
+        return calculer();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPeriodePaieModifiee(PeriodePaieModifieeEvent event) {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Recalcule en arrière-plan le tableau de bord périmé par une modification ou trop ancien.
+     * Les modifications d'un lancement de paie sont ainsi regroupées en un calcul par passage.
+     */
+    @Scheduled(fixedDelayString = "${paie.dashboard.precalcul-ms:5000}")
+    public void precalculer() {
+        Snapshot snapshot = courant;
+        if (snapshot != null && snapshot.version() == version.get() && snapshot.etag() != null
+                && System.currentTimeMillis() - snapshot.calculeLe() < rafraichissementMs) {
+            return;
+        }
+        try {
+            calculer();
+        } catch (RuntimeException e) {
+            log.error("Erreur lors du précalcul du tableau de bord : {}", e.getMessage());
+        }
+    }
+
+    private Snapshot calculer() {
+        CompletableFuture<Snapshot> calcul = new CompletableFuture<>();
+        CompletableFuture<Snapshot> existant = calculEnCours.compareAndExchange(null, calcul);
+        if (existant != null) {
+            return existant.join();
+        }
+        try {
+            Snapshot snapshot = construire();
+            calcul.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            calcul.completeExceptionally(e);
+            throw e;
+        } finally {
+            calculEnCours.set(null);
+        }
+    }
+
+    private Snapshot construire() {
+        long versionCalculee = version.get();
+        long debut = System.currentTimeMillis();
+        DashboardResponseDto donnees = dashboardService.getDashboardData();
+        if (!"success".equals(donnees.getStatus())) {
+            return new Snapshot(versionCalculee, null, donnees, debut);
+        }
+
+        Snapshot precedent = courant;
+        if (!donnees.getSectionsDegradees().isEmpty()) {
+            log.warn("Tableau de bord version {} dégradé, sections par défaut : {}", versionCalculee, donnees.getSectionsDegradees());
+            if (precedent != null && precedent.version() == versionCalculee && precedent.etag() != null) {
+                // la version complète déjà calculée reste servie ; le précalcul retentera au passage suivant
+                return precedent;
+            }
+            Snapshot degrade = new Snapshot(versionCalculee, null, donnees, debut);
+            courant = degrade;
+            return degrade;
+        }
+
+        if (precedent != null && precedent.version() == versionCalculee && precedent.etag() != null) {
+            if (memeContenu(precedent.donnees(), donnees)) {
+                Snapshot rafraichi = new Snapshot(versionCalculee, precedent.etag(), precedent.donnees(), debut);
+                courant = rafraichi;
+                return rafraichi;
+            }
+            // modification sans événement : nouvelle version, sauf si un événement vient d'en créer une
+            if (!version.compareAndSet(versionCalculee, versionCalculee + 1)) {
+                return new Snapshot(versionCalculee, null, donnees, debut);
+            }
+            versionCalculee++;
+        }
+
+        Snapshot snapshot = new Snapshot(versionCalculee, "\"dashboard-" + instance + "-" + versionCalculee + "\"",
+                donnees, debut);
+        courant = snapshot;
+        log.debug("Tableau de bord version {} calculé en {} ms", versionCalculee, System.currentTimeMillis() - debut);
+        return snapshot;
+    }
+
+    // compare deux calculs sans tenir compte de leur date
+    private static boolean memeContenu(DashboardResponseDto precedent, DashboardResponseDto nouveau) {
+        LocalDateTime date = nouveau.getLastUpdate();
+        nouveau.setLastUpdate(precedent.getLastUpdate());
+        boolean egal = nouveau.equals(precedent);
+        nouveau.setLastUpdate(date);
+        return egal;
+    }
+}
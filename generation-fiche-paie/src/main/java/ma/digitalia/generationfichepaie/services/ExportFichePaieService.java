@@ -0,0 +1,25 @@
+package ma.digitalia.generationfichepaie.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.YearMonth;
+
+public interface ExportFichePaieService {
+
+    /**
+     * Compter les fiches de paie d'une période
+     * @param periode la période de paie
+     * @return le nombre de fiches
+     */
+    long compterFiches(YearMonth periode);
+
+    /**
+     * Écrire dans un flux l'archive ZIP des PDF de toutes les fiches d'une période.
+     * Les fiches sont parcourues par lots et les PDF copiés depuis le stockage un à un, la mémoire utilisée
+     * ne dépend donc pas du nombre de fiches ; les PDF manquants sont rendus à la volée.
+     * @param periode la période de paie
+     * @param sortie le flux de destination (non fermé)
+     * @return le nombre de PDF ajoutés à l'archive
+     */
+    int ecrireArchive(YearMonth periode, OutputStream sortie) throws IOException;
+}
@@ -0,0 +1,101 @@
+package ma.digitalia.generationfichepaie.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.StatutPdf;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Slf4j
+@Service
+public class ExportFichePaieServiceImpl implements ExportFichePaieService {
+
+    private final FichePaieRepository fichePaieRepository;
+    private final PdfRenderingService pdfRenderingService;
+    private final PdfStorageService pdfStorageService;
+    private final int tailleLot;
+
+    public ExportFichePaieServiceImpl(FichePaieRepository fichePaieRepository, PdfRenderingService pdfRenderingService,
+                                      PdfStorageService pdfStorageService,
+                                      @Value("${paie.archive.taille-lot:200}") int tailleLot) {
+        this.fichePaieRepository = fichePaieRepository;
+        this.pdfRenderingService = pdfRenderingService;
+        this.pdfStorageService = pdfStorageService;
+        this.tailleLot = Math.max(1, tailleLot);
+    }
+
+    @Override
+    public long compterFiches(YearMonth periode) {
+        return fichePaieRepository.countTotalFichesByPeriode(periode);
+    }
+
+    @Override
+    public int ecrireArchive(YearMonth periode, OutputStream sortie) throws IOException {
+        long debut = System.currentTimeMillis();
+        Map<Long, String> erreurs = new LinkedHashMap<>();
+        int ajoutes = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(sortie);
+        // les PDF sont déjà compressés : inutile de dépenser du CPU à les recompresser
+        zip.setLevel(Deflater.NO_COMPRESSION);
+
+        // parcours par clé (id croissant) : chaque lot est une requête courte, sans transaction longue
+        Long dernierId = 0L;
+        List<Object[]> lot;
+        do {
+            lot = fichePaieRepository.findPdfsByPeriodeApres(periode, dernierId, PageRequest.of(0, tailleLot));
+            for (Object[] ligne : lot) {
+                Long ficheId = (Long) ligne[0];
+                dernierId = ficheId;
+                String reference = (String) ligne[3];
+                try {
+                    if (ligne[4] != StatutPdf.GENERE || !pdfStorageService.existe(reference)) {
+                        reference = pdfRenderingService.rendreMaintenant(ficheId);
+                    }
+                    zip.putNextEntry(new ZipEntry(nomEntree(ligne, periode)));
+                    Files.copy(pdfStorageService.chemin(reference), zip);
+                    zip.closeEntry();
+                    ajoutes++;
+                } catch (IOException e) {
+                    // flux client coupé : inutile de continuer
+                    throw e;
+                } catch (Exception e) {
+                    log.error("PDF de la fiche {} exclu de l'archive {}", ficheId, periode, e);
+                    erreurs.put(ficheId, e.getMessage());
+                }
+            }
+            zip.flush();
+        } while (lot.size() == tailleLot);
+
+        if (!erreurs.isEmpty()) {
+            StringBuilder rapport = new StringBuilder("Fiches de paie non incluses dans l'archive :\n");
+            erreurs.forEach((id, message) -> rapport.append("fiche ").append(id).append(" : ").append(message).append('\n'));
+            zip.putNextEntry(new ZipEntry("ERREURS.txt"));
+            zip.write(rapport.toString().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+
+        log.info("Archive {} : {} PDF exportés, {} en erreur, en {} ms", periode, ajoutes, erreurs.size(),
+                System.currentTimeMillis() - debut);
+        return ajoutes;
+    }
+
+    private static String nomEntree(Object[] ligne, YearMonth periode) {
+        String numero = ligne[2] != null ? ((String) ligne[2]).replaceAll("[^A-Za-z0-9_-]", "_") : "emp";
+        return "fiche_paie_" + periode + "_" + numero + "_" + ligne[1] + ".pdf";
+    }
+}
@@ -0,0 +1,27 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.dto.generation.GenerationFicheJobDto;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+public interface GenerationFicheJobService {
+
+    /**
+     * Demander la génération de la fiche de paie d'un employé et le rendu de son PDF, hors du thread appelant.
+     * Une demande encore en cours pour le même employé et la même période est renvoyée au lieu d'en créer une seconde.
+     * @param employeId l'identifiant de l'employé
+     * @param periode la période de paie
+     * @return la demande, à suivre avec {@link #getJob}
+     * @throws IllegalStateException si la file de génération est pleine
+     */
+    GenerationFicheJobDto soumettre(Long employeId, YearMonth periode);
+
+    /**
+     * Consulter l'avancement d'une demande de génération. Les demandes terminées sont conservées
+     * pendant une durée limitée ({@code paie.generation.conservation-ms}).
+     * @param jobId l'identifiant de la demande
+     * @return l'état de la demande, vide si elle est inconnue ou expirée
+     */
+    Optional<GenerationFicheJobDto> getJob(String jobId);
+}
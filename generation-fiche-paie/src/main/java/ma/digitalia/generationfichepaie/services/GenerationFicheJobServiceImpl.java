@@ -0,0 +1,162 @@
+package ma.digitalia.generationfichepaie.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.StatutGenerationFiche;
+import ma.digitalia.generationfichepaie.dto.generation.GenerationFicheJobDto;
+import ma.digitalia.generationfichepaie.exception.FichePaieDejaGenereeException;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Génération des fiches de paie demandées par l'API, sur un pool dédié : les threads des requêtes HTTP
+ * ne portent ni le calcul (rapport de temps compris) ni le rendu du PDF. Les demandes sont gardées en mémoire.
+ */
+@Slf4j
+@Service
+public class GenerationFicheJobServiceImpl implements GenerationFicheJobService {
+
+    private final GenerationFichePaieService generationFichePaieService;
+    private final PdfRenderingService pdfRenderingService;
+    private final FichePaieRepository fichePaieRepository;
+    private final ThreadPoolTaskExecutor generationExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final long conservationMs;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    /** Demande en cours par employé et période, pour ne pas générer deux fois la même fiche */
+    private final Map<String, Job> enCours = new ConcurrentHashMap<>();
+
+    public GenerationFicheJobServiceImpl(GenerationFichePaieService generationFichePaieService,
+                                         PdfRenderingService pdfRenderingService,
+                                         FichePaieRepository fichePaieRepository,
+                                         @Qualifier("payrollGenerationExecutor") ThreadPoolTaskExecutor generationExecutor,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${paie.generation.conservation-ms:3600000}") long conservationMs) {
+        this.generationFichePaieService = generationFichePaieService;
+        this.pdfRenderingService = pdfRenderingService;
+        this.fichePaieRepository = fichePaieRepository;
+        this.generationExecutor = generationExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.conservationMs = conservationMs;
+    }
+
+    @Override
+    public GenerationFicheJobDto soumettre(Long employeId, YearMonth periode) {
+        String cle = employeId + ":" + periode;
+        Job job = new Job(UUID.randomUUID().toString(), employeId, periode);
+        Job existant = enCours.putIfAbsent(cle, job);
+        if (existant != null) {
+            log.debug("Génération de la fiche {} {} déjà demandée ({})", employeId, periode, existant.id);
+            return existant.dto();
+        }
+        jobs.put(job.id, job);
+        try {
+            generationExecutor.execute(() -> executer(job, cle));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            enCours.remove(cle, job);
+            throw new IllegalStateException("File de génération des fiches de paie pleine, réessayez plus tard");
+        }
+        log.info("Génération de la fiche de paie de l'employé {} pour {} demandée ({})", employeId, periode, job.id);
+        return job.dto();
+    }
+
+    @Override
+    public Optional<GenerationFicheJobDto> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::dto);
+    }
+
+    /**
+     * Oublie les demandes terminées depuis plus de {@code paie.generation.conservation-ms}.
+     */
+    @Scheduled(fixedDelayString = "${paie.generation.purge-ms:300000}")
+    public void purgerJobsTermines() {
+        LocalDateTime limite = LocalDateTime.now().minus(Duration.ofMillis(conservationMs));
+        jobs.values().removeIf(job -> job.dateFin != null && job.dateFin.isBefore(limite));
+    }
+
+    private void executer(Job job, String cle) {
+        job.dateDebut = LocalDateTime.now();
+        try {
+            job.statut = StatutGenerationFiche.CALCUL;
+            Long fichePaieId;
+            try {
+                fichePaieId = transactionTemplate.execute(status ->
+                        fichePaieRepository.findIdByEmployeIdAndPeriode(job.employeId, job.periode).orElseGet(() -> {
+                            generationFichePaieService.genererFichePaie(job.employeId, job.periode);
+                            return fichePaieRepository.findIdByEmployeIdAndPeriode(job.employeId, job.periode).orElseThrow();
+                        }));
+            } catch (FichePaieDejaGenereeException e) {
+                // générée entre-temps par un lancement de paie : on reprend la fiche enregistrée
+                fichePaieId = fichePaieRepository.findIdByEmployeIdAndPeriode(job.employeId, job.periode).orElseThrow(() -> e);
+            }
+            job.fichePaieId = fichePaieId;
+
+            // la génération a mis le rendu en file après validation : on attend ce rendu plutôt que d'en lancer un second
+            job.statut = StatutGenerationFiche.RENDU_PDF;
+            pdfRenderingService.rendreMaintenant(fichePaieId);
+            job.statut = StatutGenerationFiche.TERMINE;
+            log.info("Fiche de paie {} de l'employé {} pour {} prête ({})", fichePaieId, job.employeId, job.periode, job.id);
+        } catch (Exception e) {
+            log.error("Échec de la génération de la fiche de paie de l'employé {} pour {} ({})",
+                    job.employeId, job.periode, job.id, e);
+            job.erreur = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            job.statut = StatutGenerationFiche.ECHEC;
+        } finally {
+            job.dateFin = LocalDateTime.now();
+            enCours.remove(cle, job);
+        }
+    }
+
+    /**
+     * État d'une demande, modifié par le thread de génération et lu par les requêtes de suivi.
+     */
+    private static final class Job {
+        private final String id;
+        private final Long employeId;
+        private final YearMonth periode;
+        private final LocalDateTime dateCreation = LocalDateTime.now();
+        private volatile StatutGenerationFiche statut = StatutGenerationFiche.EN_ATTENTE;
+        private volatile Long fichePaieId;
+        private volatile String erreur;
+        private volatile LocalDateTime dateDebut;
+        private volatile LocalDateTime dateFin;
+
+        private Job(String id, Long employeId, YearMonth periode) {
+            this.id = id;
+            this.employeId = employeId;
+            this.periode = periode;
+        }
+
+        private GenerationFicheJobDto dto() {
+            StatutGenerationFiche etat = statut;
+            return GenerationFicheJobDto.builder()
+                    .jobId(id)
+                    .employeId(employeId)
+                    .periode(periode)
+                    .statut(etat)
+                    .progression(etat.getProgression())
+                    .fichePaieId(fichePaieId)
+                    .erreur(erreur)
+                    .dateCreation(dateCreation)
+                    .dateDebut(dateDebut)
+                    .dateFin(dateFin)
+                    .build();
+        }
+    }
+}
@@ -2,10 +2,13 @@ package ma.digitalia.generationfichepaie.services;
 
 import ma.digitalia.generationfichepaie.dto.AjoutElementPaieDTO;
 import ma.digitalia.generationfichepaie.entities.ElementPaie;
+import ma.digitalia.generationfichepaie.dto.historique.PageFichesPaieDto;
 import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
 
 import java.time.YearMonth;
 import java.util.List;
+import java.util.Optional;
 
 public interface GenerationFichePaieService {
 
@@ -26,9 +29,36 @@ public interface GenerationFichePaieService {
     /**
      * Generer la fiche de paie pour un employe
      * @param employeId l'identifiant de l'employé
+     * @throws IllegalStateException si la période est clôturée
      */
     void genererFichePaie(Long employeId, YearMonth periode);
 
+    /**
+     * Generer la fiche de paie d'un employe a partir des donnees deja chargees pour son lot
+     * @param employeId l'identifiant de l'employé
+     * @param donnees les données d'entrée préchargées du lot contenant l'employé
+     * @throws IllegalStateException si la période est clôturée
+     */
+    void genererFichePaie(Long employeId, YearMonth periode, PayrollInputSnapshot donnees);
+
+    /**
+     * Recalculer une fiche de paie existante à partir des données deja chargees pour son lot.
+     * La fiche est mise à jour en place et son PDF est remis dans la file de rendu.
+     * @param fichePaie la fiche de paie à recalculer, attachée à la transaction en cours
+     * @param donnees les données d'entrée préchargées du lot contenant l'employé
+     * @throws IllegalStateException si la période est clôturée
+     */
+    void recalculerFichePaie(FichePaie fichePaie, PayrollInputSnapshot donnees);
+
+    /**
+     * Calculer en mémoire la fiche de paie d'un employé, sans rien enregistrer
+     * @param employeId l'identifiant de l'employé
+     * @param donnees un instantané de simulation ({@link PayrollInputSnapshot#simulation})
+     * @return la fiche calculée, non enregistrée
+     * @throws IllegalArgumentException si l'instantané n'est pas un instantané de simulation
+     */
+    FichePaie simulerFichePaie(Long employeId, PayrollInputSnapshot donnees);
+
     /**
      * Mettre à jour un élément de paie pour un employé
      * @param employeId l'identifiant de l'employé
@@ -44,11 +74,12 @@ public interface GenerationFichePaieService {
     void genererEtSauvegarderFichePdf(FichePaie fichePaie);
 
     /**
-     * Récupérer la fiche de paie pour un employé
+     * Récupérer la fiche de paie d'un employé pour une période si elle existe et que son PDF est déjà rendu,
+     * sans rien générer
      * @param employeId l'identifiant de l'employé
-     * @return la fiche de paie pour l'employé
+     * @return la fiche de paie dont le PDF est présent dans le stockage, vide sinon
      */
-    byte[] recupererFichePaiePdf(Long employeId, YearMonth periode);
+    Optional<FichePaie> trouverFichePaieAvecPdf(Long employeId, YearMonth periode);
 
     /**
      * Supprimer un élément de paie par son identifiant
@@ -57,4 +88,20 @@ public interface GenerationFichePaieService {
     void supprimerElementPaie(Long elementPaieId);
 
    List<FichePaie> getFichePaieByEmployeId(Long employeId);
+
+    /**
+     * Historique des fiches accessibles à l'utilisateur (les siennes, ou celles de son équipe pour un manager),
+     * des périodes les plus récentes aux plus anciennes, sans charger les éléments de paie ni le PDF.
+     * @param userId l'identifiant de l'utilisateur
+     * @param curseur le curseur renvoyé par la page précédente, null pour la première page
+     * @param taille le nombre maximal de fiches de la page
+     */
+    PageFichesPaieDto listerFichesPaie(Long userId, String curseur, int taille);
+
+    /**
+     * Fiches d'une période par identifiant croissant, sans charger les éléments de paie ni le PDF.
+     * @param curseur le curseur renvoyé par la page précédente, null pour la première page
+     * @param taille le nombre maximal de fiches de la page
+     */
+    PageFichesPaieDto listerFichesPaieParPeriode(YearMonth periode, String curseur, int taille);
 }
@@ -3,12 +3,24 @@ package ma.digitalia.generationfichepaie.services;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.CodeElement;
+import ma.digitalia.generationfichepaie.Enum.EtapePaie;
 import ma.digitalia.generationfichepaie.Enum.ModeCalcul;
+import ma.digitalia.generationfichepaie.Enum.SourceModification;
 import ma.digitalia.generationfichepaie.Enum.TypeElement;
 import ma.digitalia.generationfichepaie.dto.AjoutElementPaieDTO;
+import ma.digitalia.generationfichepaie.dto.bareme.BaremePaie;
+import ma.digitalia.generationfichepaie.dto.historique.FichePaieResumeDto;
+import ma.digitalia.generationfichepaie.dto.historique.PageFichesPaieDto;
 import ma.digitalia.generationfichepaie.entities.ElementPaie;
 import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.entities.LigneFichePaie;
+import ma.digitalia.generationfichepaie.exception.FichePaieDejaGenereeException;
+import ma.digitalia.generationfichepaie.helpers.CalculPaieCentimes;
 import ma.digitalia.generationfichepaie.helpers.FichePaiePdfGenerateur;
+import ma.digitalia.generationfichepaie.helpers.PaieMetrics;
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
+import ma.digitalia.generationfichepaie.helpers.TotauxPaieCentimes;
 import ma.digitalia.generationfichepaie.repositories.ElementPaieRepository;
 import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
 import ma.digitalia.gestionutilisateur.entities.Employe;
@@ -18,16 +30,22 @@ import ma.digitalia.gestionutilisateur.repositories.UsersRepository;
 import ma.digitalia.gestionutilisateur.services.ManagerService;
 import ma.digitalia.suividutemps.entities.RapportTemps;
 import ma.digitalia.suividutemps.services.RapportTempsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ma.digitalia.generationfichepaie.Enum.StatutPaie;
+import ma.digitalia.generationfichepaie.Enum.StatutPdf;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
+import java.util.function.Function;
 
 import static ma.digitalia.generationfichepaie.Enum.TypeElement.*;
 
@@ -35,23 +53,59 @@ import static ma.digitalia.generationfichepaie.Enum.TypeElement.*;
 @Service
 public class GenerationFichePaieServiceImpl implements GenerationFichePaieService {
 
+    private static final BigDecimal DOUZE = BigDecimal.valueOf(12);
+    private static final BigDecimal CENT = BigDecimal.valueOf(100);
+    private static final int PERSONNES_A_CHARGE = 2;
+    private static final int TAILLE_PAGE_MAX = 200;
+
     private final ElementPaieRepository elementPaieRepository;
     private final EmployeRepository employeRepository;
     private final RapportTempsService rapportTempsService;
     private final FichePaieRepository fichePaieRepository;
     private final UsersRepository usersRepository;
     private final ManagerService managerService;
+    private final PayrollInputLoader payrollInputLoader;
+    private final BaremePaieService baremePaieService;
+    private final PdfRenderingService pdfRenderingService;
+    private final PdfStorageService pdfStorageService;
+    private final CloturePaieService cloturePaieService;
+    private final ModificationPaieService modificationPaieService;
+    private final PaieMetrics paieMetrics;
+    private final boolean noyauCentimes;
 
 
     public GenerationFichePaieServiceImpl(ElementPaieRepository elementPaieRepository, EmployeRepository employeRepository,
                                           RapportTempsService rapportTempsService, FichePaieRepository fichePaieRepository,
-                                          UsersRepository usersRepository, ManagerService managerService) {
+                                          UsersRepository usersRepository, ManagerService managerService,
+                                          PayrollInputLoader payrollInputLoader, BaremePaieService baremePaieService,
+                                          PdfRenderingService pdfRenderingService, PdfStorageService pdfStorageService,
+                                          CloturePaieService cloturePaieService,
+                                          ModificationPaieService modificationPaieService, PaieMetrics paieMetrics,
+                                          @Value("${paie.calcul.noyau-centimes:false}") boolean noyauCentimes) {
         this.elementPaieRepository = elementPaieRepository;
         this.employeRepository = employeRepository;
         this.rapportTempsService = rapportTempsService;
         this.fichePaieRepository = fichePaieRepository;
         this.usersRepository = usersRepository;
         this.managerService = managerService;
+        this.payrollInputLoader = payrollInputLoader;
+        this.baremePaieService = baremePaieService;
+        this.pdfRenderingService = pdfRenderingService;
+        this.pdfStorageService = pdfStorageService;
+        this.cloturePaieService = cloturePaieService;
+        this.modificationPaieService = modificationPaieService;
+        this.paieMetrics = paieMetrics;
+        this.noyauCentimes = noyauCentimes;
+    }
+
+    /**
+     * Service réduit au calcul, pour les benchmarks et les tests de parité : seul le barème est fourni.
+     * Il ne sert qu'avec un instantané de simulation, qui n'appelle ni les dépôts, ni le rendu PDF,
+     * ni les services d'enregistrement.
+     */
+    public static GenerationFichePaieServiceImpl pourCalcul(BaremePaieService baremePaieService, boolean noyauCentimes) {
+        return new GenerationFichePaieServiceImpl(null, null, null, null, null, null, null, baremePaieService,
+                null, null, null, null, null, noyauCentimes);
     }
 
 //    @PostConstruct
@@ -85,6 +139,7 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
             elementPaie.setMontant(calculerMontant(elementPaie, YearMonth.now()));
         }
         elementPaieRepository.save(elementPaie);
+        modificationPaieService.marquerModifie(employeId, SourceModification.ELEMENT_PAIE);
         log.info("Élément de paie ajouté pour l'employé avec l'ID : {}", employeId);
     }
 
@@ -109,6 +164,7 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
         ElementPaie newElementPaie = new ElementPaie(elementPaie, employe);
         newElementPaie.setMontant(calculerMontant(newElementPaie, YearMonth.now()));
         elementPaieRepository.save(newElementPaie);
+        modificationPaieService.marquerModifie(employeId, SourceModification.ELEMENT_PAIE);
         log.info("Élément de paie ajouté pour l'employé avec l'ID : {}", employeId);
     }
 
@@ -141,16 +197,14 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
                 if (elementPaie.getType() == HEURES_SUPPLEMENTAIRES) {
                     RapportTemps rapportTemps = rapportTempsService.getMonthlyReport(elementPaie.getEmploye(), YearMonth.now());
                     BigDecimal nombreHeuresSupplementaires = new BigDecimal(String.valueOf(rapportTemps.getTotalHeuresSupplementaires().toHours()));
-                    System.out.println("éééééééééééééééééé");
-                    System.out.println(rapportTemps.getTotalHeuresSupplementaires().toHours() + " heures" + elementPaie.getTaux());
+                    log.debug("{} heures supplémentaires au taux {}", nombreHeuresSupplementaires, elementPaie.getTaux());
                     return nombreHeuresSupplementaires.multiply(elementPaie.getTaux());
                 }
 
                 if (elementPaie.getType() == DEDUCTION_RETARD) {
                     RapportTemps rapportTemps = rapportTempsService.getMonthlyReport(elementPaie.getEmploye(), YearMonth.now());
                     BigDecimal nombreJoursAbsence = new BigDecimal(rapportTemps.getNombreRetards());
-                    System.out.println("éééééééééééééééééé");
-                    System.out.println(rapportTemps.getNombreRetards());
+                    log.debug("{} retards", rapportTemps.getNombreRetards());
                     return nombreJoursAbsence.multiply(elementPaie.getTaux());
                 }
 
@@ -161,8 +215,7 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
             case PAR_JOUR:
                 if (elementPaie.getType() == DEDUCTION_ABSENCE) {
                     BigDecimal nombreAbs = rapportTempsService.getNombreAbsences(elementPaie.getEmploye(), periode);
-                    System.out.println("éééééééééééééééééé");
-                    System.out.println(rapportTempsService.getNombreAbsences(elementPaie.getEmploye(), periode));
+                    log.debug("{} jours d'absence", nombreAbs);
                     return nombreAbs.multiply(elementPaie.getTaux());
                 }
                 if (elementPaie.getTaux() != null && elementPaie.getBase() != null) {
@@ -193,93 +246,208 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
         existingElementPaie.setTaux(elementPaie.getTaux());
         existingElementPaie.setBase(elementPaie.getBase());
         existingElementPaie.setDescription(elementPaie.getDescription());
+        modificationPaieService.marquerModifie(employeId, SourceModification.ELEMENT_PAIE);
     }
 
     @Override
     @Transactional
     public void genererEtSauvegarderFichePdf(FichePaie fichePaie) {
         byte[] pdf = FichePaiePdfGenerateur.genererPdf(fichePaie);
-        fichePaie.setPdfFile(pdf);
+        fichePaie.setPdfRef(pdfStorageService.enregistrer(pdf));
+        fichePaie.setPdfTaille((long) pdf.length);
+        fichePaie.setPdfStatus(StatutPdf.GENERE);
         fichePaieRepository.save(fichePaie);
     }
 
     @Override
-    public byte[] recupererFichePaiePdf(Long employeId, YearMonth periode) {
-        Employe employe = (Employe) employeRepository.findById(employeId)
-                .orElseThrow(() -> new EntityNotFoundException("Employé non trouvé avec l'ID : " + employeId));
-        FichePaie fichePaie = fichePaieRepository.findByEmployeAndPeriode(employe, periode);
-        if (fichePaie != null && fichePaie.getPdfFile() != null) {
-            return fichePaie.getPdfFile();
-        }
-        genererFichePaie(employeId, periode);
-        fichePaie = fichePaieRepository.findByEmployeAndPeriode(employe, periode);
-        return fichePaie.getPdfFile();
+    public Optional<FichePaie> trouverFichePaieAvecPdf(Long employeId, YearMonth periode) {
+        return fichePaieRepository.findByEmployeIdAndPeriode(employeId, periode)
+                .filter(fiche -> fiche.getPdfStatus() == StatutPdf.GENERE && pdfStorageService.existe(fiche.getPdfRef()));
     }
 
     @Override
-//    @Transactional
+    @Transactional
     public void genererFichePaie(Long employeId, YearMonth yearMonth) {
+        genererFichePaie(employeId, yearMonth, payrollInputLoader.charger(List.of(employeId), yearMonth));
+    }
 
-        FichePaie fichePaie = new FichePaie();
-
-        Employe employe = (Employe) employeRepository.findById(employeId)
-                .orElseThrow(() -> new EntityNotFoundException("Employé non trouvé avec l'ID : " + employeId));
+    @Override
+    public void genererFichePaie(Long employeId, YearMonth yearMonth, PayrollInputSnapshot donnees) {
+        cloturePaieService.verifierOuverte(yearMonth);
 
-        fichePaie.setEmploye(employe);
+        FichePaie fichePaie = new FichePaie();
+        fichePaie.setEmploye(donnees.getEmploye(employeId));
         fichePaie.setStatut(StatutPaie.BROUILLON);
+        fichePaie.setPeriode(yearMonth);
 
-        RapportTemps rapportTemps = rapportTempsService.getMonthlyReport(employe, yearMonth);
-
-        if (rapportTemps == null) {
-            log.warn("Aucun rapport de temps trouvé pour l'employé {} et la période {}", employe.getId(), yearMonth);
-            rapportTempsService.generateMonthlyReport(employeId, yearMonth.getMonth());
-            rapportTemps = rapportTempsService.getMonthlyReport(employe, yearMonth);
+        log.info("Génération de la fiche de paie pour l'employé {}", employeId);
+        calculerFichePaie(fichePaie, donnees);
 
+        try {
+            // identifiant IDENTITY : l'insertion est immédiate et une génération concurrente est détectée ici
+            paieMetrics.mesurer(EtapePaie.PERSISTANCE, () -> fichePaieRepository.save(fichePaie));
+        } catch (DataIntegrityViolationException e) {
+            throw new FichePaieDejaGenereeException(employeId, yearMonth, e);
         }
+        donnees.marquerFicheGeneree(employeId);
+        pdfRenderingService.planifierRendu(fichePaie.getId());
+        log.info("Fiche de paie générée pour l'employé {} : {}", employeId, fichePaie);
+    }
 
-        fichePaie.setJoursTravailles(rapportTemps.getNombreJoursTravail());
-        fichePaie.setHeuresSupplementaires((int) rapportTemps.getTotalHeuresSupplementaires().toHours());
+    @Override
+    public void recalculerFichePaie(FichePaie fichePaie, PayrollInputSnapshot donnees) {
+        cloturePaieService.verifierOuverte(fichePaie.getPeriode());
+
+        Long employeId = fichePaie.getEmploye().getId();
+        log.info("Recalcul de la fiche de paie {} de l'employé {} pour {}", fichePaie.getId(), employeId, fichePaie.getPeriode());
+        // la fiche est mise à jour en place : le résumé de la période ne reçoit que l'écart
+        calculerFichePaie(fichePaie, donnees);
+        paieMetrics.mesurer(EtapePaie.PERSISTANCE, () -> fichePaieRepository.save(fichePaie));
+        pdfRenderingService.planifierRendu(fichePaie.getId());
+    }
 
+    @Override
+    public FichePaie simulerFichePaie(Long employeId, PayrollInputSnapshot donnees) {
+        if (!donnees.isSimulation()) {
+            throw new IllegalArgumentException("La simulation d'une fiche de paie exige un instantané de simulation");
+        }
+        FichePaie fichePaie = new FichePaie();
+        fichePaie.setEmploye(donnees.getEmploye(employeId));
+        fichePaie.setStatut(StatutPaie.BROUILLON);
+        fichePaie.setPeriode(donnees.getPeriode());
+        calculerFichePaie(fichePaie, donnees);
+        return fichePaie;
+    }
 
-        List<ElementPaie> elements = elementPaieRepository.findByEmploye(employe);
+    /**
+     * Calcule les montants de la fiche à partir des données de l'instantané et remet son PDF en attente de rendu.
+     */
+    private void calculerFichePaie(FichePaie fichePaie, PayrollInputSnapshot donnees) {
+        Employe employe = fichePaie.getEmploye();
+        Long employeId = employe.getId();
+        YearMonth yearMonth = fichePaie.getPeriode();
 
-        List<ElementPaie> attachedElements = new ArrayList<>();
-        for (ElementPaie element : elements) {
-            attachedElements.add(elementPaieRepository.findById(element.getId()).orElseThrow());
+        RapportTemps rapportTemps = donnees.getRapportTemps(employeId);
+
+        // les rapports manquants ont déjà été générés en un passage au chargement de l'instantané :
+        // l'absence de rapport signifie qu'il n'y a aucun pointage sur la période
+        if (rapportTemps == null && !donnees.isSimulation()) {
+            log.warn("Aucun rapport de temps trouvé pour l'employé {} et la période {}", employeId, yearMonth);
         }
 
-        fichePaie.setElements(attachedElements);
+        // les montants ne dépendent pas du rapport de temps : une simulation s'en passe
+        if (rapportTemps != null) {
+            fichePaie.setJoursTravailles(rapportTemps.getNombreJoursTravail());
+            fichePaie.setHeuresSupplementaires((int) rapportTemps.getTotalHeuresSupplementaires().toHours());
+        }
 
-        Set<String> tests = new java.util.HashSet<>();
+        remplacerElements(fichePaie, donnees.getElements(employeId));
 
-        log.info("Génération de la fiche de paie pour l'employé {} : {}", employe.getId(), tests);
-        fichePaie.setPeriode(yearMonth);
         fichePaie.setDateGeneration(java.time.LocalDateTime.now());
-        fichePaie.setSalaireBrut(calculerSalaireBrut(fichePaie));
-        fichePaie.setSalaireBrutImposable(calculerSalaireBrutImposable(fichePaie));
-        fichePaie.setCotisationsSalariales(calculerCotisationSalariale(fichePaie));
-        fichePaie.setCotisationsPatronales(calculerCotisationPatronale(fichePaie));
-        fichePaie.setSalaireNetImposable(fichePaie.getSalaireBrutImposable().subtract(fichePaie.getCotisationsSalariales()));
-        //                                                          --> nombre de personne à charge
-        fichePaie.setImpotSurLeRevenu(calculerImpotSurLeRevenu(fichePaie, 2));
-        fichePaie.setSalaireNet(calculerSalaireNet(fichePaie));
+        TotauxPaieCentimes totaux = noyauCentimes
+                ? CalculPaieCentimes.calculer(fichePaie.getElements(), bareme(fichePaie, donnees), PERSONNES_A_CHARGE)
+                : null;
+        if (totaux != null) {
+            appliquerTotaux(fichePaie, totaux, donnees);
+        } else {
+            fichePaie.setSalaireBrut(calculerSalaireBrut(fichePaie));
+            fichePaie.setSalaireBrutImposable(calculerSalaireBrutImposable(fichePaie));
+            mesurer(EtapePaie.COTISATIONS, donnees, () -> {
+                fichePaie.setCotisationsSalariales(calculerCotisationSalariale(fichePaie, donnees));
+                fichePaie.setCotisationsPatronales(calculerCotisationPatronale(fichePaie, donnees));
+            });
+            fichePaie.setSalaireNetImposable(fichePaie.getSalaireBrutImposable().subtract(fichePaie.getCotisationsSalariales()));
+            mesurer(EtapePaie.IMPOT, donnees, () -> fichePaie.setImpotSurLeRevenu(calculerImpotSurLeRevenu(fichePaie, PERSONNES_A_CHARGE, donnees)));
+            fichePaie.setSalaireNet(calculerSalaireNet(fichePaie));
+        }
+
+        // les cotisations et l'impôt ajoutés pendant le calcul figurent sur la fiche
+        remplacerElements(fichePaie, donnees.getElements(employeId));
+        figerLignes(fichePaie);
 
-        tests.forEach(log::info);
-        System.out.println(fichePaie);
+        // le PDF est rendu hors du calcul, par la file de rendu
+        fichePaie.setPdfStatus(StatutPdf.EN_ATTENTE);
+        fichePaie.setPdfTentatives(0);
+        fichePaie.setPdfErreur(null);
+    }
 
-        List<ElementPaie> newElements = elementPaieRepository.findByEmploye(employe);
+    /**
+     * Reporte sur la fiche les totaux du noyau en centimes et ajoute les mêmes éléments calculés
+     * que le calcul en {@code BigDecimal}, avec des montants égaux.
+     */
+    private void appliquerTotaux(FichePaie fichePaie, TotauxPaieCentimes totaux, PayrollInputSnapshot donnees) {
+        BaremePaie bareme = bareme(fichePaie, donnees);
+        fichePaie.setSalaireBrut(totaux.getSalaireBrut());
+        fichePaie.setSalaireBrutImposable(totaux.getSalaireBrutImposable());
+        mesurer(EtapePaie.COTISATIONS, donnees, () -> {
+            ajouterCotisationsSalariales(fichePaie, donnees, bareme, totaux.getBaseCNSSSalariale(),
+                    totaux.getCotisationCNSS(), totaux.getCotisationAMO());
+            ajouterCotisationsPatronales(fichePaie, donnees, bareme, totaux.getBaseCNSSPatronale(),
+                    totaux.getCotisationCNSSPatronale(), totaux.getCotisationAMOPatronale(),
+                    totaux.getCotisationFormationPro(), totaux.getCotisationAllocationsFamiliales());
+        });
+        fichePaie.setCotisationsSalariales(totaux.getCotisationsSalariales());
+        fichePaie.setCotisationsPatronales(totaux.getCotisationsPatronales());
+        fichePaie.setSalaireNetImposable(totaux.getSalaireNetImposable());
+        mesurer(EtapePaie.IMPOT, donnees, () -> ajouterImpot(fichePaie, donnees, totaux.getImpotSurLeRevenu()));
+        fichePaie.setImpotSurLeRevenu(totaux.getImpotSurLeRevenu());
+        fichePaie.setSalaireNet(totaux.getSalaireNet());
+    }
 
-        List<ElementPaie> newAttachedElements = new ArrayList<>();
-        for (ElementPaie element : newElements) {
-            newAttachedElements.add(elementPaieRepository.findById(element.getId()).orElseThrow());
+    /**
+     * Les simulations ne sont pas mesurées : elles fausseraient les durées des étapes de la paie réelle.
+     */
+    private void mesurer(EtapePaie etape, PayrollInputSnapshot donnees, Runnable traitement) {
+        if (donnees.isSimulation()) {
+            traitement.run();
+        } else {
+            paieMetrics.mesurer(etape, traitement);
         }
+    }
 
-        fichePaie.setElements(newAttachedElements);
+    /**
+     * Remplace le contenu de la liste des éléments sans changer d'instance : la liste de la fiche
+     * reste celle que l'appelant a pu lui fournir.
+     */
+    private static void remplacerElements(FichePaie fichePaie, List<ElementPaie> elements) {
+        if (fichePaie.getElements() == null) {
+            fichePaie.setElements(new ArrayList<>(elements));
+        } else {
+            fichePaie.getElements().clear();
+            fichePaie.getElements().addAll(elements);
+        }
+    }
 
-        fichePaie.setPdfFile(FichePaiePdfGenerateur.genererPdf(fichePaie));
+    /**
+     * Copie sur la fiche les éléments du calcul, rendus tels quels dans le PDF même si les éléments
+     * de l'employé changent ensuite. La collection enregistrée est vidée plutôt que remplacée.
+     */
+    private static void figerLignes(FichePaie fichePaie) {
+        List<LigneFichePaie> lignes = fichePaie.getElements().stream().map(LigneFichePaie::new).toList();
+        if (fichePaie.getLignes() == null) {
+            fichePaie.setLignes(new ArrayList<>(lignes));
+        } else {
+            fichePaie.getLignes().clear();
+            fichePaie.getLignes().addAll(lignes);
+        }
+    }
 
-        fichePaieRepository.save(fichePaie);
-        log.info("Fiche de paie générée pour l'employé {} : {}", employe.getId(), fichePaie);
+    /**
+     * Enregistre un élément calculé automatiquement et l'ajoute à l'instantané,
+     * avec les mêmes règles que {@link #ajouterElementPaie(Long, ElementPaie)} mais sans requête de contrôle.
+     * En simulation, l'élément reste dans l'instantané sans être enregistré.
+     */
+    private void ajouterElementCalcule(Employe employe, ElementPaie elementPaie, PayrollInputSnapshot donnees) {
+        if (donnees.contientTypeEtSousType(employe.getId(), elementPaie.getType(), elementPaie.getSousType())) {
+            throw new IllegalArgumentException("L'élément de paie existe déjà pour cet employé.");
+        }
+        elementPaie.setEmploye(employe);
+        if (donnees.isSimulation()) {
+            donnees.ajouterElement(employe.getId(), elementPaie);
+            return;
+        }
+        donnees.ajouterElement(employe.getId(), elementPaieRepository.save(elementPaie));
+        log.debug("Élément de paie {} ajouté pour l'employé avec l'ID : {}", elementPaie.getLibelle(), employe.getId());
     }
 
     BigDecimal calculerSalaireBrut(FichePaie fichePaie) {
@@ -312,7 +480,7 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    BigDecimal calculerCotisationSalariale(FichePaie fichePaie) {
+    BigDecimal calculerCotisationSalariale(FichePaie fichePaie, PayrollInputSnapshot donnees) {
         BigDecimal cotisationsSalariales = BigDecimal.ZERO;
         BigDecimal baseCNSS;
         BigDecimal soumisCNSS = fichePaie.getElements().stream()
@@ -326,9 +494,10 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
 
         baseCNSS = soumisCNSS.subtract(retenue);
 
-        BigDecimal plafond = new BigDecimal("6000");
-        BigDecimal tauxCNSS = new BigDecimal("0.0448");
-        BigDecimal tauxAMO = new BigDecimal("0.0226");
+        BaremePaie bareme = bareme(fichePaie, donnees);
+        BigDecimal plafond = bareme.plafondCNSS();
+        BigDecimal tauxCNSS = bareme.tauxCNSSSalarial();
+        BigDecimal tauxAMO = bareme.tauxAMOSalarial();
 
         BigDecimal cotisationCNSS;
         BigDecimal cotisationAMO;
@@ -340,25 +509,29 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
             cotisationCNSS = baseCNSS.multiply(tauxCNSS);
             cotisationAMO = baseCNSS.multiply(tauxAMO);
         }
-            log.info("Ajout des cotisations CNSS à la fiche de paie.");
+        ajouterCotisationsSalariales(fichePaie, donnees, bareme, baseCNSS, cotisationCNSS, cotisationAMO);
+        cotisationsSalariales = cotisationsSalariales.add(cotisationCNSS).add(cotisationAMO);
+        return cotisationsSalariales;
+    }
+
+    private void ajouterCotisationsSalariales(FichePaie fichePaie, PayrollInputSnapshot donnees, BaremePaie bareme,
+                                              BigDecimal baseCNSS, BigDecimal cotisationCNSS, BigDecimal cotisationAMO) {
+        log.debug("Ajout des cotisations CNSS à la fiche de paie.");
+        if (!donnees.contientCode(fichePaie.getEmploye().getId(), CodeElement.CNSS_SALARIALE)) {
             ElementPaie cnssElement = new ElementPaie(null, TypeElement.COTISATION_SOCIALE, "Cotisation CNSS", "Cotisation CNSS", ModeCalcul.TAUX, cotisationCNSS
-                    , tauxCNSS.multiply(BigDecimal.valueOf(100)), baseCNSS, "Cotisation CNSS calculée automatiquement", false, false, null, null);
-            if (!elementPaieRepository.existsByEmployeAndLibelleContaining(fichePaie.getEmploye(), "Cotisation CNSS")) {
-            ajouterElementPaie(fichePaie.getEmploye().getId(), cnssElement);
+                    , bareme.tauxCNSSSalarial().multiply(CENT), baseCNSS, "Cotisation CNSS calculée automatiquement", false, false, null, null, CodeElement.CNSS_SALARIALE);
+            ajouterElementCalcule(fichePaie.getEmploye(), cnssElement, donnees);
         }
 
-            log.info("Ajout des cotisations AMO à la fiche de paie.");
+        log.debug("Ajout des cotisations AMO à la fiche de paie.");
+        if (!donnees.contientCode(fichePaie.getEmploye().getId(), CodeElement.AMO_SALARIALE)) {
             ElementPaie amoElement = new ElementPaie(null, TypeElement.COTISATION_SOCIALE, "cotisation AMO", "Cotisation AMO", ModeCalcul.TAUX, cotisationAMO
-                    , tauxAMO.multiply(BigDecimal.valueOf(100)), baseCNSS, "Cotisation AMO calculée automatiquement", false, false, null, null);
-            if (!elementPaieRepository.existsByEmployeAndLibelleContaining(fichePaie.getEmploye(), "Cotisation AMO")) {
-
-            ajouterElementPaie(fichePaie.getEmploye().getId(), amoElement);
+                    , bareme.tauxAMOSalarial().multiply(CENT), baseCNSS, "Cotisation AMO calculée automatiquement", false, false, null, null, CodeElement.AMO_SALARIALE);
+            ajouterElementCalcule(fichePaie.getEmploye(), amoElement, donnees);
         }
-        cotisationsSalariales = cotisationsSalariales.add(cotisationCNSS).add(cotisationAMO);
-        return cotisationsSalariales;
     }
 
-    BigDecimal calculerCotisationPatronale(FichePaie fichePaie) {
+    BigDecimal calculerCotisationPatronale(FichePaie fichePaie, PayrollInputSnapshot donnees) {
         BigDecimal cotisationsPatronales = BigDecimal.ZERO;
 
         // Base brute soumise CNSS
@@ -374,13 +547,14 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
 
         BigDecimal baseCNSS = soumisCNSS.subtract(retenue);
 
-        BigDecimal plafond = new BigDecimal("6000");
+        BaremePaie bareme = bareme(fichePaie, donnees);
+        BigDecimal plafond = bareme.plafondCNSS();
 
         // Taux patronaux
-        BigDecimal tauxCNSSPatronale = new BigDecimal("0.0898"); // 8,98%
-        BigDecimal tauxAMOPatronale = new BigDecimal("0.0411");  // 4,11%
-        BigDecimal tauxFormationPro = new BigDecimal("0.016");   // 1,6%
-        BigDecimal tauxAllocationsFamiliales = new BigDecimal("0.064"); // 6,4%
+        BigDecimal tauxCNSSPatronale = bareme.tauxCNSSPatronal();
+        BigDecimal tauxAMOPatronale = bareme.tauxAMOPatronal();
+        BigDecimal tauxFormationPro = bareme.tauxFormationPro();
+        BigDecimal tauxAllocationsFamiliales = bareme.tauxAllocationsFamiliales();
 
         // Cotisations
         BigDecimal cotisationCNSSPatronale;
@@ -400,58 +574,71 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
         cotisationAMOPatronale = baseCNSS.multiply(tauxAMOPatronale);
         cotisationFormationPro = baseCNSS.multiply(tauxFormationPro);
 
-        log.info("Base CNSS pour les cotisations patronales : {}", baseCNSS);
-        log.info("Cotisation CNSS Patronale : {}", cotisationCNSSPatronale);
-        log.info("Cotisation AMO Patronale : {}", cotisationAMOPatronale);
-        log.info("Cotisation Formation Professionnelle : {}", cotisationFormationPro);
-        log.info("Cotisation Allocations Familiales : {}", cotisationAllocationsFamiliales);
+        log.debug("Base CNSS pour les cotisations patronales : {}", baseCNSS);
+        log.debug("Cotisation CNSS Patronale : {}", cotisationCNSSPatronale);
+        log.debug("Cotisation AMO Patronale : {}", cotisationAMOPatronale);
+        log.debug("Cotisation Formation Professionnelle : {}", cotisationFormationPro);
+        log.debug("Cotisation Allocations Familiales : {}", cotisationAllocationsFamiliales);
 
-            log.info("Ajout des cotisations CNSS Patronale à la fiche de paie.");
+        ajouterCotisationsPatronales(fichePaie, donnees, bareme, baseCNSS, cotisationCNSSPatronale, cotisationAMOPatronale,
+                cotisationFormationPro, cotisationAllocationsFamiliales);
+
+        cotisationsPatronales = cotisationsPatronales
+                .add(cotisationCNSSPatronale)
+                .add(cotisationAMOPatronale)
+                .add(cotisationFormationPro)
+                .add(cotisationAllocationsFamiliales);
+
+        return cotisationsPatronales;
+    }
+
+    private void ajouterCotisationsPatronales(FichePaie fichePaie, PayrollInputSnapshot donnees, BaremePaie bareme,
+                                              BigDecimal baseCNSS, BigDecimal cotisationCNSSPatronale,
+                                              BigDecimal cotisationAMOPatronale, BigDecimal cotisationFormationPro,
+                                              BigDecimal cotisationAllocationsFamiliales) {
+        Long employeId = fichePaie.getEmploye().getId();
+        log.debug("Ajout des cotisations CNSS Patronale à la fiche de paie.");
+        if (!donnees.contientCode(employeId, CodeElement.CNSS_PATRONALE)) {
             ElementPaie cnssPat = new ElementPaie(null, TypeElement.COTISATION_SOCIALE,
                     "Cotisation CNSS Patronale", "CNSS Patronale", ModeCalcul.TAUX, cotisationCNSSPatronale,
-                    tauxCNSSPatronale.multiply(BigDecimal.valueOf(100)), baseCNSS,
-                    "Cotisation CNSS part employeur", false, false, null, null);
-        if (!elementPaieRepository.existsByEmployeAndLibelleContaining(fichePaie.getEmploye(), "CNSS Patronale")) {
-            ajouterElementPaie(fichePaie.getEmploye().getId(), cnssPat);
+                    bareme.tauxCNSSPatronal().multiply(CENT), baseCNSS,
+                    "Cotisation CNSS part employeur", false, false, null, null, CodeElement.CNSS_PATRONALE);
+            ajouterElementCalcule(fichePaie.getEmploye(), cnssPat, donnees);
         }
 
-            log.info("Ajout des cotisations AMO Patronale à la fiche de paie.");
+        log.debug("Ajout des cotisations AMO Patronale à la fiche de paie.");
+        if (!donnees.contientCode(employeId, CodeElement.AMO_PATRONALE)) {
             ElementPaie amoPat = new ElementPaie(null, TypeElement.COTISATION_SOCIALE,
                     "Cotisation AMO Patronale", "AMO Patronale", ModeCalcul.TAUX, cotisationAMOPatronale,
-                    tauxAMOPatronale.multiply(BigDecimal.valueOf(100)), baseCNSS,
-                    "Cotisation AMO part employeur", false, false, null, null);
-            if (!elementPaieRepository.existsByEmployeAndLibelleContaining(fichePaie.getEmploye(), "AMO Patronale")) {
-            ajouterElementPaie(fichePaie.getEmploye().getId(), amoPat);
+                    bareme.tauxAMOPatronal().multiply(CENT), baseCNSS,
+                    "Cotisation AMO part employeur", false, false, null, null, CodeElement.AMO_PATRONALE);
+            ajouterElementCalcule(fichePaie.getEmploye(), amoPat, donnees);
         }
 
-            log.info("Ajout des cotisations Formation Professionnelle à la fiche de paie.");
+        log.debug("Ajout des cotisations Formation Professionnelle à la fiche de paie.");
+        if (!donnees.contientCode(employeId, CodeElement.FORMATION_PRO)) {
             ElementPaie formPro = new ElementPaie(null, TypeElement.COTISATION_SOCIALE,
                     "Cotisation Formation Professionnelle", "Formation Pro", ModeCalcul.TAUX, cotisationFormationPro,
-                    tauxFormationPro.multiply(BigDecimal.valueOf(100)), baseCNSS,
-                    "Cotisation Formation Pro part employeur", false, false, null, null);
-            if (!elementPaieRepository.existsByEmployeAndLibelleContaining(fichePaie.getEmploye(), "Formation Pro")) {
-            ajouterElementPaie(fichePaie.getEmploye().getId(), formPro);
+                    bareme.tauxFormationPro().multiply(CENT), baseCNSS,
+                    "Cotisation Formation Pro part employeur", false, false, null, null, CodeElement.FORMATION_PRO);
+            ajouterElementCalcule(fichePaie.getEmploye(), formPro, donnees);
         }
 
-            log.info("Ajout des cotisations Allocations Familiales à la fiche de paie.");
+        log.debug("Ajout des cotisations Allocations Familiales à la fiche de paie.");
+        if (!donnees.contientCode(employeId, CodeElement.ALLOCATIONS_FAMILIALES)) {
             ElementPaie alloc = new ElementPaie(null, TypeElement.COTISATION_SOCIALE,
                     "Cotisation Allocations Familiales", "Allocations Familiales", ModeCalcul.TAUX, cotisationAllocationsFamiliales,
-                    tauxAllocationsFamiliales.multiply(BigDecimal.valueOf(100)), baseCNSS,
-                    "Cotisation Allocations Familiales part employeur", false, false, null, null);
-            if (!elementPaieRepository.existsByEmployeAndLibelleContaining(fichePaie.getEmploye(), "Allocations Familiales")) {
-            ajouterElementPaie(fichePaie.getEmploye().getId(), alloc);
+                    bareme.tauxAllocationsFamiliales().multiply(CENT), baseCNSS,
+                    "Cotisation Allocations Familiales part employeur", false, false, null, null, CodeElement.ALLOCATIONS_FAMILIALES);
+            ajouterElementCalcule(fichePaie.getEmploye(), alloc, donnees);
         }
+    }
 
-        cotisationsPatronales = cotisationsPatronales
-                .add(cotisationCNSSPatronale)
-                .add(cotisationAMOPatronale)
-                .add(cotisationFormationPro)
-                .add(cotisationAllocationsFamiliales);
 
-        return cotisationsPatronales;
+    private BaremePaie bareme(FichePaie fichePaie, PayrollInputSnapshot donnees) {
+        return donnees.getBareme() != null ? donnees.getBareme() : baremePaieService.getBareme(fichePaie.getPeriode());
     }
 
-
     BigDecimal calculerSalaireNet(FichePaie fichePaie) {
         BigDecimal salaireNet;
         salaireNet = fichePaie.getSalaireBrutImposable()
@@ -460,57 +647,42 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
         return salaireNet;
     }
 
-    public BigDecimal calculerImpotSurLeRevenu(FichePaie fichePaie, int nombrePersonnesCharge) {
+    public BigDecimal calculerImpotSurLeRevenu(FichePaie fichePaie, int nombrePersonnesCharge, PayrollInputSnapshot donnees) {
+        BaremePaie bareme = bareme(fichePaie, donnees);
         BigDecimal salaireBrutImposable = fichePaie.getSalaireBrutImposable();
-        BigDecimal salaireAnnuelImposable = salaireBrutImposable.multiply(BigDecimal.valueOf(12));
+        BigDecimal salaireAnnuelImposable = salaireBrutImposable.multiply(DOUZE);
 
-        // 1. Frais professionnels : 20% plafonné à 30 000 DH/an
-        BigDecimal fraisProfessionnels = salaireAnnuelImposable.multiply(BigDecimal.valueOf(0.20))
-                .min(BigDecimal.valueOf(30000));
+        // 1. Frais professionnels : taux plafonné (20 % dans la limite de 30 000 DH/an)
+        BigDecimal fraisProfessionnels = salaireAnnuelImposable.multiply(bareme.tauxFraisProfessionnels())
+                .min(bareme.plafondFraisProfessionnels());
 
         // 2. Base imposable annuelle
         BigDecimal baseImposable = salaireAnnuelImposable.subtract(fraisProfessionnels);
 
-        // 3. Application barème progressif (exemple Maroc)
-        BigDecimal impotAnnuel;
-        if (baseImposable.compareTo(BigDecimal.valueOf(30000)) <= 0) {
-            impotAnnuel = BigDecimal.ZERO;
-        } else if (baseImposable.compareTo(BigDecimal.valueOf(50000)) <= 0) {
-            impotAnnuel = baseImposable.subtract(BigDecimal.valueOf(30000))
-                    .multiply(BigDecimal.valueOf(0.10));
-        } else if (baseImposable.compareTo(BigDecimal.valueOf(60000)) <= 0) {
-            impotAnnuel = BigDecimal.valueOf(2000)
-                    .add(baseImposable.subtract(BigDecimal.valueOf(50000))
-                            .multiply(BigDecimal.valueOf(0.20)));
-        } else if (baseImposable.compareTo(BigDecimal.valueOf(80000)) <= 0) {
-            impotAnnuel = BigDecimal.valueOf(4000)
-                    .add(baseImposable.subtract(BigDecimal.valueOf(60000))
-                            .multiply(BigDecimal.valueOf(0.30)));
-        } else if (baseImposable.compareTo(BigDecimal.valueOf(180000)) <= 0) {
-            impotAnnuel = BigDecimal.valueOf(10000)
-                    .add(baseImposable.subtract(BigDecimal.valueOf(80000))
-                            .multiply(BigDecimal.valueOf(0.34)));
-        } else {
-            impotAnnuel = BigDecimal.valueOf(54800)
-                    .add(baseImposable.subtract(BigDecimal.valueOf(180000))
-                            .multiply(BigDecimal.valueOf(0.38)));
-        }
+        // 3. Application du barème progressif : tranche trouvée par recherche dichotomique
+        BigDecimal impotAnnuel = bareme.impotAnnuelBrut(baseImposable);
 
-        // 4. Abattement charges de famille (360 DH / pers / an, max 6 pers)
-        int nbPers = Math.min(nombrePersonnesCharge, 6);
-        BigDecimal abattement = BigDecimal.valueOf(nbPers * 360L);
+        // 4. Abattement charges de famille (par personne et par an, nombre de personnes plafonné)
+        int nbPers = Math.min(nombrePersonnesCharge, bareme.maxPersonnesACharge());
+        BigDecimal abattement = bareme.deductionParPersonneACharge().multiply(BigDecimal.valueOf(nbPers));
         impotAnnuel = impotAnnuel.subtract(abattement).max(BigDecimal.ZERO);
 
         // 5. Impôt mensuel
-        BigDecimal impotMensuel = impotAnnuel.divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP);
-        //ajouter element paie impot sur le revenu si n'existe pas
-        if (!elementPaieRepository.existsByEmployeAndLibelleContaining(fichePaie.getEmploye(), "Impôt sur le revenu")) {
-            log.info("Ajout de l'impôt sur le revenu à la fiche de paie.");
+        BigDecimal impotMensuel = impotAnnuel.divide(DOUZE, 2, RoundingMode.HALF_UP);
+        ajouterImpot(fichePaie, donnees, impotMensuel);
+        return impotMensuel;
+    }
+
+    /**
+     * Ajoute l'élément de paie de l'impôt sur le revenu s'il n'existe pas encore.
+     */
+    private void ajouterImpot(FichePaie fichePaie, PayrollInputSnapshot donnees, BigDecimal impotMensuel) {
+        if (!donnees.contientCode(fichePaie.getEmploye().getId(), CodeElement.IMPOT_REVENU)) {
+            log.debug("Ajout de l'impôt sur le revenu à la fiche de paie.");
             ElementPaie irElement = new ElementPaie(null, TypeElement.IMPOT, "Impôt sur le revenu", "Impôt sur le revenu", ModeCalcul.TAUX, impotMensuel
-                    , null, null, "Impôt sur le revenu calculé automatiquement", false, false, null, null);
-            ajouterElementPaie(fichePaie.getEmploye().getId(), irElement);
+                    , null, null, "Impôt sur le revenu calculé automatiquement", false, false, null, null, CodeElement.IMPOT_REVENU);
+            ajouterElementCalcule(fichePaie.getEmploye(), irElement, donnees);
         }
-        return impotMensuel;
     }
 
     @Override
@@ -519,6 +691,7 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
         ElementPaie element = elementPaieRepository.findById(elementPaieId)
                 .orElseThrow(() -> new EntityNotFoundException("Élément de paie non trouvé avec l'ID: " + elementPaieId));
         elementPaieRepository.delete(element);
+        modificationPaieService.marquerModifie(element.getEmploye().getId(), SourceModification.ELEMENT_PAIE);
         log.info("Élément de paie supprimé avec succès, ID: {}", elementPaieId);
     }
 
@@ -554,5 +727,69 @@ public class GenerationFichePaieServiceImpl implements GenerationFichePaieServic
         fichesAccessibles.sort((f1, f2) -> f2.getDateGeneration().compareTo(f1.getDateGeneration()));
         return fichesAccessibles;
     }
-}
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageFichesPaieDto listerFichesPaie(Long userId, String curseur, int taille) {
+        Users users = usersRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'ID : " + userId));
+        List<Long> employeIds = switch (users.getUserType()) {
+            case EMPLOYE -> List.of(userId);
+            case MANAGER -> employeRepository.findIdsByManagerId(userId);
+            default -> List.of();
+        };
+        if (employeIds.isEmpty()) {
+            return new PageFichesPaieDto(List.of(), null);
+        }
+
+        // une ligne de plus que demandé indique s'il reste une page
+        PageRequest page = PageRequest.of(0, borner(taille) + 1);
+        List<FichePaieResumeDto> fiches;
+        if (curseur == null || curseur.isBlank()) {
+            fiches = fichePaieRepository.findResumesByEmployeIdIn(employeIds, page);
+        } else {
+            // curseur "AAAA-MM_id" : la dernière fiche de la page précédente
+            String[] position = curseur.split("_");
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Curseur invalide : " + curseur);
+            }
+            YearMonth avantPeriode;
+            long avantId;
+            try {
+                avantPeriode = YearMonth.parse(position[0]);
+                avantId = Long.parseLong(position[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Curseur invalide : " + curseur);
+            }
+            fiches = fichePaieRepository.findResumesByEmployeIdInAvant(employeIds, avantPeriode, avantId, page);
+        }
+        return paginer(fiches, borner(taille), fiche -> fiche.periode() + "_" + fiche.id());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageFichesPaieDto listerFichesPaieParPeriode(YearMonth periode, String curseur, int taille) {
+        long apresId;
+        try {
+            apresId = curseur == null || curseur.isBlank() ? 0L : Long.parseLong(curseur);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Curseur invalide : " + curseur);
+        }
+        List<FichePaieResumeDto> fiches = fichePaieRepository.findResumesByPeriodeApres(periode, apresId,
+                PageRequest.of(0, borner(taille) + 1));
+        return paginer(fiches, borner(taille), fiche -> String.valueOf(fiche.id()));
+    }
+
+    private static int borner(int taille) {
+        return Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+    }
+
+    private static PageFichesPaieDto paginer(List<FichePaieResumeDto> fiches, int taille,
+                                             Function<FichePaieResumeDto, String> curseur) {
+        if (fiches.size() <= taille) {
+            return new PageFichesPaieDto(fiches, null);
+        }
+        List<FichePaieResumeDto> page = fiches.subList(0, taille);
+        return new PageFichesPaieDto(page, curseur.apply(page.get(taille - 1)));
+    }
+}
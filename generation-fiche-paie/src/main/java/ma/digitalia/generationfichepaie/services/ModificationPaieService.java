@@ -0,0 +1,31 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.Enum.SourceModification;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface ModificationPaieService {
+
+    /**
+     * Enregistrer une modification des données de paie d'un employé valable pour toutes les périodes.
+     * @param employeId l'identifiant de l'employé
+     * @param source l'origine de la modification
+     */
+    void marquerModifie(Long employeId, SourceModification source);
+
+    /**
+     * Enregistrer une modification des données de paie d'un employé pour une seule période.
+     * @param employeId l'identifiant de l'employé
+     * @param periode la période concernée
+     * @param source l'origine de la modification
+     */
+    void marquerModifie(Long employeId, YearMonth periode, SourceModification source);
+
+    /**
+     * Récupérer les employés dont la fiche de la période a été générée avant la dernière modification de leurs données.
+     * @param periode la période de paie
+     * @return les identifiants des employés à recalculer, par ordre croissant
+     */
+    List<Long> getEmployesARecalculer(YearMonth periode);
+}
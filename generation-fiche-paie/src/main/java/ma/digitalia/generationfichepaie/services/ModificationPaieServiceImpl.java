@@ -0,0 +1,69 @@
+package ma.digitalia.generationfichepaie.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.SourceModification;
+import ma.digitalia.generationfichepaie.entities.ModificationPaie;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import ma.digitalia.gestionutilisateur.events.SalaireBaseModifieEvent;
+import ma.digitalia.suividutemps.events.RapportTempsGenereEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+@Slf4j
+@Service
+public class ModificationPaieServiceImpl implements ModificationPaieService {
+
+    // Une ligne par employé et portée : seule la dernière modification compte
+    private static final String UPSERT = """
+            INSERT INTO modification_paie (employe_id, periode, date_modification, source)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (employe_id, periode) DO UPDATE SET
+                date_modification = EXCLUDED.date_modification,
+                source = EXCLUDED.source
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FichePaieRepository fichePaieRepository;
+
+    public ModificationPaieServiceImpl(JdbcTemplate jdbcTemplate, FichePaieRepository fichePaieRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fichePaieRepository = fichePaieRepository;
+    }
+
+    @Override
+    public void marquerModifie(Long employeId, SourceModification source) {
+        enregistrer(employeId, ModificationPaie.TOUTES_PERIODES, source);
+    }
+
+    @Override
+    public void marquerModifie(Long employeId, YearMonth periode, SourceModification source) {
+        enregistrer(employeId, periode.toString(), source);
+    }
+
+    @Override
+    public List<Long> getEmployesARecalculer(YearMonth periode) {
+        return fichePaieRepository.findEmployeIdsModifiesDepuisGeneration(periode, periode.toString(),
+                ModificationPaie.TOUTES_PERIODES);
+    }
+
+    @EventListener
+    public void onRapportTempsGenere(RapportTempsGenereEvent event) {
+        marquerModifie(event.employeId(), event.periode(), SourceModification.RAPPORT_TEMPS);
+    }
+
+    @EventListener
+    public void onSalaireBaseModifie(SalaireBaseModifieEvent event) {
+        marquerModifie(event.employeId(), SourceModification.SALAIRE_BASE);
+    }
+
+    private void enregistrer(Long employeId, String periode, SourceModification source) {
+        jdbcTemplate.update(UPSERT, employeId, periode, Timestamp.valueOf(LocalDateTime.now()), source.name());
+        log.debug("Données de paie de l'employé {} modifiées ({}, période {})", employeId, source, periode);
+    }
+}
@@ -0,0 +1,28 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
+
+import java.time.YearMonth;
+import java.util.Collection;
+
+public interface PayrollInputLoader {
+
+    /**
+     * Charger les données d'entrée de la paie d'un lot d'employés : employés, éléments de paie,
+     * rapports de temps et fiches déjà générées, avec un nombre de requêtes indépendant de la taille du lot.
+     * Doit être appelé dans la transaction qui génère les fiches pour que les entités restent attachées.
+     * @param employeIds les identifiants des employés du lot
+     * @param periode la période de paie
+     * @return l'instantané des données du lot
+     */
+    PayrollInputSnapshot charger(Collection<Long> employeIds, YearMonth periode);
+
+    /**
+     * Charger un instantané de simulation : employés et éléments de paie seulement, sans générer de rapport de temps
+     * manquant (les montants n'en dépendent pas). Aucune écriture n'est faite.
+     * @param employeIds les identifiants des employés du lot
+     * @param periode la période de paie simulée
+     * @return l'instantané de simulation du lot, avec le barème en vigueur
+     */
+    PayrollInputSnapshot chargerPourSimulation(Collection<Long> employeIds, YearMonth periode);
+}
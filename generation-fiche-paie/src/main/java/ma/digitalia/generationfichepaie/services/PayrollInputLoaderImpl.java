@@ -0,0 +1,89 @@
+package ma.digitalia.generationfichepaie.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.EtapePaie;
+import ma.digitalia.generationfichepaie.entities.ElementPaie;
+import ma.digitalia.generationfichepaie.helpers.PaieMetrics;
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
+import ma.digitalia.generationfichepaie.repositories.ElementPaieRepository;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import ma.digitalia.gestionutilisateur.entities.Employe;
+import ma.digitalia.gestionutilisateur.entities.Users;
+import ma.digitalia.gestionutilisateur.repositories.EmployeRepository;
+import ma.digitalia.suividutemps.entities.RapportTemps;
+import ma.digitalia.suividutemps.services.RapportTempsService;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Service
+public class PayrollInputLoaderImpl implements PayrollInputLoader {
+
+    private final EmployeRepository employeRepository;
+    private final ElementPaieRepository elementPaieRepository;
+    private final FichePaieRepository fichePaieRepository;
+    private final RapportTempsService rapportTempsService;
+    private final PaieMetrics paieMetrics;
+
+    public PayrollInputLoaderImpl(EmployeRepository employeRepository, ElementPaieRepository elementPaieRepository,
+                                  FichePaieRepository fichePaieRepository, RapportTempsService rapportTempsService,
+                                  PaieMetrics paieMetrics) {
+        this.employeRepository = employeRepository;
+        this.elementPaieRepository = elementPaieRepository;
+        this.fichePaieRepository = fichePaieRepository;
+        this.rapportTempsService = rapportTempsService;
+        this.paieMetrics = paieMetrics;
+    }
+
+    @Override
+    public PayrollInputSnapshot charger(Collection<Long> employeIds, YearMonth periode) {
+        long debut = System.currentTimeMillis();
+
+        Map<Long, Employe> employes = chargerEmployes(employeIds);
+        Map<Long, List<ElementPaie>> elements = paieMetrics.mesurer(EtapePaie.ELEMENTS, () -> chargerElements(employes));
+
+        Map<Long, RapportTemps> rapports = paieMetrics.mesurer(EtapePaie.RAPPORT_TEMPS,
+                () -> rapportTempsService.getMonthlyReports(employes.values(), periode));
+        Set<Long> employesAvecFiche = employes.isEmpty() ? new HashSet<>()
+                : new HashSet<>(fichePaieRepository.findEmployeIdsAvecFiche(employes.keySet(), periode));
+
+        log.debug("Données de paie {} chargées pour {} employés en {} ms", periode, employes.size(),
+                System.currentTimeMillis() - debut);
+        return new PayrollInputSnapshot(periode, employes, elements, rapports, employesAvecFiche);
+    }
+
+    @Override
+    public PayrollInputSnapshot chargerPourSimulation(Collection<Long> employeIds, YearMonth periode) {
+        Map<Long, Employe> employes = chargerEmployes(employeIds);
+        Map<Long, List<ElementPaie>> elements = chargerElements(employes);
+        return new PayrollInputSnapshot(periode, employes, elements, Map.of(), Set.of()).simulation(elements, null);
+    }
+
+    private Map<Long, Employe> chargerEmployes(Collection<Long> employeIds) {
+        Map<Long, Employe> employes = new HashMap<>();
+        for (Users user : employeRepository.findAllById(employeIds)) {
+            if (user instanceof Employe employe) {
+                employes.put(employe.getId(), employe);
+            }
+        }
+        return employes;
+    }
+
+    private Map<Long, List<ElementPaie>> chargerElements(Map<Long, Employe> employes) {
+        Map<Long, List<ElementPaie>> elements = new HashMap<>();
+        if (!employes.isEmpty()) {
+            for (ElementPaie element : elementPaieRepository.findByEmployeIdIn(employes.keySet())) {
+                elements.computeIfAbsent(element.getEmploye().getId(), k -> new ArrayList<>()).add(element);
+            }
+        }
+        return elements;
+    }
+}
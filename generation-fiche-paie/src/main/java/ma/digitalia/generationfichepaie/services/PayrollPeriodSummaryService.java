@@ -0,0 +1,47 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.entities.PayrollPeriodSummary;
+import ma.digitalia.generationfichepaie.helpers.ContributionFichePaie;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface PayrollPeriodSummaryService {
+
+    /**
+     * Reporter la variation d'une fiche de paie dans les agrégats de sa période et du département de la variation
+     * (à défaut, celui de l'employé).
+     * Doit être appelé dans la transaction qui enregistre la fiche.
+     * @param fiche la fiche créée, modifiée ou supprimée
+     * @param variation la variation de sa part dans les agrégats
+     */
+    void appliquer(FichePaie fiche, ContributionFichePaie variation);
+
+    /**
+     * @return le département actuel de l'employé de la fiche, clé de sa ligne dans {@code payroll_period_summary}
+     */
+    String departement(FichePaie fiche);
+
+    /**
+     * @return les agrégats de la période, un par département
+     */
+    List<PayrollPeriodSummary> getResumes(YearMonth periode);
+
+    /**
+     * Mis en cache jusqu'à la prochaine modification d'une fiche de la période : l'objet renvoyé ne doit pas être modifié.
+     * @return les agrégats de la période tous départements confondus (à zéro si aucune fiche)
+     */
+    PayrollPeriodSummary getTotaux(YearMonth periode);
+
+    /**
+     * @return les agrégats tous départements confondus de chaque période ayant des fiches, par ordre chronologique
+     */
+    List<PayrollPeriodSummary> getTotauxEntre(YearMonth debut, YearMonth fin);
+
+    /**
+     * Recalculer toutes les lignes à partir des fiches de paie.
+     * @return le nombre de lignes (période, département) reconstruites
+     */
+    int reconstruire();
+}
@@ -0,0 +1,180 @@
+package ma.digitalia.generationfichepaie.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.config.DashboardCacheConfig;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.entities.PayrollPeriodSummary;
+import ma.digitalia.generationfichepaie.events.PeriodePaieModifieeEvent;
+import ma.digitalia.generationfichepaie.helpers.ContributionFichePaie;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import ma.digitalia.generationfichepaie.repositories.PayrollPeriodSummaryRepository;
+import ma.digitalia.gestionutilisateur.entities.Manager;
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Service
+public class PayrollPeriodSummaryServiceImpl implements PayrollPeriodSummaryService {
+
+    // Upsert atomique : les partitions d'un lancement de paie mettent à jour les mêmes lignes en parallèle
+    private static final String UPSERT = """
+            INSERT INTO payroll_period_summary (periode, departement, nombre_fiches, nombre_fiches_erronees,
+                salaire_brut, salaire_brut_imposable, cotisations_salariales, cotisations_patronales,
+                salaire_net_imposable, salaire_net, impot_sur_le_revenu, date_maj)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (periode, departement) DO UPDATE SET
+                nombre_fiches = payroll_period_summary.nombre_fiches + EXCLUDED.nombre_fiches,
+                nombre_fiches_erronees = payroll_period_summary.nombre_fiches_erronees + EXCLUDED.nombre_fiches_erronees,
+                salaire_brut = payroll_period_summary.salaire_brut + EXCLUDED.salaire_brut,
+                salaire_brut_imposable = payroll_period_summary.salaire_brut_imposable + EXCLUDED.salaire_brut_imposable,
+                cotisations_salariales = payroll_period_summary.cotisations_salariales + EXCLUDED.cotisations_salariales,
+                cotisations_patronales = payroll_period_summary.cotisations_patronales + EXCLUDED.cotisations_patronales,
+                salaire_net_imposable = payroll_period_summary.salaire_net_imposable + EXCLUDED.salaire_net_imposable,
+                salaire_net = payroll_period_summary.salaire_net + EXCLUDED.salaire_net,
+                impot_sur_le_revenu = payroll_period_summary.impot_sur_le_revenu + EXCLUDED.impot_sur_le_revenu,
+                date_maj = EXCLUDED.date_maj
+            """;
+
+    private static final String DEPARTEMENT_EMPLOYE =
+            "SELECT m.department FROM employe e LEFT JOIN manager m ON e.manager_id = m.id WHERE e.id = ?";
+
+    private final PayrollPeriodSummaryRepository summaryRepository;
+    private final FichePaieRepository fichePaieRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PayrollPeriodSummaryServiceImpl(PayrollPeriodSummaryRepository summaryRepository,
+                                           FichePaieRepository fichePaieRepository, JdbcTemplate jdbcTemplate,
+                                           ApplicationEventPublisher eventPublisher) {
+        this.summaryRepository = summaryRepository;
+        this.fichePaieRepository = fichePaieRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void appliquer(FichePaie fiche, ContributionFichePaie variation) {
+        if (variation.estNulle()) {
+            return;
+        }
+        // appelé pendant le flush Hibernate : passer par JDBC, sur la connexion de la transaction en cours
+        String departement = variation.departement() != null ? variation.departement() : departement(fiche);
+        upsert(fiche.getPeriode().toString(), departement, variation);
+        eventPublisher.publishEvent(new PeriodePaieModifieeEvent(fiche.getPeriode()));
+    }
+
+    @Override
+    public List<PayrollPeriodSummary> getResumes(YearMonth periode) {
+        return summaryRepository.findByPeriode(periode.toString());
+    }
+
+    @Override
+    @Cacheable(value = DashboardCacheConfig.CACHE_TOTAUX_PERIODE, key = "#periode.toString()")
+    public PayrollPeriodSummary getTotaux(YearMonth periode) {
+        PayrollPeriodSummary totaux = vide(periode.toString());
+        for (PayrollPeriodSummary resume : getResumes(periode)) {
+            cumuler(totaux, resume);
+        }
+        return totaux;
+    }
+
+    @Override
+    public List<PayrollPeriodSummary> getTotauxEntre(YearMonth debut, YearMonth fin) {
+        Map<String, PayrollPeriodSummary> parPeriode = new LinkedHashMap<>();
+        for (PayrollPeriodSummary resume : summaryRepository.findByPeriodeBetweenOrderByPeriode(debut.toString(), fin.toString())) {
+            cumuler(parPeriode.computeIfAbsent(resume.getPeriode(), this::vide), resume);
+        }
+        return new ArrayList<>(parPeriode.values());
+    }
+
+    @Override
+    @Transactional
+    public int reconstruire() {
+        long debut = System.currentTimeMillis();
+        jdbcTemplate.update("DELETE FROM payroll_period_summary");
+        List<Object[]> agregats = fichePaieRepository.getAgregatsParPeriodeEtDepartement();
+        Set<YearMonth> periodes = new HashSet<>();
+        for (Object[] ligne : agregats) {
+            periodes.add((YearMonth) ligne[0]);
+            String departement = ligne[1] != null ? (String) ligne[1] : PayrollPeriodSummary.DEPARTEMENT_NON_DEFINI;
+            upsert(ligne[0].toString(), departement, new ContributionFichePaie(departement,
+                    ((Number) ligne[2]).longValue(),
+                    ((Number) ligne[3]).longValue(),
+                    montant(ligne[4]), montant(ligne[5]), montant(ligne[6]), montant(ligne[7]),
+                    montant(ligne[8]), montant(ligne[9]), montant(ligne[10])));
+        }
+        periodes.forEach(periode -> eventPublisher.publishEvent(new PeriodePaieModifieeEvent(periode)));
+        log.info("Agrégats de paie reconstruits : {} lignes en {} ms", agregats.size(), System.currentTimeMillis() - debut);
+        return agregats.size();
+    }
+
+    private void upsert(String periode, String departement, ContributionFichePaie variation) {
+        jdbcTemplate.update(UPSERT, periode, departement,
+                variation.nombreFiches(), variation.nombreFichesErronees(),
+                variation.salaireBrut(), variation.salaireBrutImposable(),
+                variation.cotisationsSalariales(), variation.cotisationsPatronales(),
+                variation.salaireNetImposable(), variation.salaireNet(), variation.impotSurLeRevenu(),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Override
+    public String departement(FichePaie fiche) {
+        Manager manager = fiche.getEmploye().getManager();
+        String departement;
+        if (manager == null || Hibernate.isInitialized(manager)) {
+            departement = manager != null ? manager.getDepartment() : null;
+        } else {
+            // la fiche peut porter un employé détaché dont le manager n'est pas chargé
+            departement = jdbcTemplate.queryForList(DEPARTEMENT_EMPLOYE, String.class, fiche.getEmploye().getId())
+                    .stream().findFirst().orElse(null);
+        }
+        return departement != null ? departement : PayrollPeriodSummary.DEPARTEMENT_NON_DEFINI;
+    }
+
+    private PayrollPeriodSummary vide(String periode) {
+        PayrollPeriodSummary resume = new PayrollPeriodSummary();
+        resume.setPeriode(periode);
+        resume.setSalaireBrut(BigDecimal.ZERO);
+        resume.setSalaireBrutImposable(BigDecimal.ZERO);
+        resume.setCotisationsSalariales(BigDecimal.ZERO);
+        resume.setCotisationsPatronales(BigDecimal.ZERO);
+        resume.setSalaireNetImposable(BigDecimal.ZERO);
+        resume.setSalaireNet(BigDecimal.ZERO);
+        resume.setImpotSurLeRevenu(BigDecimal.ZERO);
+        return resume;
+    }
+
+    private void cumuler(PayrollPeriodSummary totaux, PayrollPeriodSummary resume) {
+        totaux.setNombreFiches(totaux.getNombreFiches() + resume.getNombreFiches());
+        totaux.setNombreFichesErronees(totaux.getNombreFichesErronees() + resume.getNombreFichesErronees());
+        totaux.setSalaireBrut(totaux.getSalaireBrut().add(montant(resume.getSalaireBrut())));
+        totaux.setSalaireBrutImposable(totaux.getSalaireBrutImposable().add(montant(resume.getSalaireBrutImposable())));
+        totaux.setCotisationsSalariales(totaux.getCotisationsSalariales().add(montant(resume.getCotisationsSalariales())));
+        totaux.setCotisationsPatronales(totaux.getCotisationsPatronales().add(montant(resume.getCotisationsPatronales())));
+        totaux.setSalaireNetImposable(totaux.getSalaireNetImposable().add(montant(resume.getSalaireNetImposable())));
+        totaux.setSalaireNet(totaux.getSalaireNet().add(montant(resume.getSalaireNet())));
+        totaux.setImpotSurLeRevenu(totaux.getImpotSurLeRevenu().add(montant(resume.getImpotSurLeRevenu())));
+        if (totaux.getDateMaj() == null || (resume.getDateMaj() != null && resume.getDateMaj().isAfter(totaux.getDateMaj()))) {
+            totaux.setDateMaj(resume.getDateMaj());
+        }
+    }
+
+    private static BigDecimal montant(Object valeur) {
+        return valeur != null ? (BigDecimal) valeur : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,69 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.Enum.StrategiePartition;
+import ma.digitalia.generationfichepaie.dto.run.PayrollRunSummaryDto;
+import ma.digitalia.generationfichepaie.dto.run.RecalculPaieDto;
+import ma.digitalia.generationfichepaie.entities.PayrollRun;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+public interface PayrollRunService {
+
+    /**
+     * Lancer la paie de tous les employés actifs pour une période.
+     * Les employés sont découpés en partitions traitées en parallèle, chaque partition dans sa propre transaction.
+     * L'avancement est enregistré dans le registre de la période : relancer une période déjà (partiellement)
+     * traitée ne reprend que les employés qui ne sont pas encore terminés.
+     * @param periode la période de paie
+     * @param strategie la façon de découper les employés en partitions
+     * @return le bilan du lancement (succès, échecs par employé, durée par partition)
+     * @throws IllegalStateException si un lancement est déjà en cours pour cette période ou si elle est clôturée
+     */
+    PayrollRunSummaryDto lancerPaie(YearMonth periode, StrategiePartition strategie);
+
+    /**
+     * Démarrer en arrière-plan le lancement de la paie d'une période, comme {@link #lancerPaie}.
+     * Le registre est préparé avant le retour ; l'avancement se suit ensuite par {@link #getRun}.
+     * @param periode la période de paie
+     * @param strategie la façon de découper les employés en partitions
+     * @return le registre du lancement, au statut EN_COURS
+     * @throws IllegalStateException si un lancement est déjà en cours pour cette période, si elle est clôturée
+     * ou si trop de lancements sont déjà en attente
+     */
+    PayrollRun demarrerPaie(YearMonth periode, StrategiePartition strategie);
+
+    /**
+     * Recalculer les fiches de la période dont les données d'entrée (éléments de paie, rapport de temps,
+     * salaire de base) ont changé depuis leur génération. Seules ces fiches sont recalculées et leur PDF
+     * rendu à nouveau ; les employés sans fiche relèvent de {@link #lancerPaie}.
+     * @param periode la période de paie
+     * @return le bilan du recalcul (fiches recalculées, échecs par employé, durée par partition)
+     * @throws IllegalStateException si un lancement est déjà en cours pour cette période ou si elle est clôturée
+     */
+    PayrollRunSummaryDto recalculerModifiees(YearMonth periode);
+
+    /**
+     * Démarrer en arrière-plan le recalcul des fiches modifiées d'une période, comme {@link #recalculerModifiees}.
+     * L'avancement se suit ensuite par {@link #getRecalcul}.
+     * @param periode la période de paie
+     * @return le recalcul, au statut EN_COURS
+     * @throws IllegalStateException si un lancement est déjà en cours pour cette période, si elle est clôturée
+     * ou si trop de lancements sont déjà en attente
+     */
+    RecalculPaieDto demarrerRecalcul(YearMonth periode);
+
+    /**
+     * Récupérer le dernier recalcul démarré pour une période depuis le démarrage de l'application.
+     * @param periode la période de paie
+     * @return le recalcul (statut, bilan une fois terminé), vide si aucun
+     */
+    Optional<RecalculPaieDto> getRecalcul(YearMonth periode);
+
+    /**
+     * Récupérer le registre de lancement d'une période.
+     * @param periode la période de paie
+     * @return le registre (statut, nombre de lancements, compteurs)
+     */
+    PayrollRun getRun(YearMonth periode);
+}
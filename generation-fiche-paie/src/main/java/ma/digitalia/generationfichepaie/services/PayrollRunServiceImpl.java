@@ -0,0 +1,510 @@
+package ma.digitalia.generationfichepaie.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.StatutRun;
+import ma.digitalia.generationfichepaie.Enum.StatutRunItem;
+import ma.digitalia.generationfichepaie.Enum.StrategiePartition;
+import ma.digitalia.generationfichepaie.dto.run.PartitionSummaryDto;
+import ma.digitalia.generationfichepaie.dto.run.PayrollRunSummaryDto;
+import ma.digitalia.generationfichepaie.dto.run.RecalculPaieDto;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.exception.FichePaieDejaGenereeException;
+import ma.digitalia.generationfichepaie.entities.PayrollRun;
+import ma.digitalia.generationfichepaie.entities.PayrollRunItem;
+import ma.digitalia.generationfichepaie.helpers.PaieMetrics;
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import ma.digitalia.generationfichepaie.repositories.PayrollRunItemRepository;
+import ma.digitalia.generationfichepaie.repositories.PayrollRunRepository;
+import ma.digitalia.gestionutilisateur.repositories.EmployeRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class PayrollRunServiceImpl implements PayrollRunService {
+
+    private static final String DEPARTEMENT_NON_DEFINI = "Non défini";
+
+    private final GenerationFichePaieService generationFichePaieService;
+    private final EmployeRepository employeRepository;
+    private final PayrollInputLoader payrollInputLoader;
+    private final PayrollRunRepository payrollRunRepository;
+    private final PayrollRunItemRepository payrollRunItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor payrollRunExecutor;
+    private final ThreadPoolTaskExecutor payrollRunLauncher;
+    private final CloturePaieService cloturePaieService;
+    private final ModificationPaieService modificationPaieService;
+    private final FichePaieRepository fichePaieRepository;
+    private final PaieMetrics paieMetrics;
+    private final int taillePartition;
+
+    /** Périodes en cours de traitement dans cette instance, pour refuser deux lancements simultanés */
+    private final Set<YearMonth> periodesEnCours = ConcurrentHashMap.newKeySet();
+    /** Dernier recalcul démarré par période, remplacé à chaque changement d'état */
+    private final Map<YearMonth, RecalculPaieDto> recalculs = new ConcurrentHashMap<>();
+
+    public PayrollRunServiceImpl(GenerationFichePaieService generationFichePaieService, EmployeRepository employeRepository,
+                                 PayrollInputLoader payrollInputLoader, PayrollRunRepository payrollRunRepository,
+                                 PayrollRunItemRepository payrollRunItemRepository, PlatformTransactionManager transactionManager,
+                                 @Qualifier("payrollRunExecutor") ThreadPoolTaskExecutor payrollRunExecutor,
+                                 @Qualifier("payrollRunLauncher") ThreadPoolTaskExecutor payrollRunLauncher,
+                                 CloturePaieService cloturePaieService, ModificationPaieService modificationPaieService,
+                                 FichePaieRepository fichePaieRepository, PaieMetrics paieMetrics,
+                                 @Value("${paie.run.taille-partition:50}") int taillePartition) {
+        this.generationFichePaieService = generationFichePaieService;
+        this.employeRepository = employeRepository;
+        this.payrollInputLoader = payrollInputLoader;
+        this.payrollRunRepository = payrollRunRepository;
+        this.payrollRunItemRepository = payrollRunItemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.payrollRunExecutor = payrollRunExecutor;
+        this.payrollRunLauncher = payrollRunLauncher;
+        this.cloturePaieService = cloturePaieService;
+        this.modificationPaieService = modificationPaieService;
+        this.fichePaieRepository = fichePaieRepository;
+        this.paieMetrics = paieMetrics;
+        this.taillePartition = Math.max(1, taillePartition);
+    }
+
+    @Override
+    public PayrollRunSummaryDto lancerPaie(YearMonth periode, StrategiePartition strategie) {
+        cloturePaieService.verifierOuverte(periode);
+        if (!periodesEnCours.add(periode)) {
+            throw new IllegalStateException("Un lancement de paie est déjà en cours pour la période " + periode);
+        }
+        Long runId = null;
+        try {
+            List<Object[]> employesActifs = employeRepository.findActiveEmployeIdsWithDepartment();
+            PayrollRun run = preparerRegistre(periode, strategie, employesActifs);
+            runId = run.getId();
+            return executerPaie(run, strategie, employesActifs);
+        } catch (RuntimeException e) {
+            if (runId != null) {
+                marquerRunEchoue(runId);
+            }
+            throw e;
+        } finally {
+            periodesEnCours.remove(periode);
+        }
+    }
+
+    @Override
+    public PayrollRun demarrerPaie(YearMonth periode, StrategiePartition strategie) {
+        cloturePaieService.verifierOuverte(periode);
+        if (!periodesEnCours.add(periode)) {
+            throw new IllegalStateException("Un lancement de paie est déjà en cours pour la période " + periode);
+        }
+        List<Object[]> employesActifs;
+        PayrollRun run;
+        try {
+            employesActifs = employeRepository.findActiveEmployeIdsWithDepartment();
+            run = preparerRegistre(periode, strategie, employesActifs);
+        } catch (RuntimeException e) {
+            periodesEnCours.remove(periode);
+            throw e;
+        }
+        try {
+            CompletableFuture.runAsync(() -> executerPaie(run, strategie, employesActifs), payrollRunLauncher)
+                    .whenComplete((bilan, erreur) -> {
+                        periodesEnCours.remove(periode);
+                        if (erreur != null) {
+                            log.error("Lancement de la paie {} interrompu", periode, erreur);
+                            marquerRunEchoue(run.getId());
+                        }
+                    });
+        } catch (TaskRejectedException e) {
+            periodesEnCours.remove(periode);
+            marquerRunEchoue(run.getId());
+            throw new IllegalStateException("Trop de lancements de paie en attente, réessayer plus tard");
+        }
+        return run;
+    }
+
+    @Override
+    public PayrollRunSummaryDto recalculerModifiees(YearMonth periode) {
+        cloturePaieService.verifierOuverte(periode);
+        if (!periodesEnCours.add(periode)) {
+            throw new IllegalStateException("Un lancement de paie est déjà en cours pour la période " + periode);
+        }
+        try {
+            return executerRecalcul(periode);
+        } finally {
+            periodesEnCours.remove(periode);
+        }
+    }
+
+    @Override
+    public RecalculPaieDto demarrerRecalcul(YearMonth periode) {
+        cloturePaieService.verifierOuverte(periode);
+        if (!periodesEnCours.add(periode)) {
+            throw new IllegalStateException("Un lancement de paie est déjà en cours pour la période " + periode);
+        }
+        RecalculPaieDto recalcul = RecalculPaieDto.builder()
+                .periode(periode)
+                .statut(StatutRun.EN_COURS)
+                .dateDebut(LocalDateTime.now())
+                .build();
+        RecalculPaieDto precedent = recalculs.put(periode, recalcul);
+        try {
+            CompletableFuture.supplyAsync(() -> executerRecalcul(periode), payrollRunLauncher)
+                    .whenComplete((bilan, erreur) -> {
+                        periodesEnCours.remove(periode);
+                        RecalculPaieDto.RecalculPaieDtoBuilder fin = recalcul.toBuilder().dateFin(LocalDateTime.now());
+                        if (erreur != null) {
+                            log.error("Recalcul de la paie {} interrompu", periode, erreur);
+                            fin.statut(StatutRun.ECHEC).erreur(erreur.getMessage());
+                        } else {
+                            fin.statut(bilan.getEchecs() == 0 ? StatutRun.TERMINE : StatutRun.TERMINE_AVEC_ERREURS).bilan(bilan);
+                        }
+                        recalculs.put(periode, fin.build());
+                    });
+        } catch (TaskRejectedException e) {
+            if (precedent != null) {
+                recalculs.put(periode, precedent);
+            } else {
+                recalculs.remove(periode);
+            }
+            periodesEnCours.remove(periode);
+            throw new IllegalStateException("Trop de lancements de paie en attente, réessayer plus tard");
+        }
+        return recalcul;
+    }
+
+    @Override
+    public Optional<RecalculPaieDto> getRecalcul(YearMonth periode) {
+        return Optional.ofNullable(recalculs.get(periode));
+    }
+
+    @Override
+    public PayrollRun getRun(YearMonth periode) {
+        return payrollRunRepository.findByPeriode(periode)
+                .orElseThrow(() -> new EntityNotFoundException("Aucun lancement de paie pour la période : " + periode));
+    }
+
+    private PayrollRunSummaryDto executerPaie(PayrollRun run, StrategiePartition strategie, List<Object[]> employesActifs) {
+        YearMonth periode = run.getPeriode();
+        LocalDateTime dateDebut = run.getDateDebut();
+        boolean reprise = run.getNombreLancements() > 1;
+
+        Set<Long> aTraiter = new HashSet<>(payrollRunItemRepository.findEmployeIdsByRunIdAndStatutNot(run.getId(), StatutRunItem.TERMINE));
+        List<Partition> partitions = partitionner(strategie, employesActifs, aTraiter);
+        int dejaTraites = (int) payrollRunItemRepository.countByRunIdAndStatut(run.getId(), StatutRunItem.TERMINE);
+        log.info("Lancement de la paie {} (registre {}, {}) : {} employés à traiter en {} partitions, {} déjà traités",
+                periode, run.getId(), reprise ? "reprise" : "nouveau", aTraiter.size(), partitions.size(), dejaTraites);
+
+        List<PartitionSummaryDto> resultats = new ArrayList<>();
+        Map<Long, String> erreurs = new LinkedHashMap<>();
+        int succes = 0;
+        PaieMetrics.SuiviRun suivi = paieMetrics.debutRun(aTraiter.size());
+        try {
+            List<CompletableFuture<PartitionSummaryDto>> futures = partitions.stream()
+                    .map(partition -> CompletableFuture.supplyAsync(() -> traiterPartition(run.getId(), partition, periode), payrollRunExecutor)
+                            .thenApply(resultat -> suivre(suivi, resultat)))
+                    .toList();
+
+            for (CompletableFuture<PartitionSummaryDto> future : futures) {
+                PartitionSummaryDto resultat = future.join();
+                resultats.add(resultat);
+                succes += resultat.getSucces();
+                erreurs.putAll(resultat.getErreurs());
+                log.info("Paie {} : partition {} terminée ({}/{} fiches générées)", periode, resultat.getCle(),
+                        resultat.getSucces(), resultat.getNombreEmployes());
+            }
+        } finally {
+            suivi.terminer();
+        }
+
+        LocalDateTime dateFin = LocalDateTime.now();
+        cloturerRegistre(run.getId(), dateFin);
+
+        PayrollRunSummaryDto bilan = PayrollRunSummaryDto.builder()
+                .runId(run.getId())
+                .periode(periode)
+                .strategie(strategie)
+                .reprise(reprise)
+                .totalEmployes(aTraiter.size() + dejaTraites)
+                .dejaTraites(dejaTraites)
+                .fichesGenerees(succes)
+                .echecs(erreurs.size())
+                .erreurs(erreurs)
+                .partitions(resultats)
+                .dateDebut(dateDebut)
+                .dateFin(dateFin)
+                .dureeMs(Duration.between(dateDebut, dateFin).toMillis())
+                .build();
+        log.info("Paie {} terminée en {} ms : {} fiches générées, {} déjà traitées, {} échecs",
+                periode, bilan.getDureeMs(), bilan.getFichesGenerees(), bilan.getDejaTraites(), bilan.getEchecs());
+        return bilan;
+    }
+
+    private PayrollRunSummaryDto executerRecalcul(YearMonth periode) {
+        LocalDateTime dateDebut = LocalDateTime.now();
+        List<Long> modifies = modificationPaieService.getEmployesARecalculer(periode);
+        List<Partition> partitions = new ArrayList<>();
+        for (int i = 0; i < modifies.size(); i += taillePartition) {
+            List<Long> lot = modifies.subList(i, Math.min(i + taillePartition, modifies.size()));
+            partitions.add(new Partition(lot.get(0) + "-" + lot.get(lot.size() - 1), List.copyOf(lot)));
+        }
+        log.info("Recalcul de la paie {} : {} fiches modifiées en {} partitions", periode, modifies.size(), partitions.size());
+
+        List<PartitionSummaryDto> resultats = new ArrayList<>();
+        Map<Long, String> erreurs = new LinkedHashMap<>();
+        int succes = 0;
+        PaieMetrics.SuiviRun suivi = paieMetrics.debutRun(modifies.size());
+        try {
+            List<CompletableFuture<PartitionSummaryDto>> futures = partitions.stream()
+                    .map(partition -> CompletableFuture.supplyAsync(() -> recalculerPartition(partition, periode), payrollRunExecutor)
+                            .thenApply(resultat -> suivre(suivi, resultat)))
+                    .toList();
+
+            for (CompletableFuture<PartitionSummaryDto> future : futures) {
+                PartitionSummaryDto resultat = future.join();
+                resultats.add(resultat);
+                succes += resultat.getSucces();
+                erreurs.putAll(resultat.getErreurs());
+            }
+        } finally {
+            suivi.terminer();
+        }
+
+        LocalDateTime dateFin = LocalDateTime.now();
+        PayrollRunSummaryDto bilan = PayrollRunSummaryDto.builder()
+                .periode(periode)
+                .strategie(StrategiePartition.PAR_PLAGE_ID)
+                .totalEmployes(modifies.size())
+                .fichesGenerees(succes)
+                .echecs(erreurs.size())
+                .erreurs(erreurs)
+                .partitions(resultats)
+                .dateDebut(dateDebut)
+                .dateFin(dateFin)
+                .dureeMs(Duration.between(dateDebut, dateFin).toMillis())
+                .build();
+        log.info("Recalcul de la paie {} terminé en {} ms : {} fiches recalculées, {} échecs",
+                periode, bilan.getDureeMs(), bilan.getFichesGenerees(), bilan.getEchecs());
+        return bilan;
+    }
+
+    /**
+     * Recalcule une partition dans une seule transaction, avec les mêmes règles de reprise
+     * employé par employé que {@link #traiterPartition}. Les échecs ne sont pas inscrits au registre :
+     * les fiches en échec restent modifiées et seront reprises au prochain recalcul.
+     */
+    private PartitionSummaryDto recalculerPartition(Partition partition, YearMonth periode) {
+        long debut = System.currentTimeMillis();
+        Map<Long, String> erreurs = new LinkedHashMap<>();
+        boolean rejouee = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> recalculerLot(partition.employeIds(), periode));
+        } catch (Exception e) {
+            log.warn("Partition {} annulée ({}), reprise employé par employé", partition.cle(), e.getMessage());
+            rejouee = true;
+            for (Long employeId : partition.employeIds()) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> recalculerLot(List.of(employeId), periode));
+                } catch (Exception ex) {
+                    log.error("Échec du recalcul de la fiche de paie de l'employé {} pour {}", employeId, periode, ex);
+                    erreurs.put(employeId, ex.getMessage());
+                }
+            }
+        }
+        return PartitionSummaryDto.builder()
+                .cle(partition.cle())
+                .nombreEmployes(partition.employeIds().size())
+                .succes(partition.employeIds().size() - erreurs.size())
+                .echecs(erreurs.size())
+                .rejouee(rejouee)
+                .dureeMs(System.currentTimeMillis() - debut)
+                .erreurs(erreurs)
+                .build();
+    }
+
+    /**
+     * Reporte une partition dans les métriques dès qu'elle se termine, sans attendre les précédentes.
+     */
+    private static PartitionSummaryDto suivre(PaieMetrics.SuiviRun suivi, PartitionSummaryDto resultat) {
+        suivi.partitionTerminee(resultat.getSucces(), resultat.getEchecs(), resultat.getDureeMs());
+        return resultat;
+    }
+
+    private void recalculerLot(List<Long> employeIds, YearMonth periode) {
+        PayrollInputSnapshot donnees = payrollInputLoader.charger(employeIds, periode);
+        for (FichePaie fiche : fichePaieRepository.findByEmployeIdInAndPeriode(employeIds, periode)) {
+            generationFichePaieService.recalculerFichePaie(fiche, donnees);
+        }
+    }
+
+    /**
+     * Récupère ou crée le registre de la période et y inscrit les employés actifs qui n'y figurent pas encore.
+     */
+    private PayrollRun preparerRegistre(YearMonth periode, StrategiePartition strategie, List<Object[]> employesActifs) {
+        return transactionTemplate.execute(status -> {
+            PayrollRun run = payrollRunRepository.findByPeriode(periode).orElseGet(() -> {
+                PayrollRun nouveau = new PayrollRun();
+                nouveau.setPeriode(periode);
+                return nouveau;
+            });
+            run.setStrategie(strategie);
+            run.setStatut(StatutRun.EN_COURS);
+            run.setDateDebut(LocalDateTime.now());
+            run.setDateFin(null);
+            run.setNombreLancements(run.getNombreLancements() + 1);
+            run = payrollRunRepository.save(run);
+
+            Set<Long> inscrits = new HashSet<>(payrollRunItemRepository.findEmployeIdsByRunId(run.getId()));
+            List<PayrollRunItem> nouveaux = new ArrayList<>();
+            for (Object[] ligne : employesActifs) {
+                Long employeId = (Long) ligne[0];
+                if (!inscrits.contains(employeId)) {
+                    nouveaux.add(new PayrollRunItem(run, employeId));
+                }
+            }
+            payrollRunItemRepository.saveAll(nouveaux);
+            run.setTotalEmployes(inscrits.size() + nouveaux.size());
+            return run;
+        });
+    }
+
+    private void cloturerRegistre(Long runId, LocalDateTime dateFin) {
+        transactionTemplate.executeWithoutResult(status -> {
+            PayrollRun run = payrollRunRepository.findById(runId).orElseThrow();
+            long terminees = payrollRunItemRepository.countByRunIdAndStatut(runId, StatutRunItem.TERMINE);
+            long echecs = payrollRunItemRepository.countByRunIdAndStatut(runId, StatutRunItem.ECHEC);
+            run.setFichesGenerees((int) terminees);
+            run.setEchecs((int) echecs);
+            run.setDateFin(dateFin);
+            run.setStatut(terminees == run.getTotalEmployes() ? StatutRun.TERMINE : StatutRun.TERMINE_AVEC_ERREURS);
+        });
+    }
+
+    private void marquerRunEchoue(Long runId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> payrollRunRepository.findById(runId).ifPresent(run -> {
+                run.setStatut(StatutRun.ECHEC);
+                run.setDateFin(LocalDateTime.now());
+            }));
+        } catch (Exception e) {
+            log.error("Impossible de marquer le registre {} en échec", runId, e);
+        }
+    }
+
+    /**
+     * Traite une partition dans une seule transaction. Si elle échoue, la transaction est annulée
+     * et la partition est rejouée employé par employé pour isoler le ou les employés en erreur.
+     */
+    private PartitionSummaryDto traiterPartition(Long runId, Partition partition, YearMonth periode) {
+        long debut = System.currentTimeMillis();
+        Map<Long, String> erreurs = new LinkedHashMap<>();
+        boolean rejouee = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                PayrollInputSnapshot donnees = payrollInputLoader.charger(partition.employeIds(), periode);
+                for (Long employeId : partition.employeIds()) {
+                    traiterEmploye(employeId, periode, donnees);
+                }
+                payrollRunItemRepository.updateStatutEnMasse(runId, partition.employeIds(), StatutRunItem.TERMINE);
+            });
+        } catch (Exception e) {
+            log.warn("Partition {} annulée ({}), reprise employé par employé", partition.cle(), e.getMessage());
+            rejouee = true;
+            for (Long employeId : partition.employeIds()) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        traiterEmploye(employeId, periode, payrollInputLoader.charger(List.of(employeId), periode));
+                        payrollRunItemRepository.updateStatut(runId, employeId, StatutRunItem.TERMINE, null);
+                    });
+                } catch (FichePaieDejaGenereeException ex) {
+                    log.info("Fiche de paie de l'employé {} pour {} générée entre-temps, ignorée", employeId, periode);
+                    transactionTemplate.executeWithoutResult(status ->
+                            payrollRunItemRepository.updateStatut(runId, employeId, StatutRunItem.TERMINE, null));
+                } catch (Exception ex) {
+                    log.error("Échec de la génération de la fiche de paie de l'employé {} pour {}", employeId, periode, ex);
+                    erreurs.put(employeId, ex.getMessage());
+                    marquerEchec(runId, employeId, ex);
+                }
+            }
+        }
+        return PartitionSummaryDto.builder()
+                .cle(partition.cle())
+                .nombreEmployes(partition.employeIds().size())
+                .succes(partition.employeIds().size() - erreurs.size())
+                .echecs(erreurs.size())
+                .rejouee(rejouee)
+                .dureeMs(System.currentTimeMillis() - debut)
+                .erreurs(erreurs)
+                .build();
+    }
+
+    /**
+     * Génère la fiche d'un employé à partir des données préchargées de son lot.
+     * Une fiche déjà présente pour la période (générée hors lancement) n'est pas recréée.
+     */
+    private void traiterEmploye(Long employeId, YearMonth periode, PayrollInputSnapshot donnees) {
+        if (donnees.aDejaUneFiche(employeId)) {
+            log.info("Fiche de paie déjà présente pour l'employé {} et la période {}, ignorée", employeId, periode);
+        } else {
+            generationFichePaieService.genererFichePaie(employeId, periode, donnees);
+        }
+    }
+
+    private void marquerEchec(Long runId, Long employeId, Exception e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        String erreur = message.length() > 1000 ? message.substring(0, 1000) : message;
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    payrollRunItemRepository.updateStatut(runId, employeId, StatutRunItem.ECHEC, erreur));
+        } catch (Exception ex) {
+            log.error("Impossible d'enregistrer l'échec de l'employé {} dans le registre {}", employeId, runId, ex);
+        }
+    }
+
+    private List<Partition> partitionner(StrategiePartition strategie, List<Object[]> employesActifs, Set<Long> aTraiter) {
+        Map<String, List<Long>> groupes = new LinkedHashMap<>();
+        for (Object[] ligne : employesActifs) {
+            Long employeId = (Long) ligne[0];
+            if (!aTraiter.contains(employeId)) {
+                continue;
+            }
+            String cle = strategie == StrategiePartition.PAR_PLAGE_ID ? "ids"
+                    : ligne[1] != null ? (String) ligne[1] : DEPARTEMENT_NON_DEFINI;
+            groupes.computeIfAbsent(cle, k -> new ArrayList<>()).add(employeId);
+        }
+
+        // Les groupes trop volumineux sont découpés pour borner la taille des transactions
+        List<Partition> partitions = new ArrayList<>();
+        groupes.forEach((cle, ids) -> {
+            for (int i = 0; i < ids.size(); i += taillePartition) {
+                List<Long> lot = ids.subList(i, Math.min(i + taillePartition, ids.size()));
+                String cleLot = strategie == StrategiePartition.PAR_PLAGE_ID
+                        ? lot.get(0) + "-" + lot.get(lot.size() - 1)
+                        : cle + (ids.size() > taillePartition ? "#" + (i / taillePartition + 1) : "");
+                partitions.add(new Partition(cleLot, List.copyOf(lot)));
+            }
+        });
+        return partitions;
+    }
+
+    private record Partition(String cle, List<Long> employeIds) {
+    }
+}
@@ -0,0 +1,165 @@
+package ma.digitalia.generationfichepaie.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.dto.validation.ElementValidationDto;
+import ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto;
+import ma.digitalia.generationfichepaie.dto.validation.RapportRegleDto;
+import ma.digitalia.generationfichepaie.dto.validation.ValidationResult;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import ma.digitalia.generationfichepaie.validation.LotValidation;
+import ma.digitalia.generationfichepaie.validation.RegleValidationPaie;
+import ma.digitalia.generationfichepaie.validation.ResultatRegle;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class PayrollValidationServiceImpl implements PayrollValidationService {
+
+    private final FichePaieRepository fichePaieRepository;
+    private final List<RegleValidationPaie> regles;
+    private final ThreadPoolTaskExecutor validationExecutor;
+    private final int tailleLot;
+    private final int maxMessages;
+
+    public PayrollValidationServiceImpl(FichePaieRepository fichePaieRepository,
+                                        List<RegleValidationPaie> regles,
+                                        @Qualifier("payrollValidationExecutor") ThreadPoolTaskExecutor validationExecutor,
+                                        @Value("${paie.validation.taille-lot:500}") int tailleLot,
+                                        @Value("${paie.validation.max-messages:500}") int maxMessages) {
+        this.fichePaieRepository = fichePaieRepository;
+        this.regles = regles;
+        this.validationExecutor = validationExecutor;
+        this.tailleLot = Math.max(1, tailleLot);
+        this.maxMessages = Math.max(0, maxMessages);
+    }
+
+    @Override
+    public ValidationResult validatePayrollData(YearMonth periode) {
+        log.debug("Validation des données de paie pour la période {}", periode);
+        long debut = System.nanoTime();
+
+        ValidationResult result = new ValidationResult();
+        Map<String, ResultatRegle> totaux = new LinkedHashMap<>();
+        for (RegleValidationPaie regle : regles) {
+            totaux.put(regle.getNom(), new ResultatRegle(regle.getNom(), maxMessages));
+        }
+
+        try {
+            long nombreFiches = parcourirPeriode(periode, totaux);
+
+            if (nombreFiches == 0) {
+                result.getWarnings().add("Aucune fiche de paie trouvée pour la période " + periode);
+                result.setValid(false);
+                return result;
+            }
+
+            Map<String, Object> metrics = new HashMap<>();
+            long nombreErreurs = 0;
+            for (RegleValidationPaie regle : regles) {
+                ResultatRegle total = totaux.get(regle.getNom());
+                regle.completerMetriques(total, metrics);
+                result.getErrors().addAll(total.getErreurs());
+                result.getWarnings().addAll(total.getAvertissements());
+                result.getRegles().put(regle.getNom(), RapportRegleDto.builder()
+                        .regle(regle.getNom())
+                        .fichesVerifiees(total.getFichesVerifiees())
+                        .erreurs(total.getNombreErreurs())
+                        .avertissements(total.getNombreAvertissements())
+                        .dureeMs(TimeUnit.NANOSECONDS.toMillis(total.getDureeNanos()))
+                        .messagesTronques(total.estTronque())
+                        .build());
+                nombreErreurs += total.getNombreErreurs();
+            }
+
+            result.setValid(nombreErreurs == 0);
+            result.setMetrics(metrics);
+        } catch (InterruptedException e) {
+            // arrêt demandé (fermeture de l'application) : le résultat partiel n'est pas une validation
+            Thread.currentThread().interrupt();
+            log.warn("Validation des données de paie de la période {} interrompue", periode);
+            result.getErrors().add("Validation interrompue avant la fin");
+            result.setInterrompue(true);
+            result.setValid(false);
+        } catch (Exception e) {
+            log.error("Erreur lors de la validation des données de paie: {}", e.getMessage(), e);
+            result.getErrors().add("Erreur technique lors de la validation: " + e.getMessage());
+            result.setValid(false);
+        } finally {
+            result.setDureeMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debut));
+        }
+
+        log.info("Validation de la période {} terminée en {} ms : {}", periode, result.getDureeMs(),
+                result.getRegles().values().stream()
+                        .map(r -> r.getRegle() + "=" + r.getErreurs() + " erreurs/" + r.getDureeMs() + " ms")
+                        .collect(Collectors.joining(", ")));
+        return result;
+    }
+
+    /**
+     * Lit les fiches de la période par lots et soumet chaque lot à toutes les règles en parallèle.
+     * Au plus deux lots par thread sont en mémoire en même temps.
+     * @return le nombre de fiches lues
+     */
+    private long parcourirPeriode(YearMonth periode, Map<String, ResultatRegle> totaux) throws InterruptedException {
+        Semaphore lotsEnCours = new Semaphore(Math.max(2, validationExecutor.getMaxPoolSize() * 2));
+        List<CompletableFuture<Void>> taches = new ArrayList<>();
+        long nombreFiches = 0;
+        Long dernierId = 0L;
+        List<FicheValidationDto> fiches;
+        do {
+            fiches = fichePaieRepository.findValidationByPeriodeApres(periode, dernierId, PageRequest.of(0, tailleLot));
+            if (fiches.isEmpty()) {
+                break;
+            }
+            dernierId = fiches.get(fiches.size() - 1).id();
+            nombreFiches += fiches.size();
+            LotValidation lot = new LotValidation(periode, fiches, chargerElements(fiches));
+
+            lotsEnCours.acquire();
+            CompletableFuture<?>[] parRegle = regles.stream()
+                    .map(regle -> CompletableFuture.runAsync(() -> appliquer(regle, lot, totaux.get(regle.getNom())), validationExecutor))
+                    .toArray(CompletableFuture[]::new);
+            taches.add(CompletableFuture.allOf(parRegle).whenComplete((ignore, erreur) -> lotsEnCours.release()));
+            taches.removeIf(CompletableFuture::isDone);
+        } while (fiches.size() == tailleLot);
+
+        CompletableFuture.allOf(taches.toArray(CompletableFuture[]::new)).join();
+        return nombreFiches;
+    }
+
+    private Map<Long, List<ElementValidationDto>> chargerElements(List<FicheValidationDto> fiches) {
+        List<Long> ids = fiches.stream().map(FicheValidationDto::id).toList();
+        return fichePaieRepository.findLignesValidationByFicheIdIn(ids).stream()
+                .collect(Collectors.groupingBy(ElementValidationDto::ficheId));
+    }
+
+    private void appliquer(RegleValidationPaie regle, LotValidation lot, ResultatRegle total) {
+        ResultatRegle partiel = new ResultatRegle(regle.getNom(), maxMessages);
+        long debut = System.nanoTime();
+        try {
+            regle.verifier(lot, partiel);
+        } catch (RuntimeException e) {
+            log.error("Règle de validation {} en erreur sur la période {}", regle.getNom(), lot.periode(), e);
+            partiel.erreur("Erreur technique dans la règle " + regle.getNom() + ": " + e.getMessage());
+        }
+        partiel.ajouterExecution(lot.fiches().size(), System.nanoTime() - debut);
+        synchronized (total) {
+            total.fusionner(partiel);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ma.digitalia.generationfichepaie.services;
+
+public interface PdfRenderingService {
+
+    /**
+     * Mettre en file le rendu du PDF d'une fiche de paie. Dans une transaction, la demande n'est soumise
+     * qu'après sa validation ; si la file est pleine, la fiche reste EN_ATTENTE et sera reprise plus tard.
+     * @param fichePaieId l'identifiant de la fiche de paie
+     */
+    void planifierRendu(Long fichePaieId);
+
+    /**
+     * Rendre immédiatement le PDF d'une fiche de paie (ou renvoyer celui déjà rendu).
+     * Si le rendu de la fiche est déjà en file ou en cours, attend celui-ci.
+     * @param fichePaieId l'identifiant de la fiche de paie
+     * @return la référence du PDF dans le stockage
+     */
+    String rendreMaintenant(Long fichePaieId);
+
+    /**
+     * Relancer le rendu d'une fiche de paie en remettant son compteur de tentatives à zéro
+     * @param fichePaieId l'identifiant de la fiche de paie
+     */
+    void relancer(Long fichePaieId);
+
+    /**
+     * Remettre en file les fiches EN_ATTENTE (file pleine, redémarrage) et celles en ECHEC
+     * qui n'ont pas atteint le nombre maximum de tentatives
+     * @return le nombre de fiches remises en file
+     */
+    int reprendreRendusEnAttente();
+}
@@ -0,0 +1,216 @@
+package ma.digitalia.generationfichepaie.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.EtapePaie;
+import ma.digitalia.generationfichepaie.Enum.StatutPdf;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.entities.LigneFichePaie;
+import ma.digitalia.generationfichepaie.helpers.FichePaiePdfGenerateur;
+import ma.digitalia.generationfichepaie.helpers.PaieMetrics;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class PdfRenderingServiceImpl implements PdfRenderingService {
+
+    private final FichePaieRepository fichePaieRepository;
+    private final PdfStorageService pdfStorageService;
+    private final ThreadPoolTaskExecutor pdfRenderExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate transactionEchec;
+    private final int maxTentatives;
+    private final PaieMetrics paieMetrics;
+
+    /**
+     * Rendu en file ou en cours par fiche : un rendu immédiat demandé pendant ce temps attend celui-ci
+     * au lieu de rendre le PDF une seconde fois
+     */
+    private final Map<Long, CompletableFuture<String>> enCours = new ConcurrentHashMap<>();
+
+    public PdfRenderingServiceImpl(FichePaieRepository fichePaieRepository,
+                                   PdfStorageService pdfStorageService,
+                                   @Qualifier("pdfRenderExecutor") ThreadPoolTaskExecutor pdfRenderExecutor,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${paie.pdf.max-tentatives:3}") int maxTentatives,
+                                   PaieMetrics paieMetrics) {
+        this.fichePaieRepository = fichePaieRepository;
+        this.pdfStorageService = pdfStorageService;
+        this.pdfRenderExecutor = pdfRenderExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // l'échec est enregistré même si la transaction appelante est annulée
+        this.transactionEchec = new TransactionTemplate(transactionManager);
+        this.transactionEchec.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxTentatives = maxTentatives;
+        this.paieMetrics = paieMetrics;
+    }
+
+    @Override
+    public void planifierRendu(Long fichePaieId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    soumettre(fichePaieId);
+                }
+            });
+        } else {
+            soumettre(fichePaieId);
+        }
+    }
+
+    @Override
+    public String rendreMaintenant(Long fichePaieId) {
+        CompletableFuture<String> rendu = new CompletableFuture<>();
+        CompletableFuture<String> existant = enCours.putIfAbsent(fichePaieId, rendu);
+        if (existant == null) {
+            executer(fichePaieId, rendu);
+            return attendre(rendu);
+        }
+        try {
+            return attendre(existant);
+        } catch (TaskRejectedException e) {
+            // le rendu en file n'a pas pu être soumis : on le fait dans ce thread
+            return rendreMaintenant(fichePaieId);
+        }
+    }
+
+    @Override
+    public void relancer(Long fichePaieId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            FichePaie fiche = fichePaieRepository.findById(fichePaieId)
+                    .orElseThrow(() -> new EntityNotFoundException("Fiche de paie non trouvée avec l'ID : " + fichePaieId));
+            fiche.setPdfStatus(StatutPdf.EN_ATTENTE);
+            fiche.setPdfTentatives(0);
+            fiche.setPdfErreur(null);
+        });
+        soumettre(fichePaieId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${paie.pdf.reprise-ms:60000}", initialDelayString = "${paie.pdf.reprise-ms:60000}")
+    public int reprendreRendusEnAttente() {
+        int placesLibres = pdfRenderExecutor.getThreadPoolExecutor().getQueue().remainingCapacity();
+        if (placesLibres == 0) {
+            return 0;
+        }
+        int repris = 0;
+        for (Long id : fichePaieRepository.findIdsPdfARendre(maxTentatives, PageRequest.of(0, placesLibres))) {
+            if (soumettre(id)) {
+                repris++;
+            }
+        }
+        if (repris > 0) {
+            log.info("{} rendu(s) PDF remis en file", repris);
+        }
+        return repris;
+    }
+
+    private boolean soumettre(Long fichePaieId) {
+        CompletableFuture<String> rendu = new CompletableFuture<>();
+        if (enCours.putIfAbsent(fichePaieId, rendu) != null) {
+            return false;
+        }
+        try {
+            // l'échec est déjà tracé et enregistré sur la fiche par rendre()
+            pdfRenderExecutor.execute(() -> executer(fichePaieId, rendu));
+            return true;
+        } catch (TaskRejectedException e) {
+            enCours.remove(fichePaieId, rendu);
+            rendu.completeExceptionally(e);
+            log.warn("File de rendu PDF pleine, la fiche {} sera reprise par le balayage", fichePaieId);
+            return false;
+        }
+    }
+
+    private void executer(Long fichePaieId, CompletableFuture<String> rendu) {
+        try {
+            rendu.complete(rendre(fichePaieId));
+        } catch (RuntimeException e) {
+            rendu.completeExceptionally(e);
+        } finally {
+            enCours.remove(fichePaieId, rendu);
+        }
+    }
+
+    private static String attendre(CompletableFuture<String> rendu) {
+        try {
+            return rendu.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String rendre(Long fichePaieId) {
+        try {
+            return transactionTemplate.execute(status -> {
+                FichePaie fiche = fichePaieRepository.findById(fichePaieId)
+                        .orElseThrow(() -> new EntityNotFoundException("Fiche de paie non trouvée avec l'ID : " + fichePaieId));
+                if (fiche.getPdfStatus() == StatutPdf.GENERE && pdfStorageService.existe(fiche.getPdfRef())) {
+                    return fiche.getPdfRef();
+                }
+                long debut = System.currentTimeMillis();
+                paieMetrics.mesurer(EtapePaie.RENDU_PDF, () -> {
+                    byte[] pdf = FichePaiePdfGenerateur.genererPdf(vueRendu(fiche));
+                    fiche.setPdfRef(pdfStorageService.enregistrer(pdf));
+                    fiche.setPdfTaille((long) pdf.length);
+                });
+                fiche.setPdfStatus(StatutPdf.GENERE);
+                fiche.setPdfTentatives((fiche.getPdfTentatives() != null ? fiche.getPdfTentatives() : 0) + 1);
+                fiche.setPdfErreur(null);
+                log.debug("PDF de la fiche {} rendu en {} ms", fichePaieId, System.currentTimeMillis() - debut);
+                return fiche.getPdfRef();
+            });
+        } catch (EntityNotFoundException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Échec du rendu PDF de la fiche de paie {}", fichePaieId, e);
+            enregistrerEchec(fichePaieId, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Copie détachée de la fiche portant les éléments figés à son calcul.
+     */
+    private FichePaie vueRendu(FichePaie fiche) {
+        if (fiche.getLignes() == null || fiche.getLignes().isEmpty()) {
+            throw new IllegalStateException("La fiche de paie " + fiche.getId() + " n'a pas de lignes enregistrées, elle doit être régénérée");
+        }
+        FichePaie vue = new FichePaie();
+        BeanUtils.copyProperties(fiche, vue, "elements", "lignes");
+        vue.setElements(fiche.getLignes().stream().map(LigneFichePaie::versElement).toList());
+        return vue;
+    }
+
+    private void enregistrerEchec(Long fichePaieId, Exception e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        String erreur = message.length() > 1000 ? message.substring(0, 1000) : message;
+        try {
+            transactionEchec.executeWithoutResult(status -> fichePaieRepository.marquerEchecPdf(fichePaieId, erreur));
+        } catch (Exception ex) {
+            log.error("Impossible d'enregistrer l'échec du rendu PDF de la fiche {}", fichePaieId, ex);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ma.digitalia.generationfichepaie.services;
+
+import java.nio.file.Path;
+
+public interface PdfStorageService {
+
+    /**
+     * Enregistrer un PDF sur disque, adressé par l'empreinte SHA-256 de son contenu.
+     * Un contenu déjà présent n'est pas réécrit.
+     * @param contenu le contenu du PDF
+     * @return la référence du PDF (empreinte hexadécimale)
+     */
+    String enregistrer(byte[] contenu);
+
+    /**
+     * Récupérer le chemin du fichier correspondant à une référence
+     * @param reference la référence du PDF
+     * @return le chemin du fichier (qui peut ne pas exister)
+     */
+    Path chemin(String reference);
+
+    /**
+     * Vérifier qu'un PDF est présent dans le stockage
+     * @param reference la référence du PDF
+     * @return vrai si le fichier existe
+     */
+    boolean existe(String reference);
+
+    /**
+     * Lire le contenu d'un PDF
+     * @param reference la référence du PDF
+     * @return le contenu du PDF
+     */
+    byte[] lire(String reference);
+}
@@ -0,0 +1,87 @@
+package ma.digitalia.generationfichepaie.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Service
+public class PdfStorageServiceImpl implements PdfStorageService {
+
+    private static final Pattern REFERENCE = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path racine;
+
+    public PdfStorageServiceImpl(@Value("${paie.pdf.stockage:./data/fiches-paie}") String racine) {
+        this.racine = Paths.get(racine).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String enregistrer(byte[] contenu) {
+        String reference = empreinte(contenu);
+        Path fichier = chemin(reference);
+        if (Files.exists(fichier)) {
+            return reference;
+        }
+        try {
+            Files.createDirectories(fichier.getParent());
+            // écriture dans un fichier temporaire puis déplacement atomique : un lecteur ne voit jamais de PDF partiel
+            Path temporaire = Files.createTempFile(fichier.getParent(), reference, ".tmp");
+            try {
+                Files.write(temporaire, contenu);
+                Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // même contenu écrit en parallèle par un autre thread
+            } finally {
+                Files.deleteIfExists(temporaire);
+            }
+            log.debug("PDF {} enregistré ({} octets)", reference, contenu.length);
+            return reference;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de l'enregistrement du PDF " + reference, e);
+        }
+    }
+
+    @Override
+    public Path chemin(String reference) {
+        if (reference == null || !REFERENCE.matcher(reference).matches()) {
+            throw new IllegalArgumentException("Référence de PDF invalide : " + reference);
+        }
+        // deux niveaux de répertoires pour ne pas accumuler tous les fichiers dans un seul dossier
+        return racine.resolve(reference.substring(0, 2)).resolve(reference.substring(2, 4)).resolve(reference + ".pdf");
+    }
+
+    @Override
+    public boolean existe(String reference) {
+        return reference != null && Files.exists(chemin(reference));
+    }
+
+    @Override
+    public byte[] lire(String reference) {
+        try {
+            return Files.readAllBytes(chemin(reference));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de la lecture du PDF " + reference, e);
+        }
+    }
+
+    private static String empreinte(byte[] contenu) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenu));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.dto.simulation.SimulationResultDto;
+import ma.digitalia.generationfichepaie.dto.simulation.SimulationScenarioDto;
+
+import java.time.YearMonth;
+
+public interface SimulationPaieService {
+
+    /**
+     * Simuler l'effet d'un scénario (augmentation du salaire de base, nouveaux éléments, taux du barème)
+     * sur la paie de tous les employés actifs. Les fiches actuelles et simulées sont calculées en mémoire,
+     * par lots traités en parallèle dans des transactions en lecture seule : rien n'est enregistré.
+     * @param periode la période simulée (barème en vigueur)
+     * @param scenario les modifications à simuler
+     * @return les totaux actuels et simulés et les écarts par employé
+     */
+    SimulationResultDto simuler(YearMonth periode, SimulationScenarioDto scenario);
+}
@@ -0,0 +1,219 @@
+package ma.digitalia.generationfichepaie.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.generationfichepaie.Enum.ModeCalcul;
+import ma.digitalia.generationfichepaie.Enum.TypeElement;
+import ma.digitalia.generationfichepaie.dto.AjoutElementPaieDTO;
+import ma.digitalia.generationfichepaie.dto.bareme.BaremePaie;
+import ma.digitalia.generationfichepaie.dto.simulation.SimulationEcartEmployeDto;
+import ma.digitalia.generationfichepaie.dto.simulation.SimulationResultDto;
+import ma.digitalia.generationfichepaie.dto.simulation.SimulationScenarioDto;
+import ma.digitalia.generationfichepaie.dto.simulation.SimulationTotauxDto;
+import ma.digitalia.generationfichepaie.entities.ElementPaie;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
+import ma.digitalia.gestionutilisateur.entities.Employe;
+import ma.digitalia.gestionutilisateur.repositories.EmployeRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@Service
+public class SimulationPaieServiceImpl implements SimulationPaieService {
+
+    private static final BigDecimal CENT = BigDecimal.valueOf(100);
+
+    private final EmployeRepository employeRepository;
+    private final PayrollInputLoader payrollInputLoader;
+    private final GenerationFichePaieService generationFichePaieService;
+    private final BaremePaieService baremePaieService;
+    private final TransactionTemplate lectureSeule;
+    private final ThreadPoolTaskExecutor simulationExecutor;
+    private final int tailleLot;
+
+    public SimulationPaieServiceImpl(EmployeRepository employeRepository, PayrollInputLoader payrollInputLoader,
+                                     GenerationFichePaieService generationFichePaieService,
+                                     BaremePaieService baremePaieService, PlatformTransactionManager transactionManager,
+                                     @Qualifier("payrollSimulationExecutor") ThreadPoolTaskExecutor simulationExecutor,
+                                     @Value("${paie.simulation.taille-lot:200}") int tailleLot) {
+        this.employeRepository = employeRepository;
+        this.payrollInputLoader = payrollInputLoader;
+        this.generationFichePaieService = generationFichePaieService;
+        this.baremePaieService = baremePaieService;
+        // lecture seule : Hibernate ne flushe pas et PostgreSQL refuserait toute écriture
+        this.lectureSeule = new TransactionTemplate(transactionManager);
+        this.lectureSeule.setReadOnly(true);
+        this.simulationExecutor = simulationExecutor;
+        this.tailleLot = Math.max(1, tailleLot);
+    }
+
+    @Override
+    public SimulationResultDto simuler(YearMonth periode, SimulationScenarioDto scenario) {
+        long debut = System.currentTimeMillis();
+        BaremePaie bareme = appliquerTaux(baremePaieService.getBareme(periode), scenario);
+
+        List<Long> employeIds = employeRepository.findActiveEmployeIdsWithDepartment().stream()
+                .map(ligne -> (Long) ligne[0])
+                .toList();
+        List<CompletableFuture<ResultatLot>> futures = new ArrayList<>();
+        for (int i = 0; i < employeIds.size(); i += tailleLot) {
+            List<Long> lot = employeIds.subList(i, Math.min(i + tailleLot, employeIds.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> lectureSeule.execute(status ->
+                    simulerLot(lot, periode, scenario, bareme)), simulationExecutor));
+        }
+
+        SimulationTotauxDto actuels = SimulationTotauxDto.builder().build();
+        SimulationTotauxDto simules = SimulationTotauxDto.builder().build();
+        List<SimulationEcartEmployeDto> ecarts = new ArrayList<>();
+        Map<Long, String> erreurs = new LinkedHashMap<>();
+        for (CompletableFuture<ResultatLot> future : futures) {
+            ResultatLot resultat = future.join();
+            actuels.ajouter(resultat.actuels());
+            simules.ajouter(resultat.simules());
+            ecarts.addAll(resultat.ecarts());
+            erreurs.putAll(resultat.erreurs());
+        }
+        ecarts.sort(Comparator.comparing((SimulationEcartEmployeDto e) -> e.getEcartCoutEmployeur().abs()).reversed());
+
+        SimulationResultDto resultat = SimulationResultDto.builder()
+                .periode(periode)
+                .nombreEmployes(ecarts.size())
+                .totauxActuels(actuels)
+                .totauxSimules(simules)
+                .ecarts(simules.moins(actuels))
+                .employes(ecarts)
+                .erreurs(erreurs)
+                .dureeMs(System.currentTimeMillis() - debut)
+                .build();
+        log.info("Simulation de la paie {} : {} employés en {} ms, écart de masse salariale {}, {} échecs",
+                periode, resultat.getNombreEmployes(), resultat.getDureeMs(),
+                resultat.getEcarts().getMasseSalariale(), erreurs.size());
+        return resultat;
+    }
+
+    /**
+     * Calcule pour chaque employé du lot la fiche actuelle puis la fiche du scénario, sur deux instantanés
+     * de simulation issus du même chargement.
+     */
+    private ResultatLot simulerLot(List<Long> employeIds, YearMonth periode, SimulationScenarioDto scenario, BaremePaie bareme) {
+        PayrollInputSnapshot actuel = payrollInputLoader.chargerPourSimulation(employeIds, periode);
+        Map<Long, List<ElementPaie>> elementsSimules = new HashMap<>();
+        for (Long employeId : actuel.getEmployeIds()) {
+            elementsSimules.put(employeId, appliquerScenario(actuel.getEmploye(employeId), actuel.getElements(employeId), scenario));
+        }
+        PayrollInputSnapshot simule = actuel.simulation(elementsSimules, bareme);
+
+        SimulationTotauxDto totauxActuels = SimulationTotauxDto.builder().build();
+        SimulationTotauxDto totauxSimules = SimulationTotauxDto.builder().build();
+        List<SimulationEcartEmployeDto> ecarts = new ArrayList<>();
+        Map<Long, String> erreurs = new LinkedHashMap<>();
+        for (Long employeId : actuel.getEmployeIds()) {
+            try {
+                FichePaie ficheActuelle = generationFichePaieService.simulerFichePaie(employeId, actuel);
+                FichePaie ficheSimulee = generationFichePaieService.simulerFichePaie(employeId, simule);
+                totauxActuels.ajouter(ficheActuelle);
+                totauxSimules.ajouter(ficheSimulee);
+                ecarts.add(ecart(actuel.getEmploye(employeId), ficheActuelle, ficheSimulee));
+            } catch (Exception e) {
+                log.warn("Simulation impossible pour l'employé {} : {}", employeId, e.getMessage());
+                erreurs.put(employeId, e.getMessage());
+            }
+        }
+        return new ResultatLot(totauxActuels, totauxSimules, ecarts, erreurs);
+    }
+
+    /**
+     * Éléments de paie de l'employé modifiés par le scénario. Les éléments modifiés sont des copies :
+     * les entités chargées ne sont jamais touchées.
+     */
+    private List<ElementPaie> appliquerScenario(Employe employe, List<ElementPaie> elements, SimulationScenarioDto scenario) {
+        List<AjoutElementPaieDTO> nouveaux = scenario.getNouveauxElements() != null ? scenario.getNouveauxElements() : List.of();
+        List<ElementPaie> resultat = new ArrayList<>(elements.size() + nouveaux.size());
+        BigDecimal augmentation = scenario.getAugmentationSalaireBase();
+        for (ElementPaie element : elements) {
+            if (augmentation != null && element.getType() == TypeElement.SALAIRE_BASE && element.getMontant() != null) {
+                BigDecimal facteur = BigDecimal.ONE.add(augmentation.divide(CENT));
+                resultat.add(copier(element, element.getMontant().multiply(facteur).setScale(2, RoundingMode.HALF_UP)));
+            } else {
+                resultat.add(element);
+            }
+        }
+        for (AjoutElementPaieDTO dto : nouveaux) {
+            ElementPaie element = new ElementPaie(dto, employe);
+            element.setMontant(montantSimule(element));
+            resultat.add(element);
+        }
+        return resultat;
+    }
+
+    /**
+     * Montant d'un nouvel élément sans rapport de temps : montant fixe, ou taux appliqué à la base.
+     */
+    private static BigDecimal montantSimule(ElementPaie element) {
+        if (element.getModeCalcul() != ModeCalcul.MONTANT && element.getTaux() != null && element.getBase() != null) {
+            return element.getBase().multiply(element.getTaux()).divide(CENT);
+        }
+        return element.getMontant() != null ? element.getMontant() : BigDecimal.ZERO;
+    }
+
+    private static ElementPaie copier(ElementPaie element, BigDecimal montant) {
+        return new ElementPaie(null, element.getType(), element.getSousType(), element.getLibelle(), element.getModeCalcul(),
+                montant, element.getTaux(), element.getBase(), element.getDescription(),
+                element.isSoumisIR(), element.isSoumisCNSS(), element.getEmploye(), null, element.getCode());
+    }
+
+    private static BaremePaie appliquerTaux(BaremePaie bareme, SimulationScenarioDto scenario) {
+        return new BaremePaie(
+                bareme.dateEffet(),
+                valeur(scenario.getPlafondCNSS(), bareme.plafondCNSS()),
+                valeur(scenario.getTauxCNSSSalarial(), bareme.tauxCNSSSalarial()),
+                valeur(scenario.getTauxAMOSalarial(), bareme.tauxAMOSalarial()),
+                valeur(scenario.getTauxCNSSPatronal(), bareme.tauxCNSSPatronal()),
+                valeur(scenario.getTauxAMOPatronal(), bareme.tauxAMOPatronal()),
+                valeur(scenario.getTauxFormationPro(), bareme.tauxFormationPro()),
+                valeur(scenario.getTauxAllocationsFamiliales(), bareme.tauxAllocationsFamiliales()),
+                bareme.tauxFraisProfessionnels(),
+                bareme.plafondFraisProfessionnels(),
+                bareme.deductionParPersonneACharge(),
+                bareme.maxPersonnesACharge(),
+                bareme.tranchesIR());
+    }
+
+    private static BigDecimal valeur(BigDecimal simulee, BigDecimal actuelle) {
+        return simulee != null ? simulee : actuelle;
+    }
+
+    private static SimulationEcartEmployeDto ecart(Employe employe, FichePaie actuelle, FichePaie simulee) {
+        BigDecimal coutActuel = actuelle.getSalaireBrut().add(actuelle.getCotisationsPatronales());
+        BigDecimal coutSimule = simulee.getSalaireBrut().add(simulee.getCotisationsPatronales());
+        return SimulationEcartEmployeDto.builder()
+                .employeId(employe.getId())
+                .nomComplet(employe.getPreNom() + " " + employe.getNom())
+                .salaireBrutActuel(actuelle.getSalaireBrut())
+                .salaireBrutSimule(simulee.getSalaireBrut())
+                .salaireNetActuel(actuelle.getSalaireNet())
+                .salaireNetSimule(simulee.getSalaireNet())
+                .ecartSalaireNet(simulee.getSalaireNet().subtract(actuelle.getSalaireNet()))
+                .ecartCoutEmployeur(coutSimule.subtract(coutActuel))
+                .build();
+    }
+
+    private record ResultatLot(SimulationTotauxDto actuels, SimulationTotauxDto simules,
+                               List<SimulationEcartEmployeDto> ecarts, Map<Long, String> erreurs) {
+    }
+}
@@ -0,0 +1,21 @@
+package ma.digitalia.generationfichepaie.validation;
+
+import ma.digitalia.generationfichepaie.dto.validation.ElementValidationDto;
+import ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lot de fiches d'une période soumis aux règles de validation, avec les lignes de paie figées sur ces fiches.
+ * Immuable : le même lot est vérifié en parallèle par toutes les règles.
+ */
+public record LotValidation(YearMonth periode,
+                           List<FicheValidationDto> fiches,
+                           Map<Long, List<ElementValidationDto>> elementsParFiche) {
+
+    public List<ElementValidationDto> elements(Long ficheId) {
+        return elementsParFiche.getOrDefault(ficheId, List.of());
+    }
+}
@@ -0,0 +1,31 @@
+package ma.digitalia.generationfichepaie.validation;
+
+import ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Date de génération et période renseignées.
+ */
+@Component
+@Order(4)
+public class RegleCoherenceTemporelle implements RegleValidationPaie {
+
+    @Override
+    public String getNom() {
+        return "coherenceTemporelle";
+    }
+
+    @Override
+    public void verifier(LotValidation lot, ResultatRegle resultat) {
+        for (FicheValidationDto fiche : lot.fiches()) {
+            if (fiche.dateGeneration() == null) {
+                resultat.avertissement("Fiche ID " + fiche.id() + ": Date de génération manquante");
+            }
+
+            if (fiche.periode() == null) {
+                resultat.erreur("Fiche ID " + fiche.id() + ": Période manquante");
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ma.digitalia.generationfichepaie.validation;
+
+import ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Métriques de qualité : part des fiches dont les montants et dates principaux sont renseignés.
+ */
+@Component
+@Order(5)
+public class RegleCompletude implements RegleValidationPaie {
+
+    @Override
+    public String getNom() {
+        return "completude";
+    }
+
+    @Override
+    public void verifier(LotValidation lot, ResultatRegle resultat) {
+        for (FicheValidationDto fiche : lot.fiches()) {
+            boolean complete = fiche.salaireBrut() != null &&
+                    fiche.salaireNet() != null &&
+                    fiche.cotisationsSalariales() != null &&
+                    fiche.dateGeneration() != null &&
+                    fiche.periode() != null;
+
+            if (complete) {
+                resultat.incrementer("fichesCompletes");
+            }
+        }
+    }
+
+    @Override
+    public void completerMetriques(ResultatRegle total, Map<String, Object> metriques) {
+        long totalFiches = total.getFichesVerifiees();
+        long fichesCompletes = total.compteur("fichesCompletes");
+        metriques.put("totalFiches", totalFiches);
+        metriques.put("fichesCompletes", fichesCompletes);
+        metriques.put("tauxCompletude", totalFiches > 0 ?
+                (double) fichesCompletes / totalFiches * 100 : 0);
+    }
+}
@@ -0,0 +1,64 @@
+package ma.digitalia.generationfichepaie.validation;
+
+import ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/**
+ * Cotisations salariales et patronales positives, taux de cotisation salariale plausible.
+ */
+@Component
+@Order(2)
+public class RegleCotisations implements RegleValidationPaie {
+
+    @Override
+    public String getNom() {
+        return "cotisations";
+    }
+
+    @Override
+    public void verifier(LotValidation lot, ResultatRegle resultat) {
+        for (FicheValidationDto fiche : lot.fiches()) {
+            // Validation des cotisations salariales
+            if (fiche.cotisationsSalariales() != null) {
+                if (fiche.cotisationsSalariales().compareTo(BigDecimal.ZERO) < 0) {
+                    resultat.erreur("Fiche ID " + fiche.id() + ": Cotisations salariales négatives");
+                    resultat.incrementer("cotisationsInvalides");
+                }
+                resultat.ajouter("totalCotisationsSalariales", fiche.cotisationsSalariales());
+            }
+
+            // Validation des cotisations patronales
+            if (fiche.cotisationsPatronales() != null) {
+                if (fiche.cotisationsPatronales().compareTo(BigDecimal.ZERO) < 0) {
+                    resultat.erreur("Fiche ID " + fiche.id() + ": Cotisations patronales négatives");
+                    resultat.incrementer("cotisationsInvalides");
+                }
+                resultat.ajouter("totalCotisationsPatronales", fiche.cotisationsPatronales());
+            }
+
+            // Validation de la cohérence des cotisations (un brut nul est signalé par la règle des montants)
+            if (fiche.salaireBrut() != null && fiche.salaireBrut().signum() > 0 && fiche.cotisationsSalariales() != null) {
+                BigDecimal tauxCotisation = fiche.cotisationsSalariales()
+                        .divide(fiche.salaireBrut(), 4, RoundingMode.HALF_UP)
+                        .multiply(BigDecimal.valueOf(100));
+
+                if (tauxCotisation.compareTo(BigDecimal.valueOf(30)) > 0) {
+                    resultat.avertissement("Fiche ID " + fiche.id() + ": Taux de cotisation élevé (" +
+                            tauxCotisation.intValue() + "%)");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void completerMetriques(ResultatRegle total, Map<String, Object> metriques) {
+        metriques.put("cotisationsInvalides", total.compteur("cotisationsInvalides"));
+        metriques.put("totalCotisationsSalariales", total.somme("totalCotisationsSalariales"));
+        metriques.put("totalCotisationsPatronales", total.somme("totalCotisationsPatronales"));
+    }
+}
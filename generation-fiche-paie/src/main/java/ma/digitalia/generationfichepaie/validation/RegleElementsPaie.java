@@ -0,0 +1,58 @@
+package ma.digitalia.generationfichepaie.validation;
+
+import ma.digitalia.generationfichepaie.dto.validation.ElementValidationDto;
+import ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Lignes figées sur les fiches : montant et type renseignés, libellé présent.
+ */
+@Component
+@Order(3)
+public class RegleElementsPaie implements RegleValidationPaie {
+
+    @Override
+    public String getNom() {
+        return "elements";
+    }
+
+    @Override
+    public void verifier(LotValidation lot, ResultatRegle resultat) {
+        for (FicheValidationDto fiche : lot.fiches()) {
+            for (ElementValidationDto element : lot.elements(fiche.id())) {
+                resultat.incrementer("totalElements");
+
+                // Validation du montant
+                if (element.montant() == null) {
+                    resultat.erreur("Fiche ID " + fiche.id() + ", ligne " + element.rang() + ": Montant manquant");
+                    resultat.incrementer("elementsInvalides");
+                    continue;
+                }
+
+                // Validation du libellé
+                if (element.libelle() == null || element.libelle().trim().isEmpty()) {
+                    resultat.avertissement("Fiche ID " + fiche.id() + ", ligne " + element.rang() + ": Libellé manquant");
+                }
+
+                // Validation du type
+                if (element.type() == null) {
+                    resultat.erreur("Fiche ID " + fiche.id() + ", ligne " + element.rang() + ": Type manquant");
+                    resultat.incrementer("elementsInvalides");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void completerMetriques(ResultatRegle total, Map<String, Object> metriques) {
+        long totalElements = total.compteur("totalElements");
+        long elementsInvalides = total.compteur("elementsInvalides");
+        metriques.put("elementsInvalides", elementsInvalides);
+        metriques.put("totalElements", totalElements);
+        metriques.put("tauxElementsValides", totalElements > 0 ?
+                (double) (totalElements - elementsInvalides) / totalElements * 100 : 0);
+    }
+}
@@ -0,0 +1,73 @@
+package ma.digitalia.generationfichepaie.validation;
+
+import ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/**
+ * Salaires brut et net présents, positifs et cohérents entre eux.
+ */
+@Component
+@Order(1)
+public class RegleMontantsSalaire implements RegleValidationPaie {
+
+    @Override
+    public String getNom() {
+        return "montants";
+    }
+
+    @Override
+    public void verifier(LotValidation lot, ResultatRegle resultat) {
+        for (FicheValidationDto fiche : lot.fiches()) {
+            // Vérification que le salaire brut est positif
+            if (fiche.salaireBrut() == null || fiche.salaireBrut().compareTo(BigDecimal.ZERO) <= 0) {
+                resultat.erreur("Fiche ID " + fiche.id() + ": Salaire brut invalide");
+                resultat.incrementer("fichesInvalides");
+                continue;
+            }
+
+            // Vérification que le salaire net est positif
+            if (fiche.salaireNet() == null || fiche.salaireNet().compareTo(BigDecimal.ZERO) <= 0) {
+                resultat.erreur("Fiche ID " + fiche.id() + ": Salaire net invalide");
+                resultat.incrementer("fichesInvalides");
+                continue;
+            }
+
+            // Vérification que le salaire net <= salaire brut
+            if (fiche.salaireNet().compareTo(fiche.salaireBrut()) > 0) {
+                resultat.erreur("Fiche ID " + fiche.id() + ": Salaire net supérieur au salaire brut");
+                resultat.incrementer("fichesInvalides");
+                continue;
+            }
+
+            // Vérification des variations importantes
+            BigDecimal ecart = fiche.salaireBrut().subtract(fiche.salaireNet());
+            BigDecimal pourcentageEcart = ecart.divide(fiche.salaireBrut(), 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100));
+
+            if (pourcentageEcart.compareTo(BigDecimal.valueOf(50)) > 0) {
+                resultat.avertissement("Fiche ID " + fiche.id() + ": Écart important entre brut et net (" +
+                        pourcentageEcart.intValue() + "%)");
+            }
+
+            resultat.ajouter("totalSalaireBrut", fiche.salaireBrut());
+            resultat.ajouter("totalSalaireNet", fiche.salaireNet());
+        }
+    }
+
+    @Override
+    public void completerMetriques(ResultatRegle total, Map<String, Object> metriques) {
+        BigDecimal totalBrut = total.somme("totalSalaireBrut");
+        BigDecimal totalNet = total.somme("totalSalaireNet");
+        metriques.put("fichesInvalides", total.compteur("fichesInvalides"));
+        metriques.put("totalSalaireBrut", totalBrut);
+        metriques.put("totalSalaireNet", totalNet);
+        metriques.put("tauxPrelevement", totalBrut.compareTo(BigDecimal.ZERO) > 0 ?
+                totalBrut.subtract(totalNet).divide(totalBrut, 4, RoundingMode.HALF_UP)
+                        .multiply(BigDecimal.valueOf(100)) : BigDecimal.ZERO);
+    }
+}
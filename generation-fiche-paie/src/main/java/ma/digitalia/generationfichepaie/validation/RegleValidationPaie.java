@@ -0,0 +1,26 @@
+package ma.digitalia.generationfichepaie.validation;
+
+import java.util.Map;
+
+/**
+ * Règle de validation des fiches de paie. Chaque règle est un bean Spring détecté automatiquement ;
+ * elle est appliquée lot par lot, en parallèle, et ne doit donc garder aucun état propre.
+ */
+public interface RegleValidationPaie {
+
+    /**
+     * @return le nom de la règle dans le rapport de validation
+     */
+    String getNom();
+
+    /**
+     * Vérifier un lot de fiches et consigner erreurs, avertissements, compteurs et sommes dans le résultat partiel.
+     */
+    void verifier(LotValidation lot, ResultatRegle resultat);
+
+    /**
+     * Ajouter aux métriques de la validation celles de la règle, à partir de son résultat cumulé sur tous les lots.
+     */
+    default void completerMetriques(ResultatRegle total, Map<String, Object> metriques) {
+    }
+}
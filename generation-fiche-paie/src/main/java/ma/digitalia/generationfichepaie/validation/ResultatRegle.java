@@ -0,0 +1,114 @@
+package ma.digitalia.generationfichepaie.validation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résultat d'une règle de validation, sur un lot ou cumulé sur tous les lots.
+ * Le nombre de messages conservés est borné ; les violations restent toutes comptées.
+ */
+public class ResultatRegle {
+
+    private final String regle;
+    private final int maxMessages;
+
+    private final List<String> erreurs = new ArrayList<>();
+    private final List<String> avertissements = new ArrayList<>();
+    private final Map<String, Long> compteurs = new LinkedHashMap<>();
+    private final Map<String, BigDecimal> sommes = new LinkedHashMap<>();
+
+    private long nombreErreurs;
+    private long nombreAvertissements;
+    private long fichesVerifiees;
+    private long dureeNanos;
+
+    public ResultatRegle(String regle, int maxMessages) {
+        this.regle = regle;
+        this.maxMessages = maxMessages;
+    }
+
+    public void erreur(String message) {
+        nombreErreurs++;
+        if (erreurs.size() < maxMessages) {
+            erreurs.add(message);
+        }
+    }
+
+    public void avertissement(String message) {
+        nombreAvertissements++;
+        if (avertissements.size() < maxMessages) {
+            avertissements.add(message);
+        }
+    }
+
+    public void incrementer(String compteur) {
+        compteurs.merge(compteur, 1L, Long::sum);
+    }
+
+    public void ajouter(String somme, BigDecimal montant) {
+        sommes.merge(somme, montant, BigDecimal::add);
+    }
+
+    public long compteur(String compteur) {
+        return compteurs.getOrDefault(compteur, 0L);
+    }
+
+    public BigDecimal somme(String somme) {
+        return sommes.getOrDefault(somme, BigDecimal.ZERO);
+    }
+
+    public void ajouterExecution(int fiches, long nanos) {
+        fichesVerifiees += fiches;
+        dureeNanos += nanos;
+    }
+
+    /**
+     * Cumuler le résultat d'un lot. L'appelant synchronise sur ce résultat.
+     */
+    public void fusionner(ResultatRegle lot) {
+        nombreErreurs += lot.nombreErreurs;
+        nombreAvertissements += lot.nombreAvertissements;
+        fichesVerifiees += lot.fichesVerifiees;
+        dureeNanos += lot.dureeNanos;
+        lot.erreurs.stream().limit(Math.max(0, maxMessages - erreurs.size())).forEach(erreurs::add);
+        lot.avertissements.stream().limit(Math.max(0, maxMessages - avertissements.size())).forEach(avertissements::add);
+        lot.compteurs.forEach((cle, valeur) -> compteurs.merge(cle, valeur, Long::sum));
+        lot.sommes.forEach((cle, valeur) -> sommes.merge(cle, valeur, BigDecimal::add));
+    }
+
+    public String getRegle() {
+        return regle;
+    }
+
+    public List<String> getErreurs() {
+        return Collections.unmodifiableList(erreurs);
+    }
+
+    public List<String> getAvertissements() {
+        return Collections.unmodifiableList(avertissements);
+    }
+
+    public long getNombreErreurs() {
+        return nombreErreurs;
+    }
+
+    public long getNombreAvertissements() {
+        return nombreAvertissements;
+    }
+
+    public long getFichesVerifiees() {
+        return fichesVerifiees;
+    }
+
+    public long getDureeNanos() {
+        return dureeNanos;
+    }
+
+    public boolean estTronque() {
+        return erreurs.size() < nombreErreurs || avertissements.size() < nombreAvertissements;
+    }
+}
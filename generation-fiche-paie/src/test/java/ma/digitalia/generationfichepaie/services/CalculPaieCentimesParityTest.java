@@ -0,0 +1,170 @@
+package ma.digitalia.generationfichepaie.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.digitalia.generationfichepaie.Enum.ModeCalcul;
+import ma.digitalia.generationfichepaie.Enum.TypeElement;
+import ma.digitalia.generationfichepaie.entities.ElementPaie;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.helpers.CalculPaieCentimes;
+import ma.digitalia.generationfichepaie.helpers.PayrollInputSnapshot;
+import ma.digitalia.gestionutilisateur.entities.Employe;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Parité entre le calcul des fiches en {@code BigDecimal} et le noyau en centimes :
+ * les fiches de référence ({@code paie/fiches-golden.json}) donnent les totaux enregistrés attendus
+ * (au centime), et des fiches tirées au hasard vérifient l'égalité exacte des deux calculs.
+ */
+class CalculPaieCentimesParityTest {
+
+    private static final YearMonth PERIODE = YearMonth.of(2025, 1);
+    private static final Employe EMPLOYE = new Employe();
+
+    /** Totaux d'une fiche, dans l'ordre du fichier de référence */
+    private static final Map<String, Function<FichePaie, BigDecimal>> TOTAUX = new LinkedHashMap<>();
+
+    static {
+        EMPLOYE.setId(1L);
+        TOTAUX.put("salaireBrut", FichePaie::getSalaireBrut);
+        TOTAUX.put("salaireBrutImposable", FichePaie::getSalaireBrutImposable);
+        TOTAUX.put("cotisationsSalariales", FichePaie::getCotisationsSalariales);
+        TOTAUX.put("cotisationsPatronales", FichePaie::getCotisationsPatronales);
+        TOTAUX.put("salaireNetImposable", FichePaie::getSalaireNetImposable);
+        TOTAUX.put("impotSurLeRevenu", FichePaie::getImpotSurLeRevenu);
+        TOTAUX.put("salaireNet", FichePaie::getSalaireNet);
+    }
+
+    private static BaremePaieServiceImpl baremePaieService;
+    private static GenerationFichePaieServiceImpl calculBigDecimal;
+    private static GenerationFichePaieServiceImpl calculCentimes;
+
+    @BeforeAll
+    static void preparer() throws IOException {
+        baremePaieService = new BaremePaieServiceImpl(new ObjectMapper().findAndRegisterModules(),
+                new ClassPathResource("baremes-paie.json"));
+        baremePaieService.charger();
+        calculBigDecimal = GenerationFichePaieServiceImpl.pourCalcul(baremePaieService, false);
+        calculCentimes = GenerationFichePaieServiceImpl.pourCalcul(baremePaieService, true);
+    }
+
+    @Test
+    void fichesDeReferenceIdentiquesDansLesDeuxCalculs() throws IOException {
+        JsonNode cas;
+        try (InputStream fichier = new ClassPathResource("paie/fiches-golden.json").getInputStream()) {
+            cas = new ObjectMapper().readTree(fichier);
+        }
+        for (JsonNode fiche : cas) {
+            String nom = fiche.get("cas").asText();
+            List<ElementPaie> elements = new ArrayList<>();
+            for (JsonNode element : fiche.get("elements")) {
+                elements.add(element(TypeElement.valueOf(element.get("type").asText()), new BigDecimal(element.get("montant").asText()),
+                        element.get("cnss").asBoolean(), element.get("ir").asBoolean()));
+            }
+            assertNotNull(CalculPaieCentimes.calculer(elements, baremePaieService.getBareme(PERIODE), 2),
+                    nom + " : le noyau en centimes doit traiter la fiche");
+
+            FichePaie attendue = calculer(calculBigDecimal, elements);
+            FichePaie obtenue = calculer(calculCentimes, elements);
+            JsonNode totaux = fiche.get("attendu");
+            TOTAUX.forEach((total, valeur) -> {
+                assertEquals(totaux.get(total).asText(), enregistre(valeur.apply(attendue)), nom + " : " + total + " (BigDecimal)");
+                assertEquals(totaux.get(total).asText(), enregistre(valeur.apply(obtenue)), nom + " : " + total + " (centimes)");
+            });
+            verifierParite(nom, attendue, obtenue);
+        }
+    }
+
+    @Test
+    void fichesAleatoiresExactementEgales() {
+        Random hasard = new Random(20250101L);
+        TypeElement[] types = TypeElement.values();
+        for (int i = 0; i < 20_000; i++) {
+            List<ElementPaie> elements = new ArrayList<>();
+            elements.add(element(TypeElement.SALAIRE_BASE, centimes(hasard, 0, 6_000_000), true, true));
+            int nombre = hasard.nextInt(12);
+            for (int j = 0; j < nombre; j++) {
+                TypeElement type = types[hasard.nextInt(types.length)];
+                elements.add(element(type, centimes(hasard, 0, 500_000), hasard.nextBoolean(), hasard.nextBoolean()));
+            }
+            assertNotNull(CalculPaieCentimes.calculer(elements, baremePaieService.getBareme(PERIODE), 2));
+            FichePaie attendue = calculer(calculBigDecimal, elements);
+            FichePaie obtenue = calculer(calculCentimes, elements);
+            verifierParite("fiche aléatoire " + i, attendue, obtenue);
+        }
+    }
+
+    @Test
+    void montantNonRepresentableCalculeEnBigDecimal() {
+        List<ElementPaie> elements = List.of(
+                element(TypeElement.SALAIRE_BASE, new BigDecimal("7000.00"), true, true),
+                element(TypeElement.PRIME_VARIABLE, new BigDecimal("123.4567"), true, true));
+        assertNull(CalculPaieCentimes.calculer(elements, baremePaieService.getBareme(PERIODE), 2));
+
+        verifierParite("montant au-delà du centime", calculer(calculBigDecimal, elements), calculer(calculCentimes, elements));
+    }
+
+    private static void verifierParite(String nom, FichePaie attendue, FichePaie obtenue) {
+        TOTAUX.forEach((total, valeur) -> assertEquals(0, valeur.apply(attendue).compareTo(valeur.apply(obtenue)),
+                nom + " : " + total + " " + valeur.apply(attendue) + " <> " + valeur.apply(obtenue)));
+        List<ElementPaie> elementsAttendus = trier(attendue.getElements());
+        List<ElementPaie> elementsObtenus = trier(obtenue.getElements());
+        assertEquals(elementsAttendus.size(), elementsObtenus.size(), nom + " : nombre d'éléments");
+        for (int i = 0; i < elementsAttendus.size(); i++) {
+            ElementPaie a = elementsAttendus.get(i);
+            ElementPaie o = elementsObtenus.get(i);
+            assertEquals(a.getCode(), o.getCode(), nom + " : code de l'élément " + i);
+            assertEquals(0, a.getMontant().compareTo(o.getMontant()), nom + " : montant de " + a.getLibelle());
+            if (a.getBase() != null) {
+                assertEquals(0, a.getBase().compareTo(o.getBase()), nom + " : base de " + a.getLibelle());
+            }
+        }
+    }
+
+    private static FichePaie calculer(GenerationFichePaieServiceImpl service, List<ElementPaie> elements) {
+        Employe employe = elements.get(0).getEmploye();
+        PayrollInputSnapshot donnees = new PayrollInputSnapshot(PERIODE, Map.of(employe.getId(), employe), Map.of(), Map.of(), Set.of())
+                .simulation(Map.of(employe.getId(), elements), null);
+        return service.simulerFichePaie(employe.getId(), donnees);
+    }
+
+    private static ElementPaie element(TypeElement type, BigDecimal montant, boolean soumisCNSS, boolean soumisIR) {
+        return new ElementPaie(null, type, type.name(), type.name(), ModeCalcul.MONTANT, montant, null, null,
+                null, soumisIR, soumisCNSS, EMPLOYE, null, null);
+    }
+
+    private static BigDecimal centimes(Random hasard, int min, int max) {
+        return BigDecimal.valueOf(min + hasard.nextInt(max - min + 1), 2);
+    }
+
+    /** Valeur telle qu'enregistrée en base (colonne à 2 décimales) */
+    private static String enregistre(BigDecimal valeur) {
+        return valeur.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static List<ElementPaie> trier(List<ElementPaie> elements) {
+        List<ElementPaie> tries = new ArrayList<>(elements);
+        tries.sort(Comparator.comparing(ElementPaie::getLibelle).thenComparing(e -> e.getMontant() != null ? e.getMontant() : BigDecimal.ZERO));
+        return tries;
+    }
+}
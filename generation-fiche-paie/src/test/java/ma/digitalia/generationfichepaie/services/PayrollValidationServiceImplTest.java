@@ -0,0 +1,125 @@
+package ma.digitalia.generationfichepaie.services;
+
+import ma.digitalia.generationfichepaie.Enum.ModeCalcul;
+import ma.digitalia.generationfichepaie.Enum.TypeElement;
+import ma.digitalia.generationfichepaie.dto.validation.ElementValidationDto;
+import ma.digitalia.generationfichepaie.dto.validation.FicheValidationDto;
+import ma.digitalia.generationfichepaie.dto.validation.ValidationResult;
+import ma.digitalia.generationfichepaie.entities.FichePaie;
+import ma.digitalia.generationfichepaie.entities.LigneFichePaie;
+import ma.digitalia.generationfichepaie.repositories.FichePaieRepository;
+import ma.digitalia.generationfichepaie.validation.RegleElementsPaie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour PayrollValidationServiceImpl : les règles sur les éléments portent
+ * sur les lignes figées sur les fiches.
+ */
+@ExtendWith(MockitoExtension.class)
+class PayrollValidationServiceImplTest {
+
+    private static final YearMonth PERIODE = YearMonth.of(2025, 1);
+
+    @Mock
+    private FichePaieRepository fichePaieRepository;
+
+    private ThreadPoolTaskExecutor validationExecutor;
+    private PayrollValidationServiceImpl payrollValidationService;
+
+    @BeforeEach
+    void setUp() {
+        validationExecutor = new ThreadPoolTaskExecutor();
+        validationExecutor.setCorePoolSize(2);
+        validationExecutor.setMaxPoolSize(2);
+        validationExecutor.initialize();
+        payrollValidationService = new PayrollValidationServiceImpl(fichePaieRepository,
+                List.of(new RegleElementsPaie()), validationExecutor, 500, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validationExecutor.shutdown();
+    }
+
+    @Test
+    void ligneSansMontantEchoueLaValidation() {
+        FichePaie fichePaie = fiche(10L,
+                ligne(TypeElement.SALAIRE_BASE, "Salaire de base", new BigDecimal("8000.00")),
+                ligne(TypeElement.PRIME_VARIABLE, "Prime de rendement", null));
+
+        ValidationResult result = valider(fichePaie);
+
+        assertFalse(result.isValid());
+        assertEquals(1, result.getRegles().get("elements").getErreurs());
+        assertEquals(List.of("Fiche ID 10, ligne 1: Montant manquant"), result.getErrors());
+        assertEquals(2L, result.getMetrics().get("totalElements"));
+        assertEquals(1L, result.getMetrics().get("elementsInvalides"));
+    }
+
+    @Test
+    void lignesCompletesValidees() {
+        FichePaie fichePaie = fiche(10L,
+                ligne(TypeElement.SALAIRE_BASE, "Salaire de base", new BigDecimal("8000.00")),
+                ligne(TypeElement.PRIME_VARIABLE, "Prime de rendement", new BigDecimal("500.00")));
+
+        ValidationResult result = valider(fichePaie);
+
+        assertTrue(result.isValid());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(2L, result.getMetrics().get("totalElements"));
+    }
+
+    private ValidationResult valider(FichePaie fichePaie) {
+        when(fichePaieRepository.findValidationByPeriodeApres(eq(PERIODE), eq(0L), any()))
+                .thenReturn(List.of(new FicheValidationDto(fichePaie.getId(), PERIODE, fichePaie.getSalaireBrut(),
+                        fichePaie.getSalaireNet(), BigDecimal.ZERO, BigDecimal.ZERO, fichePaie.getDateGeneration())));
+        // même projection que la requête : une ligne par entrée de fiche_paie_ligne, repérée par son rang
+        when(fichePaieRepository.findLignesValidationByFicheIdIn(anyCollection()))
+                .thenReturn(IntStream.range(0, fichePaie.getLignes().size())
+                        .mapToObj(rang -> {
+                            LigneFichePaie ligne = fichePaie.getLignes().get(rang);
+                            return new ElementValidationDto(fichePaie.getId(), rang, ligne.getMontant(), ligne.getLibelle(), ligne.getType());
+                        })
+                        .toList());
+        return payrollValidationService.validatePayrollData(PERIODE);
+    }
+
+    private static FichePaie fiche(Long id, LigneFichePaie... lignes) {
+        FichePaie fichePaie = new FichePaie();
+        fichePaie.setId(id);
+        fichePaie.setPeriode(PERIODE);
+        fichePaie.setSalaireBrut(new BigDecimal("8500.00"));
+        fichePaie.setSalaireNet(new BigDecimal("7200.00"));
+        fichePaie.setDateGeneration(LocalDateTime.of(2025, 1, 31, 18, 0));
+        fichePaie.setLignes(new ArrayList<>(List.of(lignes)));
+        return fichePaie;
+    }
+
+    private static LigneFichePaie ligne(TypeElement type, String libelle, BigDecimal montant) {
+        LigneFichePaie ligne = new LigneFichePaie();
+        ligne.setType(type);
+        ligne.setLibelle(libelle);
+        ligne.setModeCalcul(ModeCalcul.MONTANT);
+        ligne.setMontant(montant);
+        return ligne;
+    }
+}
@@ -0,0 +1,7 @@
+package ma.digitalia.gestionutilisateur.events;
+
+/**
+ * Publié lorsque le salaire de base d'un employé est modifié.
+ */
+public record SalaireBaseModifieEvent(Long employeId) {
+}
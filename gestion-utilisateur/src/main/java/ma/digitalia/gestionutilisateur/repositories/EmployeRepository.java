@@ -21,6 +21,9 @@ public interface EmployeRepository extends JpaRepository<Users, Long> {
 
     List<Employe> findByManager(Manager manager);
 
+    @Query("SELECT e.Id FROM Employe e WHERE e.manager.Id = ?1")
+    List<Long> findIdsByManagerId(Long managerId);
+
     List<Employe> findAllByActive(boolean active);
 
     @Query("SELECT e FROM Employe e WHERE e.manager.Id = ?1 AND e.active = true")
@@ -35,6 +38,13 @@ public interface EmployeRepository extends JpaRepository<Users, Long> {
     @Query("SELECT DISTINCT e.manager.department FROM Employe e WHERE e.manager.department IS NOT NULL")
     List<String> findAllDepartments();
 
+    /**
+     * Récupère les identifiants des employés actifs avec leur département, sans charger les entités
+     * @return Liste d'objets contenant : [employeId, departement]
+     */
+    @Query("SELECT e.Id, m.department FROM Employe e LEFT JOIN e.manager m WHERE e.active = true ORDER BY e.Id")
+    List<Object[]> findActiveEmployeIdsWithDepartment();
+
     /**
      * Récupère la distribution salariale par département pour une période donnée
      * @param periode La période pour laquelle récupérer les données
@@ -54,4 +64,20 @@ public interface EmployeRepository extends JpaRepository<Users, Long> {
         ORDER BY m.department
         """, nativeQuery = true)
     List<Object[]> getSalaryDistributionByDepartment(@Param("periode") YearMonth periode);
+
+    /**
+     * Compte les employés actifs par département, sans passer par les fiches de paie
+     * @return Liste d'objets contenant : [departement, nombreEmployes]
+     */
+    @Query(value = """
+        SELECT 
+            COALESCE(m.department, 'Non défini') as departement,
+            COUNT(e.id) as nombreEmployes
+        FROM employe e 
+        LEFT JOIN manager m ON e.manager_id = m.id 
+        WHERE e.active = true
+        GROUP BY m.department
+        ORDER BY m.department
+        """, nativeQuery = true)
+    List<Object[]> countActiveEmployesByDepartment();
 }
@@ -4,11 +4,14 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import ma.digitalia.gestionutilisateur.dto.DepartmentEmployeesDTO;
 import ma.digitalia.gestionutilisateur.entities.Employe;
+import ma.digitalia.gestionutilisateur.events.SalaireBaseModifieEvent;
 import ma.digitalia.gestionutilisateur.repositories.EmployeRepository;
 import ma.digitalia.gestionutilisateur.repositories.UsersRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -18,9 +21,11 @@ import java.util.stream.Collectors;
 public class EmployeServiceImpl implements EmployeService {
 
     EmployeRepository empRepo;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public EmployeServiceImpl(EmployeRepository empRepo) {
+    public EmployeServiceImpl(EmployeRepository empRepo, ApplicationEventPublisher eventPublisher) {
         this.empRepo = empRepo;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -100,6 +105,7 @@ public class EmployeServiceImpl implements EmployeService {
             throw new EntityNotFoundException("Employe not found with id: " + employe.getId());
         }
         Employe existEmploye = (Employe) empRepo.findById(employe.getId()).get();
+        BigDecimal ancienSalaire = existEmploye.getSalairBase();
 
         existEmploye.setNom(employe.getNom());
         existEmploye.setPreNom(employe.getPreNom());
@@ -112,6 +118,17 @@ public class EmployeServiceImpl implements EmployeService {
         existEmploye.setAdresse(employe.getAdresse());
         existEmploye.setPoste(employe.getPoste());
         existEmploye.setCin(employe.getCin());
+
+        if (salaireModifie(ancienSalaire, employe.getSalairBase())) {
+            eventPublisher.publishEvent(new SalaireBaseModifieEvent(existEmploye.getId()));
+        }
+    }
+
+    private static boolean salaireModifie(BigDecimal ancien, BigDecimal nouveau) {
+        if (ancien == null || nouveau == null) {
+            return ancien != nouveau;
+        }
+        return ancien.compareTo(nouveau) != 0;
     }
 
     @Override
@@ -12,6 +12,7 @@ import ma.digitalia.suividutemps.services.DashboardService;
 import ma.digitalia.suividutemps.services.PlanningTravailService;
 import ma.digitalia.suividutemps.services.PointageService;
 import ma.digitalia.suividutemps.services.ProjectService;
+import ma.digitalia.suividutemps.services.RapportTempsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -20,6 +21,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -31,14 +33,17 @@ public class PointageController {
     private final ProjectService projectService;
     private final PlanningTravailService planningTravailService;
     private final DashboardService dashboardService;
+    private final RapportTempsService rapportTempsService;
 
 
     public PointageController(PointageService pointageService, ProjectService projectService,
-                             PlanningTravailService planningTravailService, DashboardService dashboardService) {
+                             PlanningTravailService planningTravailService, DashboardService dashboardService,
+                             RapportTempsService rapportTempsService) {
         this.pointageService = pointageService;
         this.projectService = projectService;
         this.planningTravailService = planningTravailService;
         this.dashboardService = dashboardService;
+        this.rapportTempsService = rapportTempsService;
     }
 
     @PostMapping("/create")
@@ -250,4 +255,17 @@ public class PointageController {
         }
     }
 
+    /**
+     * Recalcule entièrement le rapport mensuel d'un employé après la correction d'un pointage ;
+     * en temps normal le rapport est tenu à jour à chaque clôture de journée.
+     */
+    @PostMapping("/rapports/{employeId}/{periode}/recalcul")
+    public ResponseEntity<?> recalculerRapportMensuel(@PathVariable Long employeId, @PathVariable YearMonth periode) {
+        try {
+            log.info("Recalcul du rapport mensuel {} de l'employé id {}", periode, employeId);
+            return ResponseEntity.ok(rapportTempsService.recalculerRapportMensuel(employeId, periode));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
 }
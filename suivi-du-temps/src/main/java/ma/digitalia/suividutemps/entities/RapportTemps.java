@@ -17,7 +17,8 @@ import ma.digitalia.gestionutilisateur.entities.Employe;
 @Data
 @AllArgsConstructor
 @Entity
-@Table(name = "rapport_temps")
+@Table(name = "rapport_temps",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rapport_temps_employe_periode", columnNames = {"employe_id", "periode"}))
 public class RapportTemps {
 
     /**
@@ -73,6 +74,15 @@ public class RapportTemps {
     @Column(name = "nombre_jours_travail")
     private Integer nombreJoursTravail;
 
+    /**
+     * Identifiant du dernier pointage compté dans le rapport.
+     * Les pointages d'un employé sont clôturés dans l'ordre de leur création : un pointage
+     * d'identifiant inférieur ou égal est déjà compté et n'est pas ajouté une seconde fois
+     */
+    @Column(name = "dernier_pointage_id")
+    @JsonIgnore
+    private Long dernierPointageId;
+
     /**
      * Identifiant de l'employé concerné par ce rapport
      * Utilisé pour les relations avec l'entité Employe
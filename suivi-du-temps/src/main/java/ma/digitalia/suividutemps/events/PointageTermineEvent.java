@@ -0,0 +1,7 @@
+package ma.digitalia.suividutemps.events;
+
+/**
+ * Publié lorsqu'un employé clôture sa journée de travail (pointage de sortie).
+ */
+public record PointageTermineEvent(Long pointageId) {
+}
@@ -0,0 +1,9 @@
+package ma.digitalia.suividutemps.events;
+
+import java.time.YearMonth;
+
+/**
+ * Publié lorsqu'un rapport de temps mensuel est enregistré pour un employé.
+ */
+public record RapportTempsGenereEvent(Long employeId, YearMonth periode) {
+}
@@ -7,7 +7,7 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.springframework.stereotype.Component;
 
-import java.time.Month;
+import java.time.YearMonth;
 
 @Slf4j
 @Component
@@ -19,8 +19,13 @@ public class RapportMensuelJob implements Job {
         this.rapportTempsService = rapportTempsService;
     }
 
+    /**
+     * Précalcule les rapports de temps du mois de tous les employés actifs, avant le lancement de la paie.
+     */
     @Override
     public void execute(JobExecutionContext context) {
-        rapportTempsService.generateMonthlyReport(2L, Month.AUGUST);
+        YearMonth periode = YearMonth.now();
+        int generes = rapportTempsService.genererRapportsMensuels(periode);
+        log.info("{} rapports de temps générés pour la période {}", generes, periode);
     }
 }
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Repository;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,4 +25,20 @@ public interface PointageRepository extends JpaRepository<Pointage, Long> {
 
     List<Pointage> findByDateBetween(LocalDate startDate, LocalDate endDate);
 
+    /**
+     * Pointages de tous les employés sur l'intervalle, en un seul parcours, associés à l'identifiant de l'employé.
+     * @return lignes [employeId, Pointage]
+     */
+    @Query("SELECT p.employe.Id, p FROM Pointage p WHERE p.date BETWEEN :debut AND :fin ORDER BY p.employe.Id, p.date")
+    List<Object[]> findAvecEmployeIdByDateBetween(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
+
+    /**
+     * Pointages de plusieurs employés sur l'intervalle, associés à l'identifiant de l'employé.
+     * @return lignes [employeId, Pointage]
+     */
+    @Query("SELECT p.employe.Id, p FROM Pointage p WHERE p.employe.Id IN :employeIds AND p.date BETWEEN :debut AND :fin " +
+            "ORDER BY p.employe.Id, p.date")
+    List<Object[]> findAvecEmployeIdByEmployeIdInAndDateBetween(@Param("employeIds") Collection<Long> employeIds,
+                                                               @Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
+
 }
@@ -2,9 +2,17 @@ package ma.digitalia.suividutemps.repositories;
 
 import ma.digitalia.gestionutilisateur.entities.Employe;
 import ma.digitalia.suividutemps.entities.RapportTemps;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface RapportTempsRepository extends JpaRepository<RapportTemps, Long> {
     /**
@@ -15,4 +23,35 @@ public interface RapportTempsRepository extends JpaRepository<RapportTemps, Long
      * @return the RapportTemps entity if found, otherwise null
      */
     RapportTemps findByEmployeAndPeriode(Employe employe, String periode);
+
+    /**
+     * Find the reports of several employees for one period, paired with the employee ID.
+     *
+     * @param employeIds the IDs of the employees
+     * @param periode    the period of the reports (e.g., "2024-01")
+     * @return rows of [employeId, RapportTemps]
+     */
+    @Query("SELECT r.employe.Id, r FROM RapportTemps r WHERE r.employe.Id IN :employeIds AND r.periode = :periode")
+    List<Object[]> findByEmployeIdInAndPeriode(@Param("employeIds") Collection<Long> employeIds, @Param("periode") String periode);
+
+    /**
+     * Find the IDs of the employees that already have a report for the period.
+     *
+     * @param periode the period of the reports (e.g., "2024-01")
+     * @return the employee IDs
+     */
+    @Query("SELECT r.employe.Id FROM RapportTemps r WHERE r.periode = :periode")
+    List<Long> findEmployeIdsByPeriode(@Param("periode") String periode);
+
+    /**
+     * Find the report of an employee for a period and lock its row until the end of the transaction,
+     * so that concurrent punch-outs update its counters one after the other.
+     *
+     * @param employeId the ID of the employee
+     * @param periode   the period of the report (e.g., "2024-01")
+     * @return the locked report, if any
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RapportTemps r WHERE r.employe.Id = :employeId AND r.periode = :periode")
+    Optional<RapportTemps> findPourMiseAJour(@Param("employeId") Long employeId, @Param("periode") String periode);
 }
@@ -12,10 +12,12 @@ import ma.digitalia.suividutemps.Enum.StatutPointage;
 import ma.digitalia.suividutemps.Enum.TypeActivite;
 import ma.digitalia.suividutemps.dto.*;
 import ma.digitalia.suividutemps.entities.*;
+import ma.digitalia.suividutemps.events.PointageTermineEvent;
 import ma.digitalia.suividutemps.repositories.*;
 import ma.digitalia.systemalert.model.dto.AlerteDTO;
 import ma.digitalia.systemalert.model.enums.TypeAlerte;
 import ma.digitalia.systemalert.service.AlerteService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,10 +45,12 @@ public class PointageServiceImpl implements PointageService {
     private final ProjetRepository projetRepo;
     private final TacheRepository tacheRepo;
     private final AlerteService alerteService;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     public PointageServiceImpl(PointageRepository pointageRepository, EmployeService employeService, ManagerService managerService, PlanningTravailRepository planningTravailRepository
-    , ActiviteRepository activiteRepo, ProjetRepository projetRepo, TacheRepository tacheRepo, AlerteService alerteService) {
+    , ActiviteRepository activiteRepo, ProjetRepository projetRepo, TacheRepository tacheRepo, AlerteService alerteService,
+                               ApplicationEventPublisher eventPublisher) {
         this.pointageRepository = pointageRepository;
         this.employeService = employeService;
         this.managerService = managerService;
@@ -55,6 +59,7 @@ public class PointageServiceImpl implements PointageService {
         this.projetRepo = projetRepo;
         this.tacheRepo = tacheRepo;
         this.alerteService = alerteService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -90,6 +95,8 @@ public class PointageServiceImpl implements PointageService {
             pointage.setHeureSortie(LocalDateTime.now());
             pointage.setStatut(StatutPointage.TERMINE);
             pointageRepository.save(pointage);
+            // rapports mensuels mis à jour après validation, sans pouvoir faire échouer le pointage
+            eventPublisher.publishEvent(new PointageTermineEvent(pointage.getId()));
 
             String formattedDate = pointage.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
             creerEtPublierAlerte(employeId, TypeAlerte.INFO, "Pointage de sortie enregistré pour la journée du " + formattedDate);
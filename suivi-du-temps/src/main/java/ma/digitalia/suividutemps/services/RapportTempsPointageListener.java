@@ -0,0 +1,48 @@
+package ma.digitalia.suividutemps.services;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.digitalia.suividutemps.events.PointageTermineEvent;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Met à jour les rapports de temps mensuels une fois le pointage de sortie validé, dans une transaction séparée :
+ * un rapport impossible à calculer (planning manquant) est tracé sans annuler le pointage.
+ */
+@Slf4j
+@Component
+public class RapportTempsPointageListener {
+
+    private final RapportTempsService rapportTempsService;
+    private final TransactionTemplate transactionTemplate;
+
+    public RapportTempsPointageListener(RapportTempsService rapportTempsService, PlatformTransactionManager transactionManager) {
+        this.rapportTempsService = rapportTempsService;
+        // après validation, la transaction du pointage est terminée : le rapport est écrit dans une nouvelle
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPointageTermine(PointageTermineEvent event) {
+        try {
+            try {
+                enregistrer(event.pointageId());
+            } catch (DataIntegrityViolationException e) {
+                // rapport du mois créé au même moment par un autre calcul : la seconde tentative le met à jour
+                log.debug("Rapport de temps créé en parallèle, nouvelle tentative pour le pointage {}", event.pointageId());
+                enregistrer(event.pointageId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Rapport de temps non mis à jour pour le pointage {}, à recalculer", event.pointageId(), e);
+        }
+    }
+
+    private void enregistrer(Long pointageId) {
+        transactionTemplate.executeWithoutResult(status -> rapportTempsService.enregistrerPointage(pointageId));
+    }
+}
@@ -6,6 +6,8 @@ import ma.digitalia.suividutemps.entities.RapportTemps;
 import java.math.BigDecimal;
 import java.time.Month;
 import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
 
 public interface RapportTempsService {
     /**
@@ -33,6 +35,38 @@ public interface RapportTempsService {
      */
     RapportTemps getMonthlyReport(Employe employe, YearMonth yearMonth);
 
+    /**
+     * Recuperer en une seule requête les rapports mensuels de plusieurs employés.
+     * Les rapports manquants sont générés comme dans {@link #getMonthlyReport(Employe, YearMonth)}.
+     * @param employes les employés concernés
+     * @param yearMonth l'année et le mois des rapports
+     * @return les rapports indexés par identifiant d'employé
+     */
+    Map<Long, RapportTemps> getMonthlyReports(Collection<Employe> employes, YearMonth yearMonth);
+
+    /**
+     * Générer en un seul passage les rapports mensuels manquants de tous les employés actifs :
+     * un parcours des pointages de la période et un planning hebdomadaire chargé une fois.
+     * @param yearMonth l'année et le mois des rapports
+     * @return le nombre de rapports générés
+     */
+    int genererRapportsMensuels(YearMonth yearMonth);
+
+    /**
+     * Ajouter une journée terminée aux compteurs des rapports mensuels dont la période la contient
+     * (le rapport est calculé entièrement s'il n'existe pas encore ; une journée déjà comptée est ignorée)
+     * @param pointageId l'identifiant du pointage qui vient d'être clôturé
+     */
+    void enregistrerPointage(Long pointageId);
+
+    /**
+     * Recalculer entièrement un rapport mensuel à partir des pointages, après la correction d'un pointage
+     * @param employeId l'identifiant de l'employé
+     * @param yearMonth l'année et le mois du rapport
+     * @return le rapport recalculé
+     */
+    RapportTemps recalculerRapportMensuel(Long employeId, YearMonth yearMonth);
+
     /**
      * Calculer le nombre d'absences pour un employé donné sur un mois spécifié
      * @param employe l'employé pour lequel le nombre d'absences est calculé
@@ -3,18 +3,30 @@ package ma.digitalia.suividutemps.services;
 import lombok.extern.slf4j.Slf4j;
 import ma.digitalia.gestionutilisateur.entities.Employe;
 import ma.digitalia.gestionutilisateur.repositories.EmployeRepository;
+import ma.digitalia.suividutemps.Enum.StatutPointage;
 import ma.digitalia.suividutemps.entities.PlanningTravail;
 import ma.digitalia.suividutemps.entities.Pointage;
 import ma.digitalia.suividutemps.entities.RapportTemps;
+import ma.digitalia.suividutemps.events.RapportTempsGenereEvent;
 import ma.digitalia.suividutemps.repositories.PlanningTravailRepository;
 import ma.digitalia.suividutemps.repositories.PointageRepository;
 import ma.digitalia.suividutemps.repositories.RapportTempsRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -24,14 +36,17 @@ public class RapportTempsServiceImpl implements RapportTempsService {
     private final PointageRepository pointageRepository;
     private final EmployeRepository employeRepository;
     private final PlanningTravailRepository planningTravailRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     public RapportTempsServiceImpl(RapportTempsRepository rapportTempsRepository, PointageRepository pointageRepository
-    , EmployeRepository employeRepository, PlanningTravailRepository planningTravailRepository) {
+    , EmployeRepository employeRepository, PlanningTravailRepository planningTravailRepository,
+                                   ApplicationEventPublisher eventPublisher) {
         this.rapportTempsRepository = rapportTempsRepository;
         this.pointageRepository = pointageRepository;
         this.employeRepository = employeRepository;
         this.planningTravailRepository = planningTravailRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -43,106 +58,23 @@ public class RapportTempsServiceImpl implements RapportTempsService {
     public void generateMonthlyReport(Long employeId, Month month) {
 
         try {
-            RapportTemps rapportTemps = new RapportTemps();
-
             Employe employe = (Employe) employeRepository.findById(employeId)
                     .orElseThrow(() -> new IllegalArgumentException("Employé non trouvé avec l'ID: " + employeId));
 
-            int currentYear = LocalDate.now().getYear();
-            Month moisPrecedent = month.minus(1);
-            int anneeMoisPrecedent = currentYear;
-            if (month == Month.JANUARY) {
-                moisPrecedent = Month.DECEMBER;
-                anneeMoisPrecedent = currentYear - 1;
-            }
-
-            rapportTemps.setEmploye(employe);
-            YearMonth yearMonth = YearMonth.of(currentYear, month);
-            rapportTemps.setPeriode(yearMonth.toString());
-
-            LocalDate dateDebut = LocalDate.of(anneeMoisPrecedent, moisPrecedent, 15);
-            LocalDate dateFin = LocalDate.of(currentYear, month, 15);
+            YearMonth yearMonth = YearMonth.of(LocalDate.now().getYear(), month);
+            LocalDate dateDebut = debutPeriode(yearMonth);
+            LocalDate dateFin = finPeriode(yearMonth);
 
             List<Pointage> pointages = pointageRepository.findByEmployeAndDateBetween(employe, dateDebut, dateFin);
-            int totalJoursTravail = pointages.size();
             if (pointages.isEmpty()) {
                 log.error("Aucun pointage trouvé pour l'employé avec l'ID: " + employeId
                         + " entre les dates " + dateDebut + " et " + dateFin);
                 return;
             }
-            for (Pointage pointage : pointages) {
-                DayOfWeek dayOfWeek = pointage.getDate().getDayOfWeek();
-                PlanningTravail planningTravail = planningTravailRepository.findByJourSemaine(dayOfWeek);
-                //gestion des weekends
-                if (dayOfWeek == DayOfWeek.SUNDAY || dayOfWeek == DayOfWeek.SATURDAY) {
-                    totalJoursTravail--;
-                    if (planningTravail.getHeureDebutMatin() == null) {
-                        Duration totalActuel = rapportTemps.getTotalHeuresSupplementaires();
-                        rapportTemps.setTotalHeuresSupplementaires(totalActuel.plus(pointage.getHeuresTravaillees()));
-                        continue;
-                    }
-                }
-                if (pointage.getHeureEntree() == null) {
-                    rapportTemps.setNombreJoursAbsence(rapportTemps.getNombreJoursAbsence() + 1);
-                    continue;
-                }
-                if (planningTravail.getHeureDebutMatin().isBefore(LocalTime.from(pointage.getHeureEntree()))) {
-                    Duration retardMatin = Duration.between(planningTravail.getHeureDebutMatin(), pointage.getHeureEntree());
-
-                    if (retardMatin.toMinutes() > 10) {
-                        log.info("Employé en retard de {} minutes pour l'entrée du matin. Prévu: {}, Réel: {}",
-                                retardMatin.toMinutes(),
-                                planningTravail.getHeureDebutMatin(),
-                                pointage.getHeureEntree());
-                        rapportTemps.setNombreRetards(rapportTemps.getNombreRetards() + 1);
-                    }
-                }
-
-//                if (planningTravail.getHeureDebutApresMidi().isBefore(pointage.getPauseTerminee())) {
-//                    Duration retardApresMidi = Duration.between(planningTravail.getHeureDebutApresMidi(), pointage.getPauseTerminee());
-//
-//                    if (retardApresMidi.toMinutes() > 10) {
-//                        log.info("Employé en retard de {} minutes pour l'entrée après-midi. Prévu: {}, Réel: {}",
-//                                retardApresMidi.toMinutes(),
-//                                planningTravail.getHeureDebutApresMidi(),
-//                                pointage.getPauseTerminee());
-//                        rapportTemps.setNombreRetards(rapportTemps.getNombreRetards() + 1);
-//                    }
-//                }
-                if (!(planningTravail.getHeuresParJour().toHours() == pointage.getHeuresTravaillees().toHours())) {
-                    Duration heuresTravaillees = pointage.getHeuresTravaillees();
-                    Duration heuresPreves = planningTravail.getHeuresParJour();
-                    Duration difference = heuresTravaillees.minus(heuresPreves);
-
-                    if (!difference.isNegative() && !difference.isZero()) {
-                        Duration totalActuel = rapportTemps.getTotalHeuresSupplementaires();
-                        rapportTemps.setTotalHeuresSupplementaires(totalActuel.plus(difference));
-                        rapportTemps.setTotalHeuresTravaillees(planningTravail.getHeuresParJour().plus(rapportTemps.getTotalHeuresTravaillees()));
-                    }
-                    else if (difference.isNegative()) {
-                        Duration heuresManquantes = difference.abs();
-                        // à gérer
-                        rapportTemps.setTotalHeuresTravaillees(planningTravail.getHeuresParJour().minus(heuresManquantes).plus(rapportTemps.getTotalHeuresTravaillees()));
-                    }
-                } else {
-                    rapportTemps.setTotalHeuresTravaillees(planningTravail.getHeuresParJour().plus(rapportTemps.getTotalHeuresTravaillees()));
-                }
-            }
-            int joursAbsence = rapportTemps.getNombreJoursAbsence();
-            int joursPresence = totalJoursTravail - joursAbsence;
-            rapportTemps.setNombreJoursTravail(totalJoursTravail);
-            if (totalJoursTravail > 0) {
-                BigDecimal tauxPresence = BigDecimal.valueOf(joursPresence)
-                        .divide(BigDecimal.valueOf(totalJoursTravail), 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100))
-                        .setScale(2, RoundingMode.HALF_UP);
-
-                rapportTemps.setTauxPresence(tauxPresence);
-            } else {
-                rapportTemps.setTauxPresence(BigDecimal.ZERO);
-            }
+            RapportTemps rapportTemps = calculerRapport(employe, yearMonth, pointages, chargerPlanning());
             rapportTempsRepository.save(rapportTemps);
-            log.info("Rapport mensuel généré pour l'employé avec l'ID: {} pour le mois de {} de l'année {}", employeId, month, currentYear);
+            eventPublisher.publishEvent(new RapportTempsGenereEvent(employeId, yearMonth));
+            log.info("Rapport mensuel généré pour l'employé avec l'ID: {} pour le mois de {} de l'année {}", employeId, month, yearMonth.getYear());
             log.info("rapport de tempt: {}", rapportTemps);
         } catch (IllegalArgumentException e) {
             log.error("Erreur lors de la génération du rapport mensuel pour l'employé avec l'ID: {}", employeId, e);
@@ -152,6 +84,235 @@ public class RapportTempsServiceImpl implements RapportTempsService {
         }
     }
 
+    @Override
+    @Transactional
+    public int genererRapportsMensuels(YearMonth yearMonth) {
+        long debut = System.currentTimeMillis();
+        Set<Long> avecRapport = new HashSet<>(rapportTempsRepository.findEmployeIdsByPeriode(yearMonth.toString()));
+        List<Employe> employes = employeRepository.findAllByActive(true).stream()
+                .filter(employe -> !avecRapport.contains(employe.getId()))
+                .toList();
+        if (employes.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> pointages = pointageRepository.findAvecEmployeIdByDateBetween(debutPeriode(yearMonth), finPeriode(yearMonth));
+        int generes = enregistrerRapports(employes, yearMonth, pointages).size();
+        log.info("{} rapports mensuels {} générés en {} ms", generes, yearMonth, System.currentTimeMillis() - debut);
+        return generes;
+    }
+
+    @Override
+    @Transactional
+    public void enregistrerPointage(Long pointageId) {
+        Pointage pointage = pointageRepository.findById(pointageId)
+                .orElseThrow(() -> new IllegalArgumentException("Pointage non trouvé avec l'ID: " + pointageId));
+        if (pointage.getStatut() == StatutPointage.EN_COURS) {
+            return;
+        }
+        Employe employe = pointage.getEmploye();
+        PlanningTravail planningTravail = planningTravailRepository.findByJourSemaine(pointage.getDate().getDayOfWeek());
+        for (YearMonth yearMonth : periodesCouvrant(pointage.getDate())) {
+            Optional<RapportTemps> existant = rapportTempsRepository.findPourMiseAJour(employe.getId(), yearMonth.toString());
+            if (existant.isPresent()) {
+                RapportTemps rapportTemps = existant.get();
+                if (rapportTemps.getDernierPointageId() != null && rapportTemps.getDernierPointageId() >= pointage.getId()) {
+                    // déjà compté par un calcul complet fait après la clôture de la journée
+                    continue;
+                }
+                ajouterPointage(rapportTemps, pointage, planningTravail);
+            } else {
+                // premier pointage du mois, ou mois commencé avant le suivi incrémental : un calcul complet, une fois
+                recalculer(employe, yearMonth);
+            }
+            eventPublisher.publishEvent(new RapportTempsGenereEvent(employe.getId(), yearMonth));
+        }
+    }
+
+    @Override
+    @Transactional
+    public RapportTemps recalculerRapportMensuel(Long employeId, YearMonth yearMonth) {
+        Employe employe = (Employe) employeRepository.findById(employeId)
+                .orElseThrow(() -> new IllegalArgumentException("Employé non trouvé avec l'ID: " + employeId));
+        RapportTemps rapportTemps = recalculer(employe, yearMonth);
+        eventPublisher.publishEvent(new RapportTempsGenereEvent(employeId, yearMonth));
+        log.info("Rapport mensuel {} de l'employé {} recalculé", yearMonth, employeId);
+        return rapportTemps;
+    }
+
+    /**
+     * Recalcule entièrement le rapport à partir des pointages de la période, en conservant la ligne existante.
+     */
+    private RapportTemps recalculer(Employe employe, YearMonth yearMonth) {
+        List<Pointage> pointages = pointageRepository.findByEmployeAndDateBetween(employe, debutPeriode(yearMonth), finPeriode(yearMonth));
+        RapportTemps rapportTemps = calculerRapport(employe, yearMonth, pointages, chargerPlanning());
+        rapportTempsRepository.findPourMiseAJour(employe.getId(), yearMonth.toString())
+                .ifPresent(existant -> rapportTemps.setId(existant.getId()));
+        return rapportTempsRepository.save(rapportTemps);
+    }
+
+    // périodes dont la fenêtre contient la date : le 15 appartient au mois et au suivant
+    private static List<YearMonth> periodesCouvrant(LocalDate date) {
+        YearMonth mois = YearMonth.from(date);
+        if (date.getDayOfMonth() < 15) {
+            return List.of(mois);
+        }
+        if (date.getDayOfMonth() > 15) {
+            return List.of(mois.plusMonths(1));
+        }
+        return List.of(mois, mois.plusMonths(1));
+    }
+
+    /**
+     * Calcule et enregistre les rapports des employés à partir des lignes [employeId, Pointage] de la période,
+     * avec le planning hebdomadaire chargé une seule fois. Les employés sans pointage n'ont pas de rapport.
+     * @return les rapports enregistrés indexés par identifiant d'employé
+     */
+    private Map<Long, RapportTemps> enregistrerRapports(Collection<Employe> employes, YearMonth yearMonth, List<Object[]> lignes) {
+        Map<Long, List<Pointage>> parEmploye = new HashMap<>();
+        for (Object[] ligne : lignes) {
+            parEmploye.computeIfAbsent((Long) ligne[0], k -> new ArrayList<>()).add((Pointage) ligne[1]);
+        }
+        Map<DayOfWeek, PlanningTravail> planning = chargerPlanning();
+
+        Map<Long, RapportTemps> rapports = new HashMap<>();
+        for (Employe employe : employes) {
+            List<Pointage> pointages = parEmploye.get(employe.getId());
+            if (pointages == null) {
+                log.warn("Aucun pointage pour l'employé {} sur la période {}", employe.getId(), yearMonth);
+                continue;
+            }
+            try {
+                rapports.put(employe.getId(), calculerRapport(employe, yearMonth, pointages, planning));
+            } catch (RuntimeException e) {
+                log.error("Erreur lors du calcul du rapport mensuel {} de l'employé {}", yearMonth, employe.getId(), e);
+            }
+        }
+        rapportTempsRepository.saveAll(rapports.values());
+        rapports.keySet().forEach(employeId -> eventPublisher.publishEvent(new RapportTempsGenereEvent(employeId, yearMonth)));
+        return rapports;
+    }
+
+    // la période de pointage d'un mois va du 15 du mois précédent au 15 du mois
+    private static LocalDate debutPeriode(YearMonth yearMonth) {
+        return yearMonth.minusMonths(1).atDay(15);
+    }
+
+    private static LocalDate finPeriode(YearMonth yearMonth) {
+        return yearMonth.atDay(15);
+    }
+
+    private Map<DayOfWeek, PlanningTravail> chargerPlanning() {
+        Map<DayOfWeek, PlanningTravail> planning = new EnumMap<>(DayOfWeek.class);
+        for (PlanningTravail jour : planningTravailRepository.findAll()) {
+            planning.put(jour.getJourSemaine(), jour);
+        }
+        return planning;
+    }
+
+    private RapportTemps calculerRapport(Employe employe, YearMonth yearMonth, List<Pointage> pointages,
+                                         Map<DayOfWeek, PlanningTravail> planning) {
+        RapportTemps rapportTemps = new RapportTemps();
+        rapportTemps.setEmploye(employe);
+        rapportTemps.setPeriode(yearMonth.toString());
+        rapportTemps.setNombreJoursTravail(0);
+
+        for (Pointage pointage : pointages) {
+            // une journée en cours est comptée à sa clôture, par enregistrerPointage
+            if (pointage.getStatut() == StatutPointage.EN_COURS) {
+                continue;
+            }
+            ajouterPointage(rapportTemps, pointage, planning.get(pointage.getDate().getDayOfWeek()));
+        }
+        return rapportTemps;
+    }
+
+    /**
+     * Ajoute une journée terminée aux compteurs du rapport et met à jour le taux de présence.
+     */
+    private void ajouterPointage(RapportTemps rapportTemps, Pointage pointage, PlanningTravail planningTravail) {
+        DayOfWeek dayOfWeek = pointage.getDate().getDayOfWeek();
+        if (planningTravail == null) {
+            throw new IllegalStateException("Aucun planning de travail défini pour le " + dayOfWeek);
+        }
+        if (dayOfWeek != DayOfWeek.SUNDAY && dayOfWeek != DayOfWeek.SATURDAY) {
+            rapportTemps.setNombreJoursTravail(rapportTemps.getNombreJoursTravail() + 1);
+        }
+        cumulerHeures(rapportTemps, pointage, planningTravail);
+        if (pointage.getId() != null && (rapportTemps.getDernierPointageId() == null || pointage.getId() > rapportTemps.getDernierPointageId())) {
+            rapportTemps.setDernierPointageId(pointage.getId());
+        }
+
+        int totalJoursTravail = rapportTemps.getNombreJoursTravail();
+        int joursPresence = totalJoursTravail - rapportTemps.getNombreJoursAbsence();
+        if (totalJoursTravail > 0) {
+            BigDecimal tauxPresence = BigDecimal.valueOf(joursPresence)
+                    .divide(BigDecimal.valueOf(totalJoursTravail), 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100))
+                    .setScale(2, RoundingMode.HALF_UP);
+
+            rapportTemps.setTauxPresence(tauxPresence);
+        } else {
+            rapportTemps.setTauxPresence(BigDecimal.ZERO);
+        }
+    }
+
+    private void cumulerHeures(RapportTemps rapportTemps, Pointage pointage, PlanningTravail planningTravail) {
+        DayOfWeek dayOfWeek = pointage.getDate().getDayOfWeek();
+        //gestion des weekends
+        if (dayOfWeek == DayOfWeek.SUNDAY || dayOfWeek == DayOfWeek.SATURDAY) {
+            if (planningTravail.getHeureDebutMatin() == null) {
+                Duration totalActuel = rapportTemps.getTotalHeuresSupplementaires();
+                rapportTemps.setTotalHeuresSupplementaires(totalActuel.plus(pointage.getHeuresTravaillees()));
+                return;
+            }
+        }
+        if (pointage.getHeureEntree() == null) {
+            rapportTemps.setNombreJoursAbsence(rapportTemps.getNombreJoursAbsence() + 1);
+            return;
+        }
+        if (planningTravail.getHeureDebutMatin().isBefore(LocalTime.from(pointage.getHeureEntree()))) {
+            Duration retardMatin = Duration.between(planningTravail.getHeureDebutMatin(), pointage.getHeureEntree());
+
+            if (retardMatin.toMinutes() > 10) {
+                log.debug("Employé en retard de {} minutes pour l'entrée du matin. Prévu: {}, Réel: {}",
+                        retardMatin.toMinutes(),
+                        planningTravail.getHeureDebutMatin(),
+                        pointage.getHeureEntree());
+                rapportTemps.setNombreRetards(rapportTemps.getNombreRetards() + 1);
+            }
+        }
+
+//        if (planningTravail.getHeureDebutApresMidi().isBefore(pointage.getPauseTerminee())) {
+//            Duration retardApresMidi = Duration.between(planningTravail.getHeureDebutApresMidi(), pointage.getPauseTerminee());
+//
+//            if (retardApresMidi.toMinutes() > 10) {
+//                log.info("Employé en retard de {} minutes pour l'entrée après-midi. Prévu: {}, Réel: {}",
+//                        retardApresMidi.toMinutes(),
+//                        planningTravail.getHeureDebutApresMidi(),
+//                        pointage.getPauseTerminee());
+//                rapportTemps.setNombreRetards(rapportTemps.getNombreRetards() + 1);
+//            }
+//        }
+        if (!(planningTravail.getHeuresParJour().toHours() == pointage.getHeuresTravaillees().toHours())) {
+            Duration heuresTravaillees = pointage.getHeuresTravaillees();
+            Duration heuresPreves = planningTravail.getHeuresParJour();
+            Duration difference = heuresTravaillees.minus(heuresPreves);
+
+            if (!difference.isNegative() && !difference.isZero()) {
+                Duration totalActuel = rapportTemps.getTotalHeuresSupplementaires();
+                rapportTemps.setTotalHeuresSupplementaires(totalActuel.plus(difference));
+                rapportTemps.setTotalHeuresTravaillees(planningTravail.getHeuresParJour().plus(rapportTemps.getTotalHeuresTravaillees()));
+            }
+            else if (difference.isNegative()) {
+                Duration heuresManquantes = difference.abs();
+                // à gérer
+                rapportTemps.setTotalHeuresTravaillees(planningTravail.getHeuresParJour().minus(heuresManquantes).plus(rapportTemps.getTotalHeuresTravaillees()));
+            }
+        } else {
+            rapportTemps.setTotalHeuresTravaillees(planningTravail.getHeuresParJour().plus(rapportTemps.getTotalHeuresTravaillees()));
+        }
+    }
+
     @Override
     public RapportTemps getMonthlyReport(Employe employe, YearMonth yearMonth) {
         if(employe == null && yearMonth == null) {
@@ -166,6 +327,30 @@ public class RapportTempsServiceImpl implements RapportTempsService {
         return rapportTemps;
     }
 
+    @Override
+    public Map<Long, RapportTemps> getMonthlyReports(Collection<Employe> employes, YearMonth yearMonth) {
+        if (employes == null || yearMonth == null) {
+            throw new IllegalArgumentException("Les employés et le mois ne peuvent pas être nuls");
+        }
+        Map<Long, RapportTemps> rapports = new HashMap<>();
+        if (employes.isEmpty()) {
+            return rapports;
+        }
+        List<Long> employeIds = employes.stream().map(Employe::getId).toList();
+        for (Object[] ligne : rapportTempsRepository.findByEmployeIdInAndPeriode(employeIds, yearMonth.toString())) {
+            rapports.put((Long) ligne[0], (RapportTemps) ligne[1]);
+        }
+        List<Employe> manquants = employes.stream().filter(employe -> !rapports.containsKey(employe.getId())).toList();
+        if (!manquants.isEmpty()) {
+            // rapports non précalculés par le job mensuel : un seul parcours des pointages pour tous les manquants
+            log.info("{} rapports mensuels {} manquants, génération groupée", manquants.size(), yearMonth);
+            List<Object[]> pointages = pointageRepository.findAvecEmployeIdByEmployeIdInAndDateBetween(
+                    manquants.stream().map(Employe::getId).toList(), debutPeriode(yearMonth), finPeriode(yearMonth));
+            rapports.putAll(enregistrerRapports(manquants, yearMonth, pointages));
+        }
+        return rapports;
+    }
+
     @Override
     public BigDecimal getNombreAbsences(Employe employe, YearMonth yearMonth) {
         RapportTemps rapportTemps = rapportTempsRepository.findByEmployeAndPeriode(employe, yearMonth.toString());
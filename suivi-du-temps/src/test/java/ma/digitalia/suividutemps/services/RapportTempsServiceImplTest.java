@@ -0,0 +1,197 @@
+package ma.digitalia.suividutemps.services;
+
+import ma.digitalia.gestionutilisateur.entities.Employe;
+import ma.digitalia.gestionutilisateur.repositories.EmployeRepository;
+import ma.digitalia.suividutemps.Enum.StatutPointage;
+import ma.digitalia.suividutemps.entities.PlanningTravail;
+import ma.digitalia.suividutemps.entities.Pointage;
+import ma.digitalia.suividutemps.entities.RapportTemps;
+import ma.digitalia.suividutemps.repositories.PlanningTravailRepository;
+import ma.digitalia.suividutemps.repositories.PointageRepository;
+import ma.digitalia.suividutemps.repositories.RapportTempsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour RapportTempsServiceImpl : le rapport tenu à jour à chaque clôture de pointage
+ * doit rester égal au rapport recalculé entièrement sur les mêmes pointages.
+ */
+@ExtendWith(MockitoExtension.class)
+class RapportTempsServiceImplTest {
+
+    private static final YearMonth PERIODE = YearMonth.of(2025, 4);
+
+    @Mock
+    private RapportTempsRepository rapportTempsRepository;
+
+    @Mock
+    private PointageRepository pointageRepository;
+
+    @Mock
+    private EmployeRepository employeRepository;
+
+    @Mock
+    private PlanningTravailRepository planningTravailRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private RapportTempsServiceImpl rapportTempsService;
+
+    private Employe employe;
+    /** Pointages clôturés et validés, dans l'ordre de leur clôture */
+    private final List<Pointage> pointagesClotures = new ArrayList<>();
+    /** Rapports enregistrés, par employé et période */
+    private final Map<String, RapportTemps> rapports = new HashMap<>();
+    private long sequenceRapport;
+
+    @BeforeEach
+    void setUp() {
+        rapportTempsService = new RapportTempsServiceImpl(rapportTempsRepository, pointageRepository,
+                employeRepository, planningTravailRepository, eventPublisher);
+
+        employe = new Employe();
+        employe.setId(1L);
+
+        Map<DayOfWeek, PlanningTravail> planning = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek jour : DayOfWeek.values()) {
+            PlanningTravail planningTravail = new PlanningTravail();
+            planningTravail.setJourSemaine(jour);
+            if (jour != DayOfWeek.SATURDAY && jour != DayOfWeek.SUNDAY) {
+                planningTravail.setHeureDebutMatin(LocalTime.of(9, 0));
+            }
+            planningTravail.setHeuresParJour(Duration.ofHours(8));
+            planning.put(jour, planningTravail);
+        }
+
+        lenient().when(planningTravailRepository.findByJourSemaine(any()))
+                .thenAnswer(invocation -> planning.get(invocation.<DayOfWeek>getArgument(0)));
+        lenient().when(planningTravailRepository.findAll()).thenReturn(new ArrayList<>(planning.values()));
+        lenient().when(employeRepository.findById(1L)).thenReturn(Optional.of(employe));
+        lenient().when(pointageRepository.findById(anyLong())).thenAnswer(invocation -> pointagesClotures.stream()
+                .filter(pointage -> pointage.getId().equals(invocation.getArgument(0)))
+                .findFirst());
+        lenient().when(pointageRepository.findByEmployeAndDateBetween(any(), any(), any()))
+                .thenAnswer(invocation -> new ArrayList<>(pointagesClotures));
+        lenient().when(rapportTempsRepository.findPourMiseAJour(anyLong(), anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(rapports.get(invocation.getArgument(0) + ":" + invocation.getArgument(1))));
+        lenient().when(rapportTempsRepository.save(any(RapportTemps.class))).thenAnswer(invocation -> {
+            RapportTemps rapportTemps = invocation.getArgument(0);
+            if (rapportTemps.getId() == null) {
+                rapportTemps.setId(++sequenceRapport);
+            }
+            rapports.put(rapportTemps.getEmploye().getId() + ":" + rapportTemps.getPeriode(), rapportTemps);
+            return rapportTemps;
+        });
+    }
+
+    @Test
+    void rapportIncrementalEgalAuRecalculComplet() {
+        List<Pointage> pointages = List.of(
+                pointage(1L, LocalDate.of(2025, 3, 17), LocalTime.of(9, 0), Duration.ofHours(8)),
+                // retard de 25 minutes et heures supplémentaires
+                pointage(2L, LocalDate.of(2025, 3, 18), LocalTime.of(9, 25), Duration.ofHours(9).plusMinutes(30)),
+                // journée incomplète
+                pointage(3L, LocalDate.of(2025, 3, 19), LocalTime.of(9, 5), Duration.ofHours(6)),
+                // absence
+                pointage(4L, LocalDate.of(2025, 3, 20), null, Duration.ZERO),
+                pointage(5L, LocalDate.of(2025, 3, 21), LocalTime.of(9, 40), Duration.ofHours(8)),
+                // samedi travaillé : compté en heures supplémentaires
+                pointage(6L, LocalDate.of(2025, 3, 22), LocalTime.of(10, 0), Duration.ofHours(4)),
+                pointage(7L, LocalDate.of(2025, 3, 24), LocalTime.of(8, 50), Duration.ofHours(10)),
+                pointage(8L, LocalDate.of(2025, 4, 2), LocalTime.of(9, 0), Duration.ofHours(7).plusMinutes(15)));
+
+        for (Pointage pointage : pointages) {
+            pointagesClotures.add(pointage);
+            rapportTempsService.enregistrerPointage(pointage.getId());
+        }
+        RapportTemps incremental = rapports.get("1:" + PERIODE);
+        assertNotNull(incremental);
+
+        RapportTemps complet = rapportTempsService.recalculerRapportMensuel(1L, PERIODE);
+
+        assertMemeRapport(complet, incremental);
+        assertEquals(7, incremental.getNombreJoursTravail());
+        assertEquals(1, incremental.getNombreJoursAbsence());
+        assertEquals(2, incremental.getNombreRetards());
+        assertEquals(8L, incremental.getDernierPointageId());
+        // le recalcul reprend la ligne existante
+        assertEquals(incremental.getId(), complet.getId());
+    }
+
+    @Test
+    void pointageDejaCompteParUnRecalculNestPasAjouteDeuxFois() {
+        pointagesClotures.add(pointage(1L, LocalDate.of(2025, 3, 17), LocalTime.of(9, 0), Duration.ofHours(8)));
+        rapportTempsService.enregistrerPointage(1L);
+
+        // le recalcul complet voit déjà le pointage 2 avant que sa mise à jour incrémentale ne passe
+        pointagesClotures.add(pointage(2L, LocalDate.of(2025, 3, 18), LocalTime.of(9, 30), Duration.ofHours(9)));
+        RapportTemps complet = rapportTempsService.recalculerRapportMensuel(1L, PERIODE);
+        rapportTempsService.enregistrerPointage(2L);
+
+        RapportTemps rapportTemps = rapports.get("1:" + PERIODE);
+        assertSame(complet, rapportTemps);
+        assertEquals(2, rapportTemps.getNombreJoursTravail());
+        assertEquals(1, rapportTemps.getNombreRetards());
+        assertEquals(Duration.ofHours(1), rapportTemps.getTotalHeuresSupplementaires());
+    }
+
+    @Test
+    void pointageEnCoursIgnore() {
+        Pointage pointage = pointage(1L, LocalDate.of(2025, 3, 17), LocalTime.of(9, 0), Duration.ZERO);
+        pointage.setStatut(StatutPointage.EN_COURS);
+        pointagesClotures.add(pointage);
+
+        rapportTempsService.enregistrerPointage(1L);
+
+        assertTrue(rapports.isEmpty());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private Pointage pointage(Long id, LocalDate date, LocalTime entree, Duration heuresTravaillees) {
+        Pointage pointage = new Pointage();
+        pointage.setId(id);
+        pointage.setDate(date);
+        pointage.setEmploye(employe);
+        pointage.setStatut(StatutPointage.TERMINE);
+        if (entree != null) {
+            pointage.setHeureEntree(date.atTime(entree));
+            pointage.setHeureSortie(date.atTime(entree).plus(heuresTravaillees));
+        }
+        pointage.setHeuresTravaillees(heuresTravaillees);
+        return pointage;
+    }
+
+    private static void assertMemeRapport(RapportTemps attendu, RapportTemps obtenu) {
+        assertEquals(attendu.getPeriode(), obtenu.getPeriode());
+        assertEquals(attendu.getNombreJoursTravail(), obtenu.getNombreJoursTravail());
+        assertEquals(attendu.getNombreJoursAbsence(), obtenu.getNombreJoursAbsence());
+        assertEquals(attendu.getNombreRetards(), obtenu.getNombreRetards());
+        assertEquals(attendu.getTotalHeuresTravaillees(), obtenu.getTotalHeuresTravaillees());
+        assertEquals(attendu.getTotalHeuresSupplementaires(), obtenu.getTotalHeuresSupplementaires());
+        assertEquals(0, attendu.getTauxPresence().compareTo(obtenu.getTauxPresence()));
+        assertEquals(attendu.getDernierPointageId(), obtenu.getDernierPointageId());
+    }
+}